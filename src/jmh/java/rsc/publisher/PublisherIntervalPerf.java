@@ -0,0 +1,51 @@
+package rsc.publisher;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rsc.scheduler.VirtualTimeScheduler;
+import rsc.util.PerfSubscriber;
+
+
+/**
+ * Pure CPU overhead of the timed sources, driven by a VirtualTimeScheduler instead of
+ * waiting for the real time to pass. Run from command line as
+ * <br>
+ * gradle jmh -Pjmh='PublisherIntervalPerf'
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class PublisherIntervalPerf {
+
+    @Param({ "1", "1000", "1000000" })
+    public int count;
+
+    VirtualTimeScheduler scheduler;
+
+    @Setup
+    public void setup() {
+        scheduler = new VirtualTimeScheduler();
+    }
+
+    @Benchmark
+    public void interval(Blackhole bh) {
+        Px.interval(1, TimeUnit.MILLISECONDS, scheduler).take(count).subscribe(new PerfSubscriber(bh));
+
+        scheduler.advanceTimeBy(count, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    public void timer(Blackhole bh) {
+        for (int i = 0; i < count; i++) {
+            Px.timer(1, TimeUnit.MILLISECONDS, scheduler).subscribe(new PerfSubscriber(bh));
+        }
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+    }
+}
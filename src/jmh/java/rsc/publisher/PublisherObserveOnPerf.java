@@ -7,6 +7,8 @@ import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
 import org.reactivestreams.Publisher;
 
+import rsc.scheduler.ExecutorServiceScheduler;
+import rsc.scheduler.Scheduler;
 import rsc.util.PerfAsyncSubscriber;
 
 
@@ -35,6 +37,12 @@ public class PublisherObserveOnPerf {
     Publisher<Integer> iterable;
     Publisher<Integer> iterableHidden;
 
+    Publisher<Integer> rangeHiddenAdaptive;
+
+    Publisher<Integer> arrayHiddenAdaptive;
+
+    Publisher<Integer> iterableHiddenAdaptive;
+
     ExecutorService exec;
     
     @Setup
@@ -58,6 +66,13 @@ public class PublisherObserveOnPerf {
         
         iterable = it.observeOn(exec);
         iterableHidden = it.hide().observeOn(exec);
+        
+        // same as the hidden cases, which use a fixed prefetch of Px.BUFFER_SIZE, but adapting between 16 and it
+        Scheduler scheduler = new ExecutorServiceScheduler(exec);
+        
+        rangeHiddenAdaptive = source.hide().observeOn(scheduler, true, 16, Px.BUFFER_SIZE);
+        arrayHiddenAdaptive = arr.hide().observeOn(scheduler, true, 16, Px.BUFFER_SIZE);
+        iterableHiddenAdaptive = it.hide().observeOn(scheduler, true, 16, Px.BUFFER_SIZE);
     }
     
     @TearDown
@@ -102,4 +117,19 @@ public class PublisherObserveOnPerf {
     public void iterableHidden(Blackhole bh) {
         run(iterableHidden, bh);
     }
+
+    @Benchmark
+    public void rangeHiddenAdaptive(Blackhole bh) {
+        run(rangeHiddenAdaptive, bh);
+    }
+
+    @Benchmark
+    public void arrayHiddenAdaptive(Blackhole bh) {
+        run(arrayHiddenAdaptive, bh);
+    }
+
+    @Benchmark
+    public void iterableHiddenAdaptive(Blackhole bh) {
+        run(iterableHiddenAdaptive, bh);
+    }
 }
@@ -34,6 +34,10 @@ public class PublisherZipPerf {
     
     Px<Integer> zipRange;
     
+    Px<Integer> zipRange3;
+    
+    Px<Object[][]> zipBatchedRange3;
+    
     @Param({"1", "1000", "1000000"})
     int count;
     @Setup
@@ -52,6 +56,10 @@ public class PublisherZipPerf {
         zipArray = baselineArray.zipWith(baselineArray, (a, b) -> a + b);
 
         zipRange = baselineRange.zipWith(baselineRange, (a, b) -> a + b);
+
+        zipRange3 = Px.zip(a -> (Integer)a[0] + (Integer)a[1] + (Integer)a[2], baselineRange, baselineRange, baselineRange);
+
+        zipBatchedRange3 = Px.zipBatched(64, baselineRange, baselineRange, baselineRange);
     }
     
     @Benchmark
@@ -83,4 +91,14 @@ public class PublisherZipPerf {
     public void zipRange(Blackhole bh) {
         zipRange.subscribe(new PerfSubscriber(bh));
     }
+
+    @Benchmark
+    public void zipRange3(Blackhole bh) {
+        zipRange3.subscribe(new PerfSubscriber(bh));
+    }
+
+    @Benchmark
+    public void zipBatchedRange3(Blackhole bh) {
+        zipBatchedRange3.subscribe(new PerfSubscriber(bh));
+    }
 }
@@ -55,7 +55,9 @@ public class SchedulerPerf {
         
         TIMED_MANY,
 
-        TIMED_REACTOR
+        TIMED_REACTOR,
+
+        EVENT_LOOP
 
         ;
         
@@ -122,6 +124,8 @@ public class SchedulerPerf {
 
     TimedScheduler reactorTimer;
 
+    TimedScheduler eventLoop;
+
     @Setup
     public void setup() {
         
@@ -180,6 +184,8 @@ public class SchedulerPerf {
         timedMany = new ExecutorTimedScheduler(scheduledExecutorSingleMany);
 
 //        reactorTimer = new ReactorTimedScheduler(Schedulers.newTimer("testTimer"));
+
+        eventLoop = new EventLoopScheduler(ncpu, true);
         
         // -------------------
         
@@ -208,6 +214,7 @@ public class SchedulerPerf {
         schedulers.put(SchedulerType.TIMED_SINGLE, timedSingle);
         schedulers.put(SchedulerType.TIMED_MANY, timedMany);
         schedulers.put(SchedulerType.TIMED_REACTOR, reactorTimer);
+        schedulers.put(SchedulerType.EVENT_LOOP, eventLoop);
     }
     
     @TearDown
@@ -229,6 +236,8 @@ public class SchedulerPerf {
         reactorParallel.shutdown();
         
         timed.shutdown();
+
+        eventLoop.shutdown();
     }
     
     void runUnordered(Blackhole bh, int n, Scheduler scheduler) {
@@ -319,6 +328,81 @@ public class SchedulerPerf {
         runOrderedWorker(bh, count, schedulers.get(type));
     }
 
+    /**
+     * The Workers whose task tracking is exercised by {@link #worker_contended(Contended, Blackhole)}.
+     */
+    public enum TrackingType {
+        EXECUTOR,
+        FORKJOIN,
+        SINGLE,
+        CACHED
+    }
+
+    /**
+     * Holds one Worker shared by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Contended {
+        @Param
+        public TrackingType tracking;
+
+        ExecutorService executor;
+
+        Scheduler scheduler;
+
+        Worker worker;
+
+        @Setup
+        public void setup() {
+            switch (tracking) {
+            case EXECUTOR:
+                executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+                scheduler = new ExecutorScheduler(executor, false);
+                break;
+            case FORKJOIN:
+                scheduler = new ForkJoinScheduler(1);
+                break;
+            case SINGLE:
+                scheduler = new SingleScheduler();
+                break;
+            default:
+                scheduler = new CachedScheduler(true);
+            }
+            worker = scheduler.createWorker();
+        }
+
+        @TearDown
+        public void teardown() {
+            worker.shutdown();
+            scheduler.shutdown();
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Schedules tasks onto the same Worker from 4 threads, putting the add/remove
+     * of the Worker's task tracking under contention.
+     */
+    @Benchmark
+    @Threads(4)
+    public void worker_contended(Contended state, Blackhole bh) {
+        Worker w = state.worker;
+        int n = count;
+        CountDownLatch cdl = new CountDownLatch(n);
+
+        for (int i = 0; i < n; i++) {
+            w.schedule(cdl::countDown);
+        }
+
+        try {
+            cdl.await();
+        } catch (InterruptedException ex) {
+            ex.printStackTrace();
+        }
+    }
+
     /*
     static final class ReactorScheduler implements Scheduler {
         static final Disposable NOOP = () -> {};
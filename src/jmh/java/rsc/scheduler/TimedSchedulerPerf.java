@@ -0,0 +1,73 @@
+package rsc.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rsc.flow.Disposable;
+
+/**
+ * Cost of scheduling and then cancelling a large number of timeouts, the typical
+ * lifecycle of the timeout of a request that completes in time.
+ * <p>
+ * gradle jmh -Pjmh='TimedSchedulerPerf'
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class TimedSchedulerPerf {
+
+    static final int COUNT = 1_000_000;
+
+    public enum TimedType {
+        WHEEL,
+        SINGLE
+    }
+
+    @Param
+    public TimedType type;
+
+    TimedScheduler scheduler;
+
+    Disposable[] disposables;
+
+    Runnable task;
+
+    @Setup
+    public void setup() {
+        switch (type) {
+        case WHEEL:
+            scheduler = new HashedWheelTimedScheduler(true);
+            break;
+        default:
+            scheduler = new SingleTimedScheduler(true);
+        }
+        disposables = new Disposable[COUNT];
+        task = () -> { };
+    }
+
+    @TearDown
+    public void teardown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public void scheduleCancel(Blackhole bh) {
+        TimedScheduler s = scheduler;
+        Disposable[] a = disposables;
+        Runnable r = task;
+
+        for (int i = 0; i < COUNT; i++) {
+            a[i] = s.schedule(r, 30, TimeUnit.SECONDS);
+        }
+        for (int i = 0; i < COUNT; i++) {
+            a[i].dispose();
+            a[i] = null;
+        }
+        bh.consume(a);
+    }
+}
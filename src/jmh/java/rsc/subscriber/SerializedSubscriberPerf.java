@@ -0,0 +1,98 @@
+package rsc.subscriber;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Cost of onNext calls through a shared serializer by a varying number of producer threads,
+ * comparing the synchronized and the queue-drain serializers.
+ * <p>
+ * gradle jmh -Pjmh='SerializedSubscriberPerf'
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+public class SerializedSubscriberPerf {
+
+    public enum SerializerType {
+        SYNCHRONIZED,
+        QUEUE_DRAIN
+    }
+
+    @Param
+    public SerializerType type;
+
+    Subscriber<Integer> serializer;
+
+    CountingSubscriber consumer;
+
+    @Setup
+    public void setup() {
+        consumer = new CountingSubscriber();
+        switch (type) {
+        case SYNCHRONIZED:
+            serializer = new SerializedSubscriber<>(consumer);
+            break;
+        default:
+            serializer = new QueueDrainSerializedSubscriber<>(consumer);
+        }
+        serializer.onSubscribe(SubscriptionHelper.empty());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void producers1() {
+        serializer.onNext(1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void producers4() {
+        serializer.onNext(1);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void producers16() {
+        serializer.onNext(1);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void producers64() {
+        serializer.onNext(1);
+    }
+
+    /**
+     * Counts the values; its onNext is serialized by the benchmarked subscriber.
+     */
+    static final class CountingSubscriber implements Subscriber<Integer> {
+        long count;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Integer t) {
+            count++;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            t.printStackTrace();
+        }
+
+        @Override
+        public void onComplete() {
+
+        }
+    }
+}
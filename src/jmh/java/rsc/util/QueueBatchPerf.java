@@ -0,0 +1,89 @@
+package rsc.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per-element cost of the batch offer/poll methods of the SPSC queues compared to
+ * the one-by-one methods. Run from command line as
+ * <br>
+ * gradle jmh -Pjmh='QueueBatchPerf'
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class QueueBatchPerf {
+
+    static final int COUNT = 1024;
+
+    @Param({ "1", "16", "256" })
+    public int batch;
+
+    Integer[] items;
+
+    SpscArrayQueue<Integer> queue;
+
+    SpscLinkedArrayQueue<Integer> linkedQueue;
+
+    Integer[] into;
+
+    @Setup
+    public void setup() {
+        items = new Integer[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            items[i] = 777;
+        }
+        queue = new SpscArrayQueue<>(COUNT);
+        linkedQueue = new SpscLinkedArrayQueue<>(COUNT);
+        into = new Integer[batch];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void array(Blackhole bh) {
+        SpscArrayQueue<Integer> q = queue;
+        Integer[] a = items;
+        Integer[] into = this.into;
+        int b = batch;
+
+        for (int i = 0; i < COUNT; i += b) {
+            if (b == 1) {
+                q.offer(a[i]);
+                bh.consume(q.poll());
+            } else {
+                q.offer(a, i, b);
+                int n = q.poll(into);
+                for (int j = 0; j < n; j++) {
+                    bh.consume(into[j]);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void linked(Blackhole bh) {
+        SpscLinkedArrayQueue<Integer> q = linkedQueue;
+        Integer[] a = items;
+        Integer[] into = this.into;
+        int b = batch;
+
+        for (int i = 0; i < COUNT; i += b) {
+            if (b == 1) {
+                q.offer(a[i]);
+                bh.consume(q.poll());
+            } else {
+                q.offer(a, i, b);
+                int n = q.poll(into);
+                for (int j = 0; j < n; j++) {
+                    bh.consume(into[j]);
+                }
+            }
+        }
+    }
+}
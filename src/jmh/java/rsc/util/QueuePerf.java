@@ -33,6 +33,10 @@ public class QueuePerf {
 
     Px<Integer> rsc;
     Px<Integer> rscLinked;
+
+    Px<Integer> rscMpsc;
+
+    Px<Integer> rscMpscLinked;
     
     @Setup
     public void setup() {
@@ -51,6 +55,10 @@ public class QueuePerf {
         rsc = new PublisherObserveOn<>(source, s2, false, prefetch, () -> new SpscArrayQueue<>(prefetch));
         
         rscLinked = new PublisherObserveOn<>(source, s2, false, prefetch, () -> new SpscLinkedArrayQueue<>(prefetch));
+
+        rscMpsc = new PublisherObserveOn<>(source, s2, false, prefetch, () -> new MpscArrayQueue<>(prefetch));
+
+        rscMpscLinked = new PublisherObserveOn<>(source, s2, false, prefetch, () -> new MpscLinkedArrayQueue<>(prefetch));
     }
     
     @TearDown
@@ -76,4 +84,14 @@ public class QueuePerf {
     public void rscLinked(Blackhole bh) {
         run(rscLinked, bh);
     }
+
+    @Benchmark
+    public void rscMpsc(Blackhole bh) {
+        run(rscMpsc, bh);
+    }
+
+    @Benchmark
+    public void rscMpscLinked(Blackhole bh) {
+        run(rscMpscLinked, bh);
+    }
 }
\ No newline at end of file
@@ -155,6 +155,36 @@ public interface Fuseable {
         }
     }
 
+    /**
+     * A QueueSubscription that can hand out its values as primitive ints, avoiding the
+     * boxing {@link #poll()} would incur.
+     * <p>
+     * Since there is no null to indicate emptiness, consumers should check {@link #isEmpty()}
+     * before each {@link #pollInt()}.
+     */
+    interface IntQueueSubscription extends QueueSubscription<Integer> {
+        /**
+         * Returns the next value; call only if {@link #isEmpty()} returned false.
+         * @return the next value
+         */
+        int pollInt();
+    }
+
+    /**
+     * A QueueSubscription that can hand out its values as primitive longs, avoiding the
+     * boxing {@link #poll()} would incur.
+     * <p>
+     * Since there is no null to indicate emptiness, consumers should check {@link #isEmpty()}
+     * before each {@link #pollLong()}.
+     */
+    interface LongQueueSubscription extends QueueSubscription<Long> {
+        /**
+         * Returns the next value; call only if {@link #isEmpty()} returned false.
+         * @return the next value
+         */
+        long pollLong();
+    }
+
     /**
      * Base class for synchronous sources which have fixed size and can
      * emit its items in a pull fashion, thus avoiding the request-accounting
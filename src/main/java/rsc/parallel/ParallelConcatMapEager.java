@@ -0,0 +1,78 @@
+package rsc.parallel;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.function.*;
+
+import org.reactivestreams.*;
+
+import rsc.publisher.PublisherConcatMapEager;
+
+/**
+ * Eagerly concatenates the generated Publishers on each rail.
+ *
+ * @param <T> the input value type
+ * @param <R> the output value type
+ */
+public final class ParallelConcatMapEager<T, R> extends ParallelPublisher<R> {
+
+    final ParallelPublisher<T> source;
+    
+    final Function<? super T, ? extends Publisher<? extends R>> mapper;
+    
+    final boolean delayError;
+    
+    final int maxConcurrency;
+    
+    final int prefetch;
+    
+    final Supplier<? extends Queue<R>> innerQueueSupplier;
+
+    public ParallelConcatMapEager(
+            ParallelPublisher<T> source, 
+            Function<? super T, ? extends Publisher<? extends R>> mapper,
+            boolean delayError, 
+            int maxConcurrency,
+            int prefetch, Supplier<? extends Queue<R>> innerQueueSupplier) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency > 0 required but it was " + maxConcurrency);
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.source = source;
+        this.mapper = Objects.requireNonNull(mapper, "mapper");
+        this.delayError = delayError;
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
+        this.innerQueueSupplier = Objects.requireNonNull(innerQueueSupplier, "innerQueueSupplier");
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return false;
+    }
+    
+    @Override
+    public int parallelism() {
+        return source.parallelism();
+    }
+    
+    @Override
+    public void subscribe(Subscriber<? super R>[] subscribers) {
+        if (!validate(subscribers)) {
+            return;
+        }
+        
+        int n = subscribers.length;
+        
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Subscriber<T>[] parents = new Subscriber[n];
+        
+        for (int i = 0; i < n; i++) {
+            parents[i] = PublisherConcatMapEager.subscribe(subscribers[i], mapper, delayError, maxConcurrency, prefetch, innerQueueSupplier);
+        }
+        
+        source.subscribe(parents);
+    }
+}
@@ -870,6 +870,38 @@ public abstract class ParallelPublisher<T> {
         return new ParallelUnorderedConcatMap<>(this, mapper, Px.defaultQueueSupplier(prefetch), prefetch, errorMode);
     }
 
+    /**
+     * Generates Publishers on each 'rail', subscribes to them eagerly and emits their items
+     * in the order of the rail's values, signalling errors immediately.
+     * <p>
+     * It uses the default number of simultaneous subscriptions and inner prefetch.
+     * 
+     * @param <R> the result type
+     * @param mapper the function to map each rail's value into a Publisher
+     * @return the new ParallelPublisher instance
+     */
+    public final <R> ParallelPublisher<R> concatMapEager(
+            Function<? super T, ? extends Publisher<? extends R>> mapper) {
+        return concatMapEager(mapper, false, Px.bufferSize(), Px.bufferSize());
+    }
+
+    /**
+     * Generates Publishers on each 'rail', subscribes to up to maxConcurrency of them at once 
+     * and emits their items in the order of the rail's values, optionally delaying errors.
+     * 
+     * @param <R> the result type
+     * @param mapper the function to map each rail's value into a Publisher
+     * @param delayError should the errors from the main and the inner sources delayed till everybody terminates?
+     * @param maxConcurrency the maximum number of simultaneous subscriptions to the generated inner Publishers
+     * @param prefetch the number of items to prefetch and buffer from each inner Publisher
+     * @return the new ParallelPublisher instance
+     */
+    public final <R> ParallelPublisher<R> concatMapEager(
+            Function<? super T, ? extends Publisher<? extends R>> mapper,
+            boolean delayError, int maxConcurrency, int prefetch) {
+        return new ParallelConcatMapEager<>(this, mapper, delayError, maxConcurrency, prefetch, Px.defaultQueueSupplier(prefetch));
+    }
+
     /**
      * The prefetch configuration of the component
      * @return the prefetch configuration of the component
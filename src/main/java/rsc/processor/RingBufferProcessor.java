@@ -0,0 +1,555 @@
+package rsc.processor;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import rsc.documentation.BackpressureMode;
+import rsc.documentation.BackpressureSupport;
+import rsc.flow.MultiProducer;
+import rsc.flow.Producer;
+import rsc.flow.Receiver;
+import rsc.flow.Trackable;
+import rsc.publisher.Px;
+import rsc.subscriber.SubscriptionHelper;
+import rsc.util.BackpressureHelper;
+import rsc.util.PowerOf2;
+import rsc.util.UnsignalledExceptions;
+
+/**
+ * Dispatches onNext, onError and onComplete signals to zero-to-many Subscribers through
+ * a single pre-allocated ring buffer.
+ * <p>
+ * Each item is written once into the ring and each Subscriber reads it at its own pace by
+ * tracking its own sequence; there are no per-Subscriber queues. The slowest Subscriber
+ * gates the upstream: only as many items are requested as there are slots freed by all
+ * the Subscribers.
+ * <p>
+ * Subscribers only receive the items published after they subscribed. Without Subscribers,
+ * the items are dropped.
+ * <p>
+ * The onNext calls have to be serialized. Calling onNext without the free slots requested
+ * via the upstream Subscription signals an IllegalStateException.
+ * <p>
+ * A terminated RingBufferProcessor will emit the terminal signal to late subscribers.
+ *
+ * @param <T> the input and output value type
+ */
+@BackpressureSupport(input = BackpressureMode.BOUNDED, output = BackpressureMode.BOUNDED)
+public final class RingBufferProcessor<T>
+    extends Px<T>
+    implements Processor<T, T>, Receiver, MultiProducer, Trackable {
+
+    @SuppressWarnings("rawtypes")
+    static final RingSubscription[] EMPTY = new RingSubscription[0];
+
+    @SuppressWarnings("rawtypes")
+    static final RingSubscription[] TERMINATED = new RingSubscription[0];
+
+    final Object[] ring;
+
+    final int mask;
+
+    final int limit;
+
+    @SuppressWarnings("unchecked")
+    volatile RingSubscription<T>[] subscribers = EMPTY;
+
+    Subscription s;
+
+    /** The sequence of the next item to be written; items before it are readable. */
+    volatile long producerIndex;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<RingBufferProcessor> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(RingBufferProcessor.class, "producerIndex");
+
+    /** The last known sequence of the slowest Subscriber, accessed by the producer only. */
+    long gatingCache;
+
+    volatile boolean done;
+    Throwable error;
+
+    /** The number of items requested from upstream so far, accessed under replenishWip. */
+    long upstreamRequested;
+
+    volatile int replenishWip;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<RingBufferProcessor> REPLENISH_WIP =
+            AtomicIntegerFieldUpdater.newUpdater(RingBufferProcessor.class, "replenishWip");
+
+    public RingBufferProcessor() {
+        this(Px.bufferSize());
+    }
+
+    /**
+     * Constructs a RingBufferProcessor.
+     * @param bufferSize the ring capacity, rounded up to the next power of two
+     */
+    public RingBufferProcessor(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 required but it was " + bufferSize);
+        }
+        int c = PowerOf2.roundUp(bufferSize);
+        this.ring = new Object[c];
+        this.mask = c - 1;
+        this.limit = Math.max(1, c >> 2);
+    }
+
+    @Override
+    public long getPrefetch() {
+        return ring.length;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (SubscriptionHelper.validate(this.s, s)) {
+            if (subscribers == TERMINATED) {
+                s.cancel();
+                return;
+            }
+            this.s = s;
+            replenish();
+        }
+    }
+
+    @Override
+    public void onNext(T t) {
+        Objects.requireNonNull(t, "t");
+        if (done) {
+            UnsignalledExceptions.onNextDropped(t);
+            return;
+        }
+
+        final Object[] r = ring;
+        long p = producerIndex;
+
+        if (p - gatingCache >= r.length) {
+            gatingCache = minIndex(p);
+            if (p - gatingCache >= r.length) {
+                Subscription a = s;
+                if (a != null) {
+                    a.cancel();
+                }
+                onError(new IllegalStateException("The ring buffer is full, the upstream ignored backpressure"));
+                return;
+            }
+        }
+
+        r[(int)p & mask] = t;
+        PRODUCER_INDEX.lazySet(this, p + 1);
+
+        RingSubscription<T>[] a = subscribers;
+        if (a.length == 0) {
+            // nobody gates the ring, keep the upstream flowing
+            replenish();
+        }
+        for (RingSubscription<T> rs : a) {
+            rs.drain();
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        Objects.requireNonNull(t, "t");
+        if (done) {
+            UnsignalledExceptions.onErrorDropped(t);
+            return;
+        }
+        error = t;
+        done = true;
+        for (RingSubscription<?> rs : terminate()) {
+            rs.drain();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (done) {
+            return;
+        }
+        done = true;
+        for (RingSubscription<?> rs : terminate()) {
+            rs.drain();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    RingSubscription<T>[] terminate() {
+        synchronized (this) {
+            RingSubscription<T>[] a = subscribers;
+            subscribers = TERMINATED;
+            return a;
+        }
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        Objects.requireNonNull(s, "s");
+
+        RingSubscription<T> rs = new RingSubscription<>(s, this);
+        s.onSubscribe(rs);
+
+        if (add(rs)) {
+            if (rs.cancelled) {
+                remove(rs);
+            } else {
+                rs.drain();
+            }
+        } else {
+            Throwable e = error;
+            if (e != null) {
+                s.onError(e);
+            } else {
+                s.onComplete();
+            }
+        }
+    }
+
+    /**
+     * Returns the sequence of the slowest Subscriber or the given producer index if there
+     * are none.
+     */
+    long minIndex(long producerIndex) {
+        long min = producerIndex;
+        for (RingSubscription<T> rs : subscribers) {
+            long idx = rs.index;
+            if (idx < min) {
+                min = idx;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Requests from upstream the slots freed by all the Subscribers, in batches.
+     */
+    void replenish() {
+        if (REPLENISH_WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+        int missed = 1;
+        for (;;) {
+            Subscription a = s;
+            if (a != null && !done) {
+                long u = upstreamRequested;
+                // scan the Subscribers only if a batch may have been freed
+                if (producerIndex + ring.length - u >= limit || u == 0L) {
+                    long allowed;
+                    // a Subscriber being added either shows up in the scan or starts
+                    // at or after the producer index read here
+                    synchronized (this) {
+                        allowed = minIndex(producerIndex) + ring.length;
+                    }
+                    long n = allowed - u;
+                    if (n >= limit || (u == 0L && n > 0L)) {
+                        upstreamRequested = allowed;
+                        a.request(n);
+                    }
+                }
+            }
+
+            missed = REPLENISH_WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    boolean add(RingSubscription<T> rs) {
+        RingSubscription<T>[] a = subscribers;
+        if (a == TERMINATED) {
+            return false;
+        }
+
+        synchronized (this) {
+            a = subscribers;
+            if (a == TERMINATED) {
+                return false;
+            }
+            // starts at the next published item; replenish reads the producer index and
+            // scans the Subscribers under this lock too, thus it can't request beyond
+            // what this Subscriber lets the producer overwrite
+            rs.index = producerIndex;
+            rs.added = true;
+
+            int len = a.length;
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            RingSubscription<T>[] b = new RingSubscription[len + 1];
+            System.arraycopy(a, 0, b, 0, len);
+            b[len] = rs;
+
+            subscribers = b;
+
+            return true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void remove(RingSubscription<T> rs) {
+        RingSubscription<T>[] a = subscribers;
+        if (a == TERMINATED || a == EMPTY) {
+            return;
+        }
+
+        synchronized (this) {
+            a = subscribers;
+            if (a == TERMINATED || a == EMPTY) {
+                return;
+            }
+            int len = a.length;
+
+            int j = -1;
+
+            for (int i = 0; i < len; i++) {
+                if (a[i] == rs) {
+                    j = i;
+                    break;
+                }
+            }
+            if (j < 0) {
+                return;
+            }
+            if (len == 1) {
+                subscribers = EMPTY;
+            } else {
+                @SuppressWarnings({ "unchecked", "rawtypes" })
+                RingSubscription<T>[] b = new RingSubscription[len - 1];
+                System.arraycopy(a, 0, b, 0, j);
+                System.arraycopy(a, j + 1, b, j, len - j - 1);
+
+                subscribers = b;
+            }
+        }
+        // the slowest may have left
+        replenish();
+    }
+
+    @Override
+    public boolean isStarted() {
+        return s != null;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return done;
+    }
+
+    @Override
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public Iterator<?> downstreams() {
+        return Arrays.asList(subscribers).iterator();
+    }
+
+    @Override
+    public long downstreamCount() {
+        return subscribers.length;
+    }
+
+    @Override
+    public boolean hasDownstreams() {
+        RingSubscription<T>[] a = subscribers;
+        return a != EMPTY && a != TERMINATED;
+    }
+
+    @Override
+    public long getCapacity() {
+        return ring.length;
+    }
+
+    @Override
+    public long getPending() {
+        return producerIndex - minIndex(producerIndex);
+    }
+
+    @Override
+    public Object upstream() {
+        return s;
+    }
+
+    static final class RingSubscription<T> implements Subscription, Receiver, Producer, Trackable {
+
+        final Subscriber<? super T> actual;
+
+        final RingBufferProcessor<T> parent;
+
+        /** The sequence of the next item to read. */
+        volatile long index;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<RingSubscription> INDEX =
+                AtomicLongFieldUpdater.newUpdater(RingSubscription.class, "index");
+
+        volatile boolean cancelled;
+
+        /** Set once the index is valid and gates the producer. */
+        volatile boolean added;
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<RingSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(RingSubscription.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<RingSubscription> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(RingSubscription.class, "wip");
+
+        public RingSubscription(Subscriber<? super T> actual, RingBufferProcessor<T> parent) {
+            this.actual = actual;
+            this.parent = parent;
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.getAndAddCap(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                parent.remove(this);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+
+            final Subscriber<? super T> a = actual;
+            final RingBufferProcessor<T> p = parent;
+            final Object[] r = p.ring;
+            final int m = p.mask;
+
+            int missed = 1;
+
+            for (;;) {
+
+                if (!added) {
+                    missed = WIP.addAndGet(this, -missed);
+                    if (missed == 0) {
+                        break;
+                    }
+                    continue;
+                }
+
+                long idx = index;
+                long start = idx;
+                long req = requested;
+                long e = 0L;
+
+                while (e != req) {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    boolean d = p.done;
+                    boolean empty = idx == p.producerIndex;
+
+                    if (checkTerminated(d, empty, a)) {
+                        return;
+                    }
+
+                    if (empty) {
+                        break;
+                    }
+
+                    T v = (T)r[(int)idx & m];
+
+                    a.onNext(v);
+
+                    idx++;
+                    e++;
+                    INDEX.lazySet(this, idx);
+                }
+
+                if (e == req) {
+                    if (cancelled) {
+                        return;
+                    }
+                    if (checkTerminated(p.done, idx == p.producerIndex, a)) {
+                        return;
+                    }
+                }
+
+                if (e != 0L) {
+                    if (req != Long.MAX_VALUE) {
+                        REQUESTED.addAndGet(this, -e);
+                    }
+                    // after a batch or once caught up, this may have been the slowest
+                    if (((start ^ idx) & -(long)p.limit) != 0L || idx == p.producerIndex) {
+                        p.replenish();
+                    }
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty, Subscriber<? super T> a) {
+            if (d && empty) {
+                cancelled = true;
+                Throwable ex = parent.error;
+                if (ex != null) {
+                    a.onError(ex);
+                } else {
+                    a.onComplete();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public Subscriber<? super T> downstream() {
+            return actual;
+        }
+
+        @Override
+        public long requestedFromDownstream() {
+            return requested;
+        }
+
+        @Override
+        public Processor<T, T> upstream() {
+            return parent;
+        }
+
+        @Override
+        public long getPending() {
+            return parent.producerIndex - index;
+        }
+
+        @Override
+        public boolean isStarted() {
+            return parent.isStarted();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return parent.isTerminated();
+        }
+    }
+}
@@ -22,6 +22,7 @@ import rsc.publisher.Px;
 import rsc.flow.Trackable;
 import rsc.subscriber.SubscriptionHelper;
 import rsc.util.BackpressureHelper;
+import rsc.util.MpscLinkedArrayQueue;
 import rsc.util.UnsignalledExceptions;
 
 /**
@@ -30,6 +31,10 @@ import rsc.util.UnsignalledExceptions;
  * 
  * <p>
  * The implementation keeps the order of signals.
+ * <p>
+ * The onNext calls have to be serialized unless the queue is multi-producer safe, such
+ * as the one used by {@link #multiProducer()}; in which case many threads may call
+ * onNext concurrently, each thread's values keeping their relative order.
  *
  * @param <T> the input and output type
  */
@@ -57,6 +62,11 @@ implements Processor<T, T>, Fuseable.QueueSubscription<T>, Fuseable, Producer, R
     
     volatile boolean cancelled;
     
+    volatile int terminated;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<UnicastProcessor> TERMINATED =
+            AtomicIntegerFieldUpdater.newUpdater(UnicastProcessor.class, "terminated");
+    
     volatile int once;
     @SuppressWarnings("rawtypes")
     static final AtomicIntegerFieldUpdater<UnicastProcessor> ONCE =
@@ -74,6 +84,27 @@ implements Processor<T, T>, Fuseable.QueueSubscription<T>, Fuseable, Producer, R
     
     volatile boolean enableOperatorFusion;
 
+    /**
+     * Creates a UnicastProcessor with an unbounded MPSC queue whose onNext may be
+     * called from multiple threads concurrently.
+     * @param <T> the value type
+     * @return the new UnicastProcessor
+     */
+    public static <T> UnicastProcessor<T> multiProducer() {
+        return new UnicastProcessor<>(new MpscLinkedArrayQueue<>(Px.bufferSize()));
+    }
+
+    /**
+     * Creates a UnicastProcessor with an unbounded MPSC queue whose onNext may be
+     * called from multiple threads concurrently.
+     * @param <T> the value type
+     * @param onTerminate called once when the processor terminates or gets cancelled
+     * @return the new UnicastProcessor
+     */
+    public static <T> UnicastProcessor<T> multiProducer(Disposable onTerminate) {
+        return new UnicastProcessor<>(new MpscLinkedArrayQueue<>(Px.bufferSize()), onTerminate);
+    }
+
     public UnicastProcessor(Queue<T> queue) {
         this.queue = Objects.requireNonNull(queue, "queue");
         this.onTerminate = null;
@@ -249,7 +280,7 @@ implements Processor<T, T>, Fuseable.QueueSubscription<T>, Fuseable, Producer, R
     
     @Override
     public void onError(Throwable t) {
-        if (done || cancelled) {
+        if (done || cancelled || !TERMINATED.compareAndSet(this, 0, 1)) {
             UnsignalledExceptions.onErrorDropped(t);
             return;
         }
@@ -264,7 +295,7 @@ implements Processor<T, T>, Fuseable.QueueSubscription<T>, Fuseable, Producer, R
     
     @Override
     public void onComplete() {
-        if (done || cancelled) {
+        if (done || cancelled || !TERMINATED.compareAndSet(this, 0, 1)) {
             return;
         }
         
@@ -0,0 +1,436 @@
+package rsc.processor;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import rsc.documentation.BackpressureMode;
+import rsc.documentation.BackpressureSupport;
+import rsc.flow.MultiProducer;
+import rsc.flow.Producer;
+import rsc.flow.Receiver;
+import rsc.flow.Trackable;
+import rsc.publisher.Px;
+import rsc.subscriber.SubscriptionHelper;
+import rsc.util.BackpressureHelper;
+import rsc.util.SpscArrayQueue;
+import rsc.util.UnsignalledExceptions;
+
+/**
+ * Distributes onNext signals among zero-to-many Subscribers so that each item is
+ * delivered to exactly one of them.
+ * <p>
+ * Items are buffered in a shared bounded queue and handed out in a round-robin fashion to
+ * the Subscribers that have outstanding demand; a Subscriber without demand is skipped and
+ * the item goes to the next one that can take it. Items are requested from upstream only as
+ * they are taken out of the queue, thus Subscribers may join or leave at any time without
+ * losing items or overflowing the buffer: without Subscribers, the items stay queued.
+ * <p>
+ * The handoff runs on whichever thread wins the drain loop; place an {@code observeOn} after
+ * the processor to process the items of each Subscriber in parallel.
+ * <p>
+ * The onNext calls have to be serialized. Calling onNext beyond the requested amount
+ * signals an IllegalStateException.
+ * <p>
+ * The terminal signal is emitted to all Subscribers once the queue has been drained.
+ * A terminated WorkQueueProcessor will emit the terminal signal to late subscribers.
+ *
+ * @param <T> the input and output value type
+ */
+@BackpressureSupport(input = BackpressureMode.BOUNDED, output = BackpressureMode.BOUNDED)
+public final class WorkQueueProcessor<T>
+    extends Px<T>
+    implements Processor<T, T>, Receiver, MultiProducer, Trackable {
+
+    @SuppressWarnings("rawtypes")
+    static final WorkQueueSubscription[] EMPTY = new WorkQueueSubscription[0];
+
+    @SuppressWarnings("rawtypes")
+    static final WorkQueueSubscription[] TERMINATED = new WorkQueueSubscription[0];
+
+    final int prefetch;
+
+    final int limit;
+
+    final Queue<T> queue;
+
+    @SuppressWarnings("unchecked")
+    volatile WorkQueueSubscription<T>[] subscribers = EMPTY;
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<WorkQueueProcessor, WorkQueueSubscription[]> SUBSCRIBERS =
+            AtomicReferenceFieldUpdater.newUpdater(WorkQueueProcessor.class, WorkQueueSubscription[].class, "subscribers");
+
+    volatile Subscription s;
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<WorkQueueProcessor, Subscription> S =
+            AtomicReferenceFieldUpdater.newUpdater(WorkQueueProcessor.class, Subscription.class, "s");
+
+    volatile boolean done;
+    Throwable error;
+
+    volatile int wip;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<WorkQueueProcessor> WIP =
+            AtomicIntegerFieldUpdater.newUpdater(WorkQueueProcessor.class, "wip");
+
+    /** The position of the next Subscriber to offer an item to, accessed in drain only. */
+    int index;
+
+    /** The number of items taken since the last replenishment, accessed in drain only. */
+    int consumed;
+
+    public WorkQueueProcessor() {
+        this(Px.bufferSize());
+    }
+
+    /**
+     * Constructs a WorkQueueProcessor.
+     * @param prefetch the number of items requested upfront and buffered at most
+     */
+    public WorkQueueProcessor(int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.prefetch = prefetch;
+        this.limit = prefetch - (prefetch >> 2);
+        this.queue = new SpscArrayQueue<>(prefetch);
+    }
+
+    @Override
+    public long getPrefetch() {
+        return prefetch;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (SubscriptionHelper.setOnce(S, this, s)) {
+            if (subscribers == TERMINATED) {
+                s.cancel();
+                return;
+            }
+            s.request(prefetch);
+        }
+    }
+
+    @Override
+    public void onNext(T t) {
+        Objects.requireNonNull(t, "t");
+        if (done) {
+            UnsignalledExceptions.onNextDropped(t);
+            return;
+        }
+        if (!queue.offer(t)) {
+            Subscription a = s;
+            if (a != null) {
+                a.cancel();
+            }
+            onError(new IllegalStateException("The queue is full, the upstream ignored backpressure"));
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        Objects.requireNonNull(t, "t");
+        if (done) {
+            UnsignalledExceptions.onErrorDropped(t);
+            return;
+        }
+        error = t;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        if (done) {
+            return;
+        }
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        Objects.requireNonNull(s, "s");
+
+        WorkQueueSubscription<T> ws = new WorkQueueSubscription<>(s, this);
+        s.onSubscribe(ws);
+
+        if (add(ws)) {
+            if (ws.cancelled) {
+                remove(ws);
+            } else {
+                drain();
+            }
+        } else {
+            Throwable e = error;
+            if (e != null) {
+                s.onError(e);
+            } else {
+                s.onComplete();
+            }
+        }
+    }
+
+    void drain() {
+        if (WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+
+        final Queue<T> q = queue;
+
+        int missed = 1;
+
+        for (;;) {
+
+            WorkQueueSubscription<T>[] a = subscribers;
+            int n = a.length;
+            int idx = index;
+            int c = consumed;
+
+            for (;;) {
+                boolean d = done;
+                boolean empty = q.isEmpty();
+
+                if (d && empty) {
+                    Throwable ex = error;
+                    @SuppressWarnings("unchecked")
+                    WorkQueueSubscription<T>[] b = SUBSCRIBERS.getAndSet(this, TERMINATED);
+                    for (WorkQueueSubscription<T> ws : b) {
+                        if (ex != null) {
+                            ws.actual.onError(ex);
+                        } else {
+                            ws.actual.onComplete();
+                        }
+                    }
+                    return;
+                }
+
+                if (empty) {
+                    break;
+                }
+
+                WorkQueueSubscription<T> ws = null;
+                for (int i = 0; i < n; i++) {
+                    if (idx >= n) {
+                        idx = 0;
+                    }
+                    WorkQueueSubscription<T> b = a[idx++];
+                    if (b.isReady()) {
+                        ws = b;
+                        break;
+                    }
+                }
+
+                if (ws == null) {
+                    break;
+                }
+
+                T v = q.poll();
+
+                ws.emitted++;
+                ws.actual.onNext(v);
+
+                if (++c == limit) {
+                    c = 0;
+                    s.request(limit);
+                }
+            }
+
+            index = idx;
+            consumed = c;
+
+            missed = WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    boolean add(WorkQueueSubscription<T> ws) {
+        for (;;) {
+            WorkQueueSubscription<T>[] a = subscribers;
+            if (a == TERMINATED) {
+                return false;
+            }
+
+            int n = a.length;
+
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            WorkQueueSubscription<T>[] b = new WorkQueueSubscription[n + 1];
+            System.arraycopy(a, 0, b, 0, n);
+            b[n] = ws;
+
+            if (SUBSCRIBERS.compareAndSet(this, a, b)) {
+                return true;
+            }
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void remove(WorkQueueSubscription<T> ws) {
+        for (;;) {
+            WorkQueueSubscription<T>[] a = subscribers;
+            if (a == TERMINATED || a == EMPTY) {
+                return;
+            }
+
+            int n = a.length;
+            int j = -1;
+
+            for (int i = 0; i < n; i++) {
+                if (a[i] == ws) {
+                    j = i;
+                    break;
+                }
+            }
+
+            if (j < 0) {
+                return;
+            }
+
+            WorkQueueSubscription<T>[] b;
+            if (n == 1) {
+                b = EMPTY;
+            } else {
+                b = new WorkQueueSubscription[n - 1];
+                System.arraycopy(a, 0, b, 0, j);
+                System.arraycopy(a, j + 1, b, j, n - j - 1);
+            }
+            if (SUBSCRIBERS.compareAndSet(this, a, b)) {
+                // the remaining Subscribers may take over the queued items
+                drain();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isStarted() {
+        return s != null;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return done;
+    }
+
+    @Override
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public Iterator<?> downstreams() {
+        return Arrays.asList(subscribers).iterator();
+    }
+
+    @Override
+    public long downstreamCount() {
+        return subscribers.length;
+    }
+
+    @Override
+    public boolean hasDownstreams() {
+        WorkQueueSubscription<T>[] a = subscribers;
+        return a != EMPTY && a != TERMINATED;
+    }
+
+    @Override
+    public long getCapacity() {
+        return prefetch;
+    }
+
+    @Override
+    public long getPending() {
+        return queue.size();
+    }
+
+    @Override
+    public Object upstream() {
+        return s;
+    }
+
+    static final class WorkQueueSubscription<T> implements Subscription, Receiver, Producer, Trackable {
+
+        final Subscriber<? super T> actual;
+
+        final WorkQueueProcessor<T> parent;
+
+        volatile boolean cancelled;
+
+        /** The total amount requested, capped at Long.MAX_VALUE. */
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<WorkQueueSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(WorkQueueSubscription.class, "requested");
+
+        /** The total amount emitted, accessed in the parent's drain only. */
+        long emitted;
+
+        public WorkQueueSubscription(Subscriber<? super T> actual, WorkQueueProcessor<T> parent) {
+            this.actual = actual;
+            this.parent = parent;
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.getAndAddCap(REQUESTED, this, n);
+                parent.drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                parent.remove(this);
+            }
+        }
+
+        boolean isReady() {
+            return !cancelled && requested != emitted;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public Subscriber<? super T> downstream() {
+            return actual;
+        }
+
+        @Override
+        public long requestedFromDownstream() {
+            return requested - emitted;
+        }
+
+        @Override
+        public Processor<T, T> upstream() {
+            return parent;
+        }
+
+        @Override
+        public boolean isStarted() {
+            return parent.isStarted();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return parent.isTerminated();
+        }
+    }
+}
@@ -0,0 +1,624 @@
+package rsc.publisher;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import org.reactivestreams.*;
+
+import rsc.documentation.BackpressureMode;
+import rsc.documentation.BackpressureSupport;
+import rsc.documentation.FusionMode;
+import rsc.documentation.FusionSupport;
+import rsc.flow.*;
+import rsc.subscriber.SubscriptionHelper;
+import rsc.util.*;
+
+/**
+ * Maps each upstream value into a Publisher, subscribes to up to maxConcurrency of them
+ * at once and emits their items in the order of the upstream values.
+ * <p>
+ * Each inner source is buffered in its own queue until all the preceding sources have
+ * completed, thus the output has the ordering of {@link PublisherConcatMap} while the
+ * inner sources run concurrently as with {@link PublisherFlatMap}.
+ *
+ * @param <T> the source value type
+ * @param <R> the output value type
+ */
+@BackpressureSupport(input = BackpressureMode.BOUNDED, innerInput = BackpressureMode.BOUNDED, output = BackpressureMode.BOUNDED)
+@FusionSupport(innerInput = { FusionMode.SYNC, FusionMode.ASYNC })
+public final class PublisherConcatMapEager<T, R> extends PublisherSource<T, R> {
+
+    final Function<? super T, ? extends Publisher<? extends R>> mapper;
+
+    final boolean delayError;
+
+    final int maxConcurrency;
+
+    final int prefetch;
+
+    final Supplier<? extends Queue<R>> innerQueueSupplier;
+
+    public PublisherConcatMapEager(Publisher<? extends T> source,
+            Function<? super T, ? extends Publisher<? extends R>> mapper,
+            boolean delayError, int maxConcurrency, int prefetch,
+            Supplier<? extends Queue<R>> innerQueueSupplier) {
+        super(source);
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency > 0 required but it was " + maxConcurrency);
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.mapper = Objects.requireNonNull(mapper, "mapper");
+        this.delayError = delayError;
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
+        this.innerQueueSupplier = Objects.requireNonNull(innerQueueSupplier, "innerQueueSupplier");
+    }
+
+    @Override
+    public long getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Return a Subscriber that handles the eager concatenation with the given parameters.
+     * @param <T> the input value type
+     * @param <R> the output value type
+     * @param s the downstream Subscriber
+     * @param mapper the mapper from Ts to a Publisher of Rs
+     * @param delayError delay the errors until all sources terminated?
+     * @param maxConcurrency maximum number of simultaneous subscriptions to the generated sources
+     * @param prefetch the prefetch amount for the inner sources
+     * @param innerQueueSupplier the queue supplier for the inner sources
+     * @return the Subscriber
+     */
+    public static <T, R> Subscriber<T> subscribe(
+            Subscriber<? super R> s,
+            Function<? super T, ? extends Publisher<? extends R>> mapper,
+            boolean delayError, int maxConcurrency,
+            int prefetch, Supplier<? extends Queue<R>> innerQueueSupplier) {
+        return new PublisherConcatMapEagerMain<>(s, mapper, delayError, maxConcurrency, prefetch, innerQueueSupplier);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super R> s) {
+
+        if (PublisherFlatMap.trySubscribeScalarMap(source, s, mapper, false)) {
+            return;
+        }
+
+        source.subscribe(new PublisherConcatMapEagerMain<>(s, mapper, delayError, maxConcurrency, prefetch, innerQueueSupplier));
+    }
+
+    static final class PublisherConcatMapEagerMain<T, R>
+    implements Subscriber<T>, Subscription, Receiver, Producer, Trackable {
+
+        final Subscriber<? super R> actual;
+
+        final Function<? super T, ? extends Publisher<? extends R>> mapper;
+
+        final boolean delayError;
+
+        final int maxConcurrency;
+
+        final int prefetch;
+
+        final Supplier<? extends Queue<R>> innerQueueSupplier;
+
+        /** The active inner subscribers in upstream order; offered by onNext, polled by the drain. */
+        final Queue<PublisherConcatMapEagerInner<R>> inners;
+
+        Subscription s;
+
+        volatile boolean done;
+
+        volatile boolean cancelled;
+
+        volatile Throwable error;
+        @SuppressWarnings("rawtypes")
+        static final AtomicReferenceFieldUpdater<PublisherConcatMapEagerMain, Throwable> ERROR =
+                AtomicReferenceFieldUpdater.newUpdater(PublisherConcatMapEagerMain.class, Throwable.class, "error");
+
+        volatile long requested;
+        @SuppressWarnings("rawtypes")
+        static final AtomicLongFieldUpdater<PublisherConcatMapEagerMain> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(PublisherConcatMapEagerMain.class, "requested");
+
+        volatile int wip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<PublisherConcatMapEagerMain> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(PublisherConcatMapEagerMain.class, "wip");
+
+        /** The inner subscriber being emitted, accessed in drain only. */
+        PublisherConcatMapEagerInner<R> current;
+
+        public PublisherConcatMapEagerMain(Subscriber<? super R> actual,
+                Function<? super T, ? extends Publisher<? extends R>> mapper,
+                boolean delayError, int maxConcurrency,
+                int prefetch, Supplier<? extends Queue<R>> innerQueueSupplier) {
+            this.actual = actual;
+            this.mapper = mapper;
+            this.delayError = delayError;
+            this.maxConcurrency = maxConcurrency;
+            this.prefetch = prefetch;
+            this.innerQueueSupplier = innerQueueSupplier;
+            this.inners = new SpscLinkedArrayQueue<>(Math.min(maxConcurrency, Px.bufferSize()));
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(this.s, s)) {
+                this.s = s;
+
+                actual.onSubscribe(this);
+
+                if (maxConcurrency == Integer.MAX_VALUE) {
+                    s.request(Long.MAX_VALUE);
+                } else {
+                    s.request(maxConcurrency);
+                }
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                UnsignalledExceptions.onNextDropped(t);
+                return;
+            }
+
+            Publisher<? extends R> p;
+
+            try {
+                p = mapper.apply(t);
+            } catch (Throwable ex) {
+                ExceptionHelper.throwIfFatal(ex);
+                s.cancel();
+                onError(ex);
+                return;
+            }
+
+            if (p == null) {
+                s.cancel();
+                onError(new NullPointerException("The mapper returned a null Publisher"));
+                return;
+            }
+
+            PublisherConcatMapEagerInner<R> inner = new PublisherConcatMapEagerInner<>(this, prefetch);
+
+            inners.offer(inner);
+
+            if (cancelled) {
+                drain();
+                return;
+            }
+
+            p.subscribe(inner);
+
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                UnsignalledExceptions.onErrorDropped(t);
+                return;
+            }
+            if (ExceptionHelper.addThrowable(ERROR, this, t)) {
+                done = true;
+                drain();
+            } else {
+                UnsignalledExceptions.onErrorDropped(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.getAndAddCap(REQUESTED, this, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                s.cancel();
+
+                if (WIP.getAndIncrement(this) == 0) {
+                    cancelAll();
+                }
+            }
+        }
+
+        void cancelAll() {
+            PublisherConcatMapEagerInner<R> inner = current;
+            current = null;
+            if (inner != null) {
+                inner.cancel();
+            }
+
+            while ((inner = inners.poll()) != null) {
+                inner.cancel();
+            }
+        }
+
+        void innerError(PublisherConcatMapEagerInner<R> inner, Throwable e) {
+            if (ExceptionHelper.addThrowable(ERROR, this, e)) {
+                inner.done = true;
+                if (!delayError) {
+                    s.cancel();
+                }
+                drain();
+            } else {
+                UnsignalledExceptions.onErrorDropped(e);
+            }
+        }
+
+        void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+
+            int missed = 1;
+            final Subscriber<? super R> a = actual;
+
+            for (;;) {
+
+                if (cancelled) {
+                    cancelAll();
+                    return;
+                }
+
+                if (!delayError && error != null) {
+                    s.cancel();
+                    cancelAll();
+                    a.onError(ExceptionHelper.terminate(ERROR, this));
+                    return;
+                }
+
+                PublisherConcatMapEagerInner<R> inner = current;
+
+                if (inner == null) {
+                    boolean d = done;
+
+                    inner = inners.poll();
+
+                    if (d && inner == null) {
+                        Throwable ex = ExceptionHelper.terminate(ERROR, this);
+                        if (ex != null) {
+                            a.onError(ex);
+                        } else {
+                            a.onComplete();
+                        }
+                        return;
+                    }
+
+                    current = inner;
+                }
+
+                boolean next = false;
+
+                if (inner != null) {
+                    Queue<R> q = inner.queue;
+                    if (q != null) {
+                        long r = requested;
+                        long e = 0L;
+
+                        while (e != r) {
+                            if (cancelled) {
+                                cancelAll();
+                                return;
+                            }
+
+                            if (!delayError && error != null) {
+                                s.cancel();
+                                cancelAll();
+                                a.onError(ExceptionHelper.terminate(ERROR, this));
+                                return;
+                            }
+
+                            boolean d = inner.done;
+
+                            R v;
+
+                            try {
+                                v = q.poll();
+                            } catch (Throwable ex) {
+                                ExceptionHelper.throwIfFatal(ex);
+                                inner.cancel();
+                                if (!ExceptionHelper.addThrowable(ERROR, this, ex)) {
+                                    UnsignalledExceptions.onErrorDropped(ex);
+                                }
+                                v = null;
+                                d = true;
+                            }
+
+                            boolean empty = v == null;
+
+                            if (d && empty) {
+                                next = true;
+                                break;
+                            }
+
+                            if (empty) {
+                                break;
+                            }
+
+                            a.onNext(v);
+
+                            e++;
+
+                            inner.produced();
+                        }
+
+                        if (e == r && !next) {
+                            if (cancelled) {
+                                cancelAll();
+                                return;
+                            }
+
+                            if (!delayError && error != null) {
+                                s.cancel();
+                                cancelAll();
+                                a.onError(ExceptionHelper.terminate(ERROR, this));
+                                return;
+                            }
+
+                            boolean d = inner.done;
+                            boolean empty;
+
+                            try {
+                                empty = q.isEmpty();
+                            } catch (Throwable ex) {
+                                ExceptionHelper.throwIfFatal(ex);
+                                inner.cancel();
+                                if (!ExceptionHelper.addThrowable(ERROR, this, ex)) {
+                                    UnsignalledExceptions.onErrorDropped(ex);
+                                }
+                                empty = true;
+                                d = true;
+                            }
+
+                            next = d && empty;
+                        }
+
+                        if (e != 0L && r != Long.MAX_VALUE) {
+                            REQUESTED.addAndGet(this, -e);
+                        }
+                    } else
+                    if (inner.done) {
+                        // the inner failed before producing a queue
+                        next = true;
+                    }
+                }
+
+                if (next) {
+                    current = null;
+                    if (maxConcurrency != Integer.MAX_VALUE && !done) {
+                        s.request(1);
+                    }
+                    continue;
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isStarted() {
+            return s != null && !done && !cancelled;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return done && inners.isEmpty() && current == null;
+        }
+
+        @Override
+        public Throwable getError() {
+            return error;
+        }
+
+        @Override
+        public long getCapacity() {
+            return maxConcurrency;
+        }
+
+        @Override
+        public long getPending() {
+            return inners.size();
+        }
+
+        @Override
+        public long requestedFromDownstream() {
+            return requested;
+        }
+
+        @Override
+        public Object upstream() {
+            return s;
+        }
+
+        @Override
+        public Object downstream() {
+            return actual;
+        }
+    }
+
+    static final class PublisherConcatMapEagerInner<R>
+    implements Subscriber<R>, Receiver, Producer, Trackable {
+
+        final PublisherConcatMapEagerMain<?, R> parent;
+
+        final int prefetch;
+
+        final int limit;
+
+        volatile Subscription s;
+        @SuppressWarnings("rawtypes")
+        static final AtomicReferenceFieldUpdater<PublisherConcatMapEagerInner, Subscription> S =
+                AtomicReferenceFieldUpdater.newUpdater(PublisherConcatMapEagerInner.class, Subscription.class, "s");
+
+        volatile Queue<R> queue;
+
+        volatile boolean done;
+
+        /** Represents the optimization mode of this inner subscriber. */
+        int sourceMode;
+
+        /** Accessed in the parent's drain only. */
+        int produced;
+
+        public PublisherConcatMapEagerInner(PublisherConcatMapEagerMain<?, R> parent, int prefetch) {
+            this.parent = parent;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.setOnce(S, this, s)) {
+                if (s instanceof Fuseable.QueueSubscription) {
+                    @SuppressWarnings("unchecked") Fuseable.QueueSubscription<R> f = (Fuseable.QueueSubscription<R>)s;
+                    int m = f.requestFusion(Fuseable.ANY);
+                    if (m == Fuseable.SYNC) {
+                        sourceMode = Fuseable.SYNC;
+                        done = true;
+                        queue = f;
+                        parent.drain();
+                        return;
+                    } else
+                    if (m == Fuseable.ASYNC) {
+                        sourceMode = Fuseable.ASYNC;
+                        queue = f;
+                        s.request(prefetch);
+                        return;
+                    }
+                }
+
+                Queue<R> q;
+
+                try {
+                    q = parent.innerQueueSupplier.get();
+                } catch (Throwable ex) {
+                    ExceptionHelper.throwIfFatal(ex);
+                    s.cancel();
+                    onError(ex);
+                    return;
+                }
+
+                if (q == null) {
+                    s.cancel();
+                    onError(new NullPointerException("The innerQueueSupplier returned a null queue"));
+                    return;
+                }
+
+                queue = q;
+
+                s.request(prefetch);
+            }
+        }
+
+        @Override
+        public void onNext(R t) {
+            if (sourceMode != Fuseable.ASYNC) {
+                if (!queue.offer(t)) {
+                    cancel();
+                    onError(new IllegalStateException("Queue is full?!"));
+                    return;
+                }
+            }
+            parent.drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            parent.innerError(this, t);
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            parent.drain();
+        }
+
+        void produced() {
+            if (sourceMode != Fuseable.SYNC) {
+                int p = produced + 1;
+                if (p == limit) {
+                    produced = 0;
+                    s.request(p);
+                } else {
+                    produced = p;
+                }
+            }
+        }
+
+        void cancel() {
+            SubscriptionHelper.terminate(S, this);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return s == SubscriptionHelper.cancelled();
+        }
+
+        @Override
+        public boolean isStarted() {
+            return s != null && !done && !isCancelled();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            Queue<R> q = queue;
+            return done && (q == null || q.isEmpty());
+        }
+
+        @Override
+        public long getCapacity() {
+            return prefetch;
+        }
+
+        @Override
+        public long getPending() {
+            Queue<R> q = queue;
+            return q != null ? q.size() : -1L;
+        }
+
+        @Override
+        public long limit() {
+            return limit;
+        }
+
+        @Override
+        public Object upstream() {
+            return s;
+        }
+
+        @Override
+        public Object downstream() {
+            return parent;
+        }
+    }
+}
@@ -40,19 +40,44 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
 
     final int prefetch;
     
+    final int minPrefetch;
+    
     final Supplier<? extends Queue<R>> innerQueueSupplier;
     
     public PublisherFlatMap(Publisher<? extends T> source, Function<? super T, ? extends Publisher<? extends R>> mapper,
             boolean delayError, int maxConcurrency, Supplier<? extends Queue<R>> mainQueueSupplier, int prefetch, Supplier<? extends Queue<R>> innerQueueSupplier) {
+        this(source, mapper, delayError, maxConcurrency, mainQueueSupplier, prefetch, prefetch, innerQueueSupplier);
+    }
+
+    /**
+     * Constructs a PublisherFlatMap whose inner subscribers adapt the amount requested
+     * between minPrefetch and prefetch via an {@link AdaptivePrefetch}.
+     * @param source the source Publisher
+     * @param mapper the mapper from Ts to a Publisher of Rs
+     * @param delayError delay the errors?
+     * @param maxConcurrency maximum number of simultaneous subscriptions to the generated sources
+     * @param mainQueueSupplier the supplier for the main queue
+     * @param minPrefetch the smallest amount outstanding from an inner source
+     * @param prefetch the largest amount outstanding from an inner source, the inner queue capacity;
+     * equal to minPrefetch for a fixed prefetch
+     * @param innerQueueSupplier the queue supplier for the inner sources
+     */
+    public PublisherFlatMap(Publisher<? extends T> source, Function<? super T, ? extends Publisher<? extends R>> mapper,
+            boolean delayError, int maxConcurrency, Supplier<? extends Queue<R>> mainQueueSupplier, 
+            int minPrefetch, int prefetch, Supplier<? extends Queue<R>> innerQueueSupplier) {
         super(source);
         if (prefetch <= 0) {
             throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
         }
+        if (minPrefetch <= 0 || minPrefetch > prefetch) {
+            throw new IllegalArgumentException("0 < minPrefetch <= prefetch required but it was " + minPrefetch);
+        }
         if (maxConcurrency <= 0) {
             throw new IllegalArgumentException("maxConcurrency > 0 required but it was " + maxConcurrency);
         }
         this.mapper = Objects.requireNonNull(mapper, "mapper");
         this.delayError = delayError;
+        this.minPrefetch = minPrefetch;
         this.prefetch = prefetch;
         this.maxConcurrency = maxConcurrency;
         this.mainQueueSupplier = Objects.requireNonNull(mainQueueSupplier, "mainQueueSupplier");
@@ -93,7 +118,7 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
             return;
         }
         
-        source.subscribe(new PublisherFlatMapMain<>(s, mapper, delayError, maxConcurrency, mainQueueSupplier, prefetch, innerQueueSupplier));
+        source.subscribe(new PublisherFlatMapMain<>(s, mapper, delayError, maxConcurrency, mainQueueSupplier, minPrefetch, prefetch, innerQueueSupplier));
     }
 
     /**
@@ -190,6 +215,8 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
 
         final int prefetch;
 
+        final int minPrefetch;
+
         final Supplier<? extends Queue<R>> innerQueueSupplier;
         
         final int limit;
@@ -227,14 +254,24 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
         
         int produced;
         
+        /** A fully consumed inner subscriber to be reused, accessed in onNext only. */
+        PublisherFlatMapInner<R> spare;
+        
         public PublisherFlatMapMain(Subscriber<? super R> actual,
                 Function<? super T, ? extends Publisher<? extends R>> mapper, boolean delayError, int maxConcurrency,
                 Supplier<? extends Queue<R>> mainQueueSupplier, int prefetch, Supplier<? extends Queue<R>> innerQueueSupplier) {
+            this(actual, mapper, delayError, maxConcurrency, mainQueueSupplier, prefetch, prefetch, innerQueueSupplier);
+        }
+
+        public PublisherFlatMapMain(Subscriber<? super R> actual,
+                Function<? super T, ? extends Publisher<? extends R>> mapper, boolean delayError, int maxConcurrency,
+                Supplier<? extends Queue<R>> mainQueueSupplier, int minPrefetch, int prefetch, Supplier<? extends Queue<R>> innerQueueSupplier) {
             this.actual = actual;
             this.mapper = mapper;
             this.delayError = delayError;
             this.maxConcurrency = maxConcurrency;
             this.mainQueueSupplier = mainQueueSupplier;
+            this.minPrefetch = minPrefetch;
             this.prefetch = prefetch;
             this.innerQueueSupplier = innerQueueSupplier;
             this.limit = maxConcurrency - (maxConcurrency >> 2);
@@ -341,10 +378,20 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
                 }
                 emitScalar(v);
             } else {
-                PublisherFlatMapInner<R> inner = new PublisherFlatMapInner<>(this, prefetch);
+                PublisherFlatMapInner<R> inner = spare;
+                if (inner != null) {
+                    spare = null;
+                } else {
+                    inner = new PublisherFlatMapInner<>(this, minPrefetch, prefetch);
+                }
                 if (add(inner)) {
                     
                     p.subscribe(inner);
+                    
+                    if (inner.recyclable) {
+                        inner.reset();
+                        spare = inner;
+                    }
                 }
             }
             
@@ -456,6 +503,111 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
             }
         }
         
+        /**
+         * Emits the values of a synchronously fused inner source directly if the drain loop
+         * is not running, leaving only the remainder, if any, to the drain loop. 
+         * @param inner the inner subscriber whose queue is the fused source
+         */
+        void innerSync(PublisherFlatMapInner<R> inner) {
+            if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+                PublisherFlatMapInner<R>[] as = get();
+                int idx = inner.index;
+                if (idx >= as.length || as[idx] != inner) {
+                    // a drain loop running between onSubscribe and here has already consumed and removed it
+                    if (WIP.decrementAndGet(this) != 0) {
+                        drainLoop();
+                    }
+                    return;
+                }
+                
+                final Subscriber<? super R> a = actual;
+                final Queue<R> q = inner.queue;
+                
+                long r = requested;
+                long e = 0L;
+                boolean exhausted = false;
+                boolean failed = false;
+                
+                while (e != r) {
+                    if (cancelled) {
+                        break;
+                    }
+                    
+                    R v;
+                    
+                    try {
+                        v = q.poll();
+                    } catch (Throwable ex) {
+                        ExceptionHelper.throwIfFatal(ex);
+                        inner.cancel();
+                        if (ExceptionHelper.addThrowable(ERROR, this, ex)) {
+                            if (!delayError) {
+                                done = true;
+                            }
+                        } else {
+                            UnsignalledExceptions.onErrorDropped(ex);
+                        }
+                        exhausted = true;
+                        failed = true;
+                        break;
+                    }
+                    
+                    if (v == null) {
+                        exhausted = true;
+                        break;
+                    }
+                    
+                    a.onNext(v);
+                    
+                    e++;
+                }
+                
+                if (e == r && !cancelled) {
+                    try {
+                        exhausted = q.isEmpty();
+                    } catch (Throwable ex) {
+                        ExceptionHelper.throwIfFatal(ex);
+                        inner.cancel();
+                        if (ExceptionHelper.addThrowable(ERROR, this, ex)) {
+                            if (!delayError) {
+                                done = true;
+                            }
+                        } else {
+                            UnsignalledExceptions.onErrorDropped(ex);
+                        }
+                        exhausted = true;
+                        failed = true;
+                    }
+                }
+                
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    REQUESTED.addAndGet(this, -e);
+                }
+                
+                if (exhausted) {
+                    remove(inner.index);
+                    if (maxConcurrency != Integer.MAX_VALUE && !done && !cancelled) {
+                        s.request(1);
+                    }
+                    if (!failed && inner.adaptive == null) {
+                        inner.recyclable = true;
+                    }
+                    if (failed || done) {
+                        // let the drain loop report the error or the completion
+                        drainLoop();
+                        return;
+                    }
+                }
+                
+                if (WIP.decrementAndGet(this) == 0) {
+                    return;
+                }
+                drainLoop();
+            } else {
+                drain();
+            }
+        }
+        
         Queue<R> getOrCreateScalarQueue() {
             Queue<R> q = scalarQueue;
             if (q == null) {
@@ -610,6 +762,10 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
                                     }
                                     
                                     if (empty) {
+                                        AdaptivePrefetch ap = inner.adaptive;
+                                        if (ap != null) {
+                                            ap.idle();
+                                        }
                                         break;
                                     }
                                     
@@ -952,7 +1108,11 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
         
         final int prefetch;
         
-        final int limit;
+        /** The replenishment threshold, adjusted by the adaptive prefetch if present. */
+        int limit;
+        
+        /** Null if the prefetch is fixed. */
+        final AdaptivePrefetch adaptive;
         
         volatile Subscription s;
         @SuppressWarnings("rawtypes")
@@ -982,10 +1142,23 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
 
         int index;
         
+        /** Set once a synchronous source has been fully consumed and the instance can be reused. */
+        volatile boolean recyclable;
+        
         public PublisherFlatMapInner(PublisherFlatMapMain<?, R> parent, int prefetch) {
+            this(parent, prefetch, prefetch);
+        }
+
+        public PublisherFlatMapInner(PublisherFlatMapMain<?, R> parent, int minPrefetch, int prefetch) {
             this.parent = parent;
             this.prefetch = prefetch;
-            this.limit = prefetch - (prefetch >> 2);
+            if (minPrefetch != prefetch) {
+                this.adaptive = new AdaptivePrefetch(minPrefetch, prefetch);
+                this.limit = adaptive.limit();
+            } else {
+                this.adaptive = null;
+                this.limit = prefetch - (prefetch >> 2);
+            }
         }
 
         @Override
@@ -998,7 +1171,7 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
                         sourceMode = SYNC;
                         queue = f;
                         done = true;
-                        parent.drain();
+                        parent.innerSync(this);
                         return;
                     } else 
                     if (m == Fuseable.ASYNC) {
@@ -1007,7 +1180,8 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
                     }
                     // NONE is just fall-through as the queue will be created on demand
                 }
-                s.request(prefetch);
+                AdaptivePrefetch ap = adaptive;
+                s.request(ap != null ? ap.initial() : prefetch);
             }
         }
 
@@ -1041,6 +1215,14 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
                 long p = produced + n;
                 if (p >= limit) {
                     produced = 0L;
+                    AdaptivePrefetch ap = adaptive;
+                    if (ap != null) {
+                        p = ap.replenish(p);
+                        limit = ap.limit();
+                        if (p == 0L) {
+                            return;
+                        }
+                    }
                     s.request(p);
                 } else {
                     produced = p;
@@ -1052,6 +1234,19 @@ public final class PublisherFlatMap<T, R> extends PublisherSource<T, R> {
         public void cancel() {
             SubscriptionHelper.terminate(S, this);
         }
+        
+        /**
+         * Prepares a recyclable instance for subscribing to the next inner source.
+         */
+        void reset() {
+            recyclable = false;
+            S.lazySet(this, null);
+            queue = null;
+            done = false;
+            sourceMode = NORMAL;
+            produced = 0L;
+            ONCE.lazySet(this, 0);
+        }
 
         @Override
         public long getCapacity() {
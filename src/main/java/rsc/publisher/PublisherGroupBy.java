@@ -1,10 +1,15 @@
 package rsc.publisher;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -18,19 +23,33 @@ import rsc.documentation.BackpressureMode;
 import rsc.documentation.BackpressureSupport;
 import rsc.documentation.FusionMode;
 import rsc.documentation.FusionSupport;
+import rsc.flow.Disposable;
 import rsc.flow.Fuseable;
 import rsc.flow.MultiProducer;
 import rsc.flow.Producer;
 import rsc.flow.Receiver;
 
 import rsc.flow.Trackable;
+import rsc.scheduler.TimedScheduler;
 import rsc.subscriber.SubscriptionHelper;
 import rsc.util.BackpressureHelper;
 import rsc.util.ExceptionHelper;
+import rsc.util.MpscLinkedArrayQueue;
 import rsc.util.UnsignalledExceptions;
 
 /**
  * Groups upstream items into their own Publisher sequence based on a key selector.
+ * <p>
+ * By default, a group lives until the upstream terminates or the group's Subscriber
+ * cancels. With high-cardinality keys, the number of live groups can be limited:
+ * <ul>
+ * <li>with {@code maxGroups}, opening a new group completes the least recently used one
+ * once the limit has been reached;</li>
+ * <li>with {@code maxIdle}, a group that hasn't received an item for that long is completed
+ * by a periodic check run on the given TimedScheduler, thus between {@code maxIdle} and
+ * twice {@code maxIdle} after its last item.</li>
+ * </ul>
+ * An item whose key belongs to a completed group opens a new group with the same key.
  *
  * @param <T> the source value type
  * @param <K> the key value type
@@ -50,6 +69,14 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
     final Supplier<? extends Queue<GroupedPublisher<K, V>>> mainQueueSupplier;
 
     final int prefetch;
+    
+    final int maxGroups;
+    
+    final long maxIdle;
+    
+    final TimeUnit unit;
+    
+    final TimedScheduler timer;
 
     public PublisherGroupBy(
             Publisher<? extends T> source, 
@@ -58,15 +85,65 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
             Supplier<? extends Queue<GroupedPublisher<K, V>>> mainQueueSupplier, 
             Supplier<? extends Queue<V>> groupQueueSupplier, 
             int prefetch) {
+        this(source, keySelector, valueSelector, mainQueueSupplier, groupQueueSupplier, prefetch, Integer.MAX_VALUE);
+    }
+
+    public PublisherGroupBy(
+            Publisher<? extends T> source, 
+            Function<? super T, ? extends K> keySelector,
+            Function<? super T, ? extends V> valueSelector,
+            Supplier<? extends Queue<GroupedPublisher<K, V>>> mainQueueSupplier, 
+            Supplier<? extends Queue<V>> groupQueueSupplier, 
+            int prefetch,
+            int maxGroups) {
         super(source);
         if (prefetch <= 0) {
             throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
         }
+        if (maxGroups <= 0) {
+            throw new IllegalArgumentException("maxGroups > 0 required but it was " + maxGroups);
+        }
         this.keySelector = Objects.requireNonNull(keySelector, "keySelector");
         this.valueSelector = Objects.requireNonNull(valueSelector, "valueSelector");
         this.mainQueueSupplier = Objects.requireNonNull(mainQueueSupplier, "mainQueueSupplier");
         this.groupQueueSupplier = Objects.requireNonNull(groupQueueSupplier, "groupQueueSupplier");
         this.prefetch = prefetch;
+        this.maxGroups = maxGroups;
+        this.maxIdle = 0L;
+        this.unit = null;
+        this.timer = null;
+    }
+
+    public PublisherGroupBy(
+            Publisher<? extends T> source, 
+            Function<? super T, ? extends K> keySelector,
+            Function<? super T, ? extends V> valueSelector,
+            Supplier<? extends Queue<GroupedPublisher<K, V>>> mainQueueSupplier, 
+            Supplier<? extends Queue<V>> groupQueueSupplier, 
+            int prefetch,
+            int maxGroups,
+            long maxIdle,
+            TimeUnit unit,
+            TimedScheduler timer) {
+        super(source);
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        if (maxGroups <= 0) {
+            throw new IllegalArgumentException("maxGroups > 0 required but it was " + maxGroups);
+        }
+        if (maxIdle <= 0L) {
+            throw new IllegalArgumentException("maxIdle > 0 required but it was " + maxIdle);
+        }
+        this.keySelector = Objects.requireNonNull(keySelector, "keySelector");
+        this.valueSelector = Objects.requireNonNull(valueSelector, "valueSelector");
+        this.mainQueueSupplier = Objects.requireNonNull(mainQueueSupplier, "mainQueueSupplier");
+        this.groupQueueSupplier = Objects.requireNonNull(groupQueueSupplier, "groupQueueSupplier");
+        this.prefetch = prefetch;
+        this.maxGroups = maxGroups;
+        this.maxIdle = maxIdle;
+        this.unit = Objects.requireNonNull(unit, "unit");
+        this.timer = Objects.requireNonNull(timer, "timer");
     }
     
     @Override
@@ -86,7 +163,8 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
             return;
         }
         
-        source.subscribe(new PublisherGroupByMain<>(s, q, groupQueueSupplier, prefetch, keySelector, valueSelector));
+        source.subscribe(new PublisherGroupByMain<>(s, q, groupQueueSupplier, prefetch, keySelector, valueSelector,
+                maxGroups, maxIdle, unit, timer));
     }
 
     @Override
@@ -111,7 +189,25 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
 
         final int prefetch;
         
-        final ConcurrentMap<K, UnicastGroupedPublisher<K, V>> groupMap; 
+        final Map<K, UnicastGroupedPublisher<K, V>> groupMap; 
+        
+        final int maxGroups;
+        
+        final long maxIdleNanos;
+        
+        /** If not null, groups idle for maxIdle are completed. */
+        final TimedScheduler timer;
+        
+        /** The groups the idle check removed from the groupMap and which are yet to be completed. */
+        final Queue<UnicastGroupedPublisher<K, V>> expired;
+        
+        volatile Disposable idleCheck;
+        
+        /** Serializes the completion of the expired groups with the onNext of the upstream. */
+        volatile int expiredWip;
+        @SuppressWarnings("rawtypes")
+        static final AtomicIntegerFieldUpdater<PublisherGroupByMain> EXPIRED_WIP =
+                AtomicIntegerFieldUpdater.newUpdater(PublisherGroupByMain.class, "expiredWip");
         
         volatile int wip;
         @SuppressWarnings("rawtypes")
@@ -151,13 +247,37 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
                 Function<? super T, ? extends K> keySelector,
                 Function<? super T, ? extends V> valueSelector
                 ) {
+            this(actual, queue, groupQueueSupplier, prefetch, keySelector, valueSelector, Integer.MAX_VALUE, 0L, null, null);
+        }
+        
+        public PublisherGroupByMain(
+                Subscriber<? super GroupedPublisher<K, V>> actual,
+                Queue<GroupedPublisher<K, V>> queue, 
+                Supplier<? extends Queue<V>> groupQueueSupplier, 
+                int prefetch,
+                Function<? super T, ? extends K> keySelector,
+                Function<? super T, ? extends V> valueSelector,
+                int maxGroups,
+                long maxIdle,
+                TimeUnit unit,
+                TimedScheduler timer
+                ) {
             this.actual = actual;
             this.queue = queue;
             this.groupQueueSupplier = groupQueueSupplier;
             this.prefetch = prefetch;
-            this.groupMap = new ConcurrentHashMap<>();
+            if (maxGroups != Integer.MAX_VALUE || timer != null) {
+                // access order lists the least recently used, thus the longest idle, group first
+                this.groupMap = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true));
+            } else {
+                this.groupMap = new ConcurrentHashMap<>();
+            }
             this.keySelector = keySelector;
             this.valueSelector = valueSelector;
+            this.maxGroups = maxGroups;
+            this.maxIdleNanos = timer != null ? unit.toNanos(maxIdle) : 0L;
+            this.timer = timer;
+            this.expired = timer != null ? new MpscLinkedArrayQueue<>(16) : null;
             GROUP_COUNT.lazySet(this, 1);
         }
 
@@ -165,6 +285,10 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
         public void onSubscribe(Subscription s) {
             if (SubscriptionHelper.validate(this.s, s)) {
                 this.s = s;
+                TimedScheduler t = timer;
+                if (t != null) {
+                    idleCheck = t.schedulePeriodically(this::completeIdle, maxIdleNanos, maxIdleNanos, TimeUnit.NANOSECONDS);
+                }
                 actual.onSubscribe(this);
                 s.request(prefetch);
             }
@@ -196,6 +320,20 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
                 return;
             }
             
+            if (timer != null) {
+                // if the idle check is completing groups, they were removed from the groupMap
+                // before it entered and thus dispatch can't reach them
+                boolean owner = EXPIRED_WIP.getAndIncrement(this) == 0;
+                dispatch(key, value);
+                if (owner) {
+                    drainExpired(1);
+                }
+            } else {
+                dispatch(key, value);
+            }
+        }
+        
+        void dispatch(K key, V value) {
             UnicastGroupedPublisher<K, V> g = groupMap.get(key);
             
             if (g == null) {
@@ -211,8 +349,15 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
                         return;
                     }
                     
+                    if (maxGroups != Integer.MAX_VALUE) {
+                        evict();
+                    }
+                    
                     GROUP_COUNT.getAndIncrement(this);
                     g = new UnicastGroupedPublisher<>(key, q, this, prefetch);
+                    if (timer != null) {
+                        g.lastActive = timer.now(TimeUnit.NANOSECONDS);
+                    }
                     g.onNext(value);
                     groupMap.put(key, g);
                     
@@ -220,13 +365,98 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
                     drain();
                 }
             } else {
+                if (timer != null) {
+                    g.lastActive = timer.now(TimeUnit.NANOSECONDS);
+                }
                 g.onNext(value);
             }
         }
         
+        /**
+         * Completes the least recently used groups until there is room for a new one.
+         */
+        void evict() {
+            for (;;) {
+                UnicastGroupedPublisher<K, V> eldest;
+                synchronized (groupMap) {
+                    if (groupMap.size() < maxGroups) {
+                        return;
+                    }
+                    Iterator<UnicastGroupedPublisher<K, V>> it = groupMap.values().iterator();
+                    eldest = it.next();
+                    // removing it first makes sure the idle check won't complete it as well
+                    it.remove();
+                }
+                eldest.onComplete();
+            }
+        }
+        
+        /**
+         * Removes the groups that haven't received an item for maxIdle from the groupMap
+         * and completes them, called periodically by the timer.
+         */
+        void completeIdle() {
+            if (done) {
+                return;
+            }
+            long limit = timer.now(TimeUnit.NANOSECONDS) - maxIdleNanos;
+            
+            synchronized (groupMap) {
+                Iterator<UnicastGroupedPublisher<K, V>> it = groupMap.values().iterator();
+                while (it.hasNext()) {
+                    UnicastGroupedPublisher<K, V> g = it.next();
+                    if (g.lastActive - limit > 0L) {
+                        // the rest was active more recently
+                        break;
+                    }
+                    it.remove();
+                    expired.offer(g);
+                }
+            }
+            
+            if (EXPIRED_WIP.getAndIncrement(this) == 0) {
+                drainExpired(1);
+            }
+        }
+        
+        /**
+         * Completes the expired groups, outside of any lock, until no other party entered
+         * in the meantime.
+         * @param missed the number of times the caller entered
+         */
+        void drainExpired(int missed) {
+            final Queue<UnicastGroupedPublisher<K, V>> q = expired;
+            for (;;) {
+                UnicastGroupedPublisher<K, V> g;
+                
+                while ((g = q.poll()) != null) {
+                    g.onComplete();
+                }
+                
+                missed = EXPIRED_WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+        
+        List<UnicastGroupedPublisher<K, V>> groups() {
+            synchronized (groupMap) {
+                return new ArrayList<>(groupMap.values());
+            }
+        }
+        
+        void disposeIdleCheck() {
+            Disposable d = idleCheck;
+            if (d != null) {
+                d.dispose();
+            }
+        }
+        
         @Override
         public void onError(Throwable t) {
             if (ExceptionHelper.addThrowable(ERROR, this, t)) {
+                disposeIdleCheck();
                 done = true;
                 drain();
             } else {
@@ -236,14 +466,19 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
         
         @Override
         public void onComplete() {
-            for (UnicastGroupedPublisher<K, V> g : groupMap.values()) {
-                g.onComplete();
-            }
-            groupMap.clear();
+            disposeIdleCheck();
+            completeGroups();
             GROUP_COUNT.decrementAndGet(this);
             done = true;
             drain();
         }
+        
+        void completeGroups() {
+            for (UnicastGroupedPublisher<K, V> g : groups()) {
+                g.onComplete();
+            }
+            groupMap.clear();
+        }
 
         @Override
         public long getCapacity() {
@@ -277,7 +512,7 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
 
         @Override
         public Iterator<?> downstreams() {
-            return groupMap.values().iterator();
+            return groups().iterator();
         }
 
         @Override
@@ -303,13 +538,17 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
         void signalAsyncError() {
             Throwable e = ExceptionHelper.terminate(ERROR, this);
             groupCount = 0;
-            for (UnicastGroupedPublisher<K, V> g : groupMap.values()) {
-                g.onError(e);
-            }
+            errorGroups(e);
             actual.onError(e);
             groupMap.clear();
         }
         
+        void errorGroups(Throwable e) {
+            for (UnicastGroupedPublisher<K, V> g : groups()) {
+                g.onError(e);
+            }
+        }
+        
         @Override
         public void request(long n) {
             if (SubscriptionHelper.validate(n)) {
@@ -322,6 +561,7 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
         public void cancel() {
             if (CANCELLED.compareAndSet(this, 0, 1)) {
                 if (GROUP_COUNT.decrementAndGet(this) == 0) {
+                    disposeIdleCheck();
                     s.cancel();
                 } else {
                     if (!enableAsyncFusion) {
@@ -343,12 +583,14 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
             }
         }
         
-        void groupTerminated(K key) {
+        void groupTerminated(K key, UnicastGroupedPublisher<K, V> g) {
             if (groupCount == 0) {
                 return;
             }
-            groupMap.remove(key);
+            // a new group may have been opened with the same key since
+            groupMap.remove(key, g);
             if (GROUP_COUNT.decrementAndGet(this) == 0) {
+                disposeIdleCheck();
                 s.cancel();
             }
         }
@@ -550,6 +792,9 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
 
         int produced;
         
+        /** Written by the upstream, read by the idle check. */
+        volatile long lastActive;
+        
         public UnicastGroupedPublisher(K key, Queue<V> queue, PublisherGroupByMain<?, K, V> parent, int prefetch) {
             this.key = key;
             this.queue = queue;
@@ -560,7 +805,7 @@ public final class PublisherGroupBy<T, K, V> extends PublisherSource<T, GroupedP
         void doTerminate() {
             PublisherGroupByMain<?, K, V> r = parent;
             if (r != null && PARENT.compareAndSet(this, r, null)) {
-                r.groupTerminated(key);
+                r.groupTerminated(key, this);
             }
         }
         
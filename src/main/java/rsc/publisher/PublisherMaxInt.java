@@ -23,12 +23,12 @@ public final class PublisherMaxInt extends PublisherSource<Integer, Integer> {
         }
         
         @Override
-        public void onNext(Integer t) {
+        protected void next(int value) {
             if (!hasValue) {
                 hasValue = true;
-                accumulator = t.intValue();
+                accumulator = value;
             } else {
-                accumulator = Math.max(accumulator, t.intValue());
+                accumulator = Math.max(accumulator, value);
             }
         }
     }
@@ -23,12 +23,12 @@ public final class PublisherMinInt extends PublisherSource<Integer, Integer> {
         }
         
         @Override
-        public void onNext(Integer t) {
+        protected void next(int value) {
             if (!hasValue) {
                 hasValue = true;
-                accumulator = t.intValue();
+                accumulator = value;
             } else {
-                accumulator = Math.min(accumulator, t.intValue());
+                accumulator = Math.min(accumulator, value);
             }
         }
     }
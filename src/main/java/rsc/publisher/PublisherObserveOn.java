@@ -18,6 +18,7 @@ import rsc.flow.*;
 import rsc.scheduler.Scheduler;
 import rsc.scheduler.Scheduler.Worker;
 import rsc.flow.Trackable;
+import rsc.util.AdaptivePrefetch;
 import rsc.util.BackpressureHelper;
 
 import rsc.util.ExceptionHelper;
@@ -40,18 +41,45 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
     
     final int prefetch;
     
+    final int minPrefetch;
+    
+    public PublisherObserveOn(
+            Publisher<? extends T> source, 
+            Scheduler scheduler, 
+            boolean delayError,
+            int prefetch,
+            Supplier<? extends Queue<T>> queueSupplier) {
+        this(source, scheduler, delayError, prefetch, prefetch, queueSupplier);
+    }
+
+    /**
+     * Constructs a PublisherObserveOn which adapts the amount requested from upstream
+     * between minPrefetch and prefetch via an {@link AdaptivePrefetch}.
+     * @param source the source Publisher
+     * @param scheduler the target Scheduler
+     * @param delayError delay the error until all values have been delivered?
+     * @param minPrefetch the smallest amount outstanding from upstream
+     * @param prefetch the largest amount outstanding from upstream, the queue capacity;
+     * equal to minPrefetch for a fixed prefetch
+     * @param queueSupplier the queue supplier
+     */
     public PublisherObserveOn(
             Publisher<? extends T> source, 
             Scheduler scheduler, 
             boolean delayError,
+            int minPrefetch,
             int prefetch,
             Supplier<? extends Queue<T>> queueSupplier) {
         super(source);
         if (prefetch <= 0) {
             throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
         }
+        if (minPrefetch <= 0 || minPrefetch > prefetch) {
+            throw new IllegalArgumentException("0 < minPrefetch <= prefetch required but it was " + minPrefetch);
+        }
         this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
         this.delayError = delayError;
+        this.minPrefetch = minPrefetch;
         this.prefetch = prefetch;
         this.queueSupplier = Objects.requireNonNull(queueSupplier, "queueSupplier");
     }
@@ -85,10 +113,10 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
         
         if (s instanceof Fuseable.ConditionalSubscriber) {
             Fuseable.ConditionalSubscriber<? super T> cs = (Fuseable.ConditionalSubscriber<? super T>) s;
-            source.subscribe(new PublisherObserveOnConditionalSubscriber<>(cs, worker, delayError, prefetch, queueSupplier));
+            source.subscribe(new PublisherObserveOnConditionalSubscriber<>(cs, worker, delayError, minPrefetch, prefetch, queueSupplier));
             return;
         }
-        source.subscribe(new PublisherObserveOnSubscriber<>(s, worker, delayError, prefetch, queueSupplier));
+        source.subscribe(new PublisherObserveOnSubscriber<>(s, worker, delayError, minPrefetch, prefetch, queueSupplier));
     }
 
 
@@ -109,7 +137,11 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
         
         final int prefetch;
         
-        final int limit;
+        /** The replenishment threshold, adjusted by the adaptive prefetch if present. */
+        int limit;
+        
+        /** Null if the prefetch is fixed. */
+        final AdaptivePrefetch adaptive;
         
         final Supplier<? extends Queue<T>> queueSupplier;
         
@@ -143,6 +175,7 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
                 Subscriber<? super T> actual,
                 Worker worker,
                 boolean delayError,
+                int minPrefetch,
                 int prefetch,
                 Supplier<? extends Queue<T>> queueSupplier) {
             this.actual = actual;
@@ -150,10 +183,16 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
             this.delayError = delayError;
             this.prefetch = prefetch;
             this.queueSupplier = queueSupplier;
-            if (prefetch != Integer.MAX_VALUE) {
-                this.limit = prefetch - (prefetch >> 2);
+            if (minPrefetch != prefetch) {
+                this.adaptive = new AdaptivePrefetch(minPrefetch, prefetch);
+                this.limit = adaptive.limit();
             } else {
-                this.limit = Integer.MAX_VALUE;
+                this.adaptive = null;
+                if (prefetch != Integer.MAX_VALUE) {
+                    this.limit = prefetch - (prefetch >> 2);
+                } else {
+                    this.limit = Integer.MAX_VALUE;
+                }
             }
         }
         
@@ -208,6 +247,10 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
         }
         
         void initialRequest() {
+            AdaptivePrefetch ap = adaptive;
+            if (ap != null) {
+                s.request(ap.initial());
+            } else
             if (prefetch == Integer.MAX_VALUE) {
                 s.request(Long.MAX_VALUE);
             } else {
@@ -215,6 +258,19 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
             }
         }
         
+        void replenish(long consumed) {
+            AdaptivePrefetch ap = adaptive;
+            if (ap == null) {
+                s.request(consumed);
+            } else {
+                long n = ap.replenish(consumed);
+                limit = ap.limit();
+                if (n != 0L) {
+                    s.request(n);
+                }
+            }
+        }
+        
         @Override
         public void onNext(T t) {
             if (sourceMode == Fuseable.ASYNC) {
@@ -378,6 +434,9 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
                     }
 
                     if (empty) {
+                        if (adaptive != null) {
+                            adaptive.idle();
+                        }
                         break;
                     }
 
@@ -388,7 +447,7 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
                         if (r != Long.MAX_VALUE) {
                             r = REQUESTED.addAndGet(this, -e);
                         }
-                        s.request(e);
+                        replenish(e);
                         e = 0L;
                     }
                 }
@@ -595,13 +654,18 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
         @Override
         public T poll() {
             T v = queue.poll();
-            if (v != null && sourceMode != SYNC) {
-                long p = produced + 1;
-                if (p == limit) {
-                    produced = 0;
-                    s.request(p);
-                } else {
-                    produced = p;
+            if (sourceMode != SYNC) {
+                if (v != null) {
+                    long p = produced + 1;
+                    if (p == limit) {
+                        produced = 0;
+                        replenish(p);
+                    } else {
+                        produced = p;
+                    }
+                } else
+                if (adaptive != null) {
+                    adaptive.idle();
                 }
             }
             return v;
@@ -634,7 +698,11 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
         
         final int prefetch;
         
-        final int limit;
+        /** The replenishment threshold, adjusted by the adaptive prefetch if present. */
+        int limit;
+
+        /** Null if the prefetch is fixed. */
+        final AdaptivePrefetch adaptive;
 
         final Supplier<? extends Queue<T>> queueSupplier;
         
@@ -670,6 +738,7 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
                 Fuseable.ConditionalSubscriber<? super T> actual,
                 Worker worker,
                 boolean delayError,
+                int minPrefetch,
                 int prefetch,
                 Supplier<? extends Queue<T>> queueSupplier) {
             this.actual = actual;
@@ -677,10 +746,16 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
             this.delayError = delayError;
             this.prefetch = prefetch;
             this.queueSupplier = queueSupplier;
-            if (prefetch != Integer.MAX_VALUE) {
-                this.limit = prefetch - (prefetch >> 2);
+            if (minPrefetch != prefetch) {
+                this.adaptive = new AdaptivePrefetch(minPrefetch, prefetch);
+                this.limit = adaptive.limit();
             } else {
-                this.limit = Integer.MAX_VALUE;
+                this.adaptive = null;
+                if (prefetch != Integer.MAX_VALUE) {
+                    this.limit = prefetch - (prefetch >> 2);
+                } else {
+                    this.limit = Integer.MAX_VALUE;
+                }
             }
         }
         
@@ -736,12 +811,29 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
         }
 
         void initialRequest() {
+            AdaptivePrefetch ap = adaptive;
+            if (ap != null) {
+                s.request(ap.initial());
+            } else
             if (prefetch == Integer.MAX_VALUE) {
                 s.request(Long.MAX_VALUE);
             } else {
                 s.request(prefetch);
             }
         }
+        
+        void replenish(long consumed) {
+            AdaptivePrefetch ap = adaptive;
+            if (ap == null) {
+                s.request(consumed);
+            } else {
+                long n = ap.replenish(consumed);
+                limit = ap.limit();
+                if (n != 0L) {
+                    s.request(n);
+                }
+            }
+        }
 
         @Override
         public void onNext(T t) {
@@ -905,6 +997,9 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
                     }
                     
                     if (empty) {
+                        if (adaptive != null) {
+                            adaptive.idle();
+                        }
                         break;
                     }
 
@@ -915,7 +1010,7 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
                     polled++;
                     
                     if (polled == limit) {
-                        s.request(polled);
+                        replenish(polled);
                         polled = 0L;
                     }
                 }
@@ -1124,13 +1219,18 @@ public final class PublisherObserveOn<T> extends PublisherSource<T, T> implement
         @Override
         public T poll() {
             T v = queue.poll();
-            if (v != null && sourceMode != SYNC) {
-                long p = consumed + 1;
-                if (p == limit) {
-                    consumed = 0;
-                    s.request(p);
-                } else {
-                    consumed = p;
+            if (sourceMode != SYNC) {
+                if (v != null) {
+                    long p = consumed + 1;
+                    if (p == limit) {
+                        consumed = 0;
+                        replenish(p);
+                    } else {
+                        consumed = p;
+                    }
+                } else
+                if (adaptive != null) {
+                    adaptive.idle();
                 }
             }
             return v;
@@ -62,7 +62,7 @@ extends Px<Integer>
     }
 
     static final class RangeSubscription
-            implements Trackable, Producer, SynchronousSubscription<Integer>  {
+            implements Trackable, Producer, SynchronousSubscription<Integer>, IntQueueSubscription {
 
         final Subscriber<? super Integer> actual;
 
@@ -200,6 +200,13 @@ extends Px<Integer>
             return (int)i;
         }
 
+        @Override
+        public int pollInt() {
+            long i = index;
+            index = i + 1;
+            return (int)i;
+        }
+
         @Override
         public boolean isEmpty() {
             return index == end;
@@ -217,7 +224,7 @@ extends Px<Integer>
     }
     
     static final class RangeSubscriptionConditional
-            implements Trackable, Producer, SynchronousSubscription<Integer> {
+            implements Trackable, Producer, SynchronousSubscription<Integer>, IntQueueSubscription {
 
         final ConditionalSubscriber<? super Integer> actual;
 
@@ -357,6 +364,13 @@ extends Px<Integer>
             return (int)i;
         }
 
+        @Override
+        public int pollInt() {
+            long i = index;
+            index = i + 1;
+            return (int)i;
+        }
+
         @Override
         public boolean isEmpty() {
             return index == end;
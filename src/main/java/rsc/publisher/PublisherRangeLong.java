@@ -0,0 +1,215 @@
+package rsc.publisher;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.reactivestreams.Subscriber;
+
+import rsc.documentation.BackpressureMode;
+import rsc.documentation.BackpressureSupport;
+import rsc.documentation.FusionMode;
+import rsc.documentation.FusionSupport;
+import rsc.flow.*;
+import rsc.subscriber.SubscriptionHelper;
+import rsc.util.BackpressureHelper;
+
+/**
+ * Emits a range of long values.
+ * <p>
+ * When fused synchronously, the values can be pulled via
+ * {@link Fuseable.LongQueueSubscription#pollLong()} without boxing.
+ */
+@BackpressureSupport(input = BackpressureMode.NOT_APPLICABLE, output = BackpressureMode.BOUNDED)
+@FusionSupport(input = { FusionMode.NOT_APPLICABLE }, output = { FusionMode.SYNC })
+public final class PublisherRangeLong
+extends Px<Long>
+        implements Fuseable {
+
+    final long start;
+
+    final long end;
+
+    public PublisherRangeLong(long start, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count >= required but it was " + count);
+        }
+        if (count != 0 && start > Long.MAX_VALUE - (count - 1)) {
+            throw new IllegalArgumentException("start + count must be less than Long.MAX_VALUE + 1");
+        }
+
+        this.start = start;
+        // may wrap around to Long.MIN_VALUE, the index comparisons are done via != only
+        this.end = start + count;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Long> s) {
+        if (start == end) {
+            SubscriptionHelper.complete(s);
+            return;
+        }
+        s.onSubscribe(new RangeLongSubscription(s, start, end));
+    }
+
+    static final class RangeLongSubscription
+            implements Trackable, Producer, SynchronousSubscription<Long>, LongQueueSubscription {
+
+        final Subscriber<? super Long> actual;
+
+        final long end;
+
+        volatile boolean cancelled;
+
+        long index;
+
+        volatile long requested;
+        static final AtomicLongFieldUpdater<RangeLongSubscription> REQUESTED =
+          AtomicLongFieldUpdater.newUpdater(RangeLongSubscription.class, "requested");
+
+        public RangeLongSubscription(Subscriber<? super Long> actual, long start, long end) {
+            this.actual = actual;
+            this.index = start;
+            this.end = end;
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                if (BackpressureHelper.getAndAddCap(REQUESTED, this, n) == 0) {
+                    if (n == Long.MAX_VALUE) {
+                        fastPath();
+                    } else {
+                        slowPath(n);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        void fastPath() {
+            final long e = end;
+            final Subscriber<? super Long> a = actual;
+
+            for (long i = index; i != e; i++) {
+                if (cancelled) {
+                    return;
+                }
+
+                a.onNext(i);
+            }
+
+            if (cancelled) {
+                return;
+            }
+
+            a.onComplete();
+        }
+
+        void slowPath(long n) {
+            final Subscriber<? super Long> a = actual;
+
+            long f = end;
+            long e = 0;
+            long i = index;
+
+            for (; ; ) {
+
+                if (cancelled) {
+                    return;
+                }
+
+                while (e != n && i != f) {
+
+                    a.onNext(i);
+
+                    if (cancelled) {
+                        return;
+                    }
+
+                    e++;
+                    i++;
+                }
+
+                if (cancelled) {
+                    return;
+                }
+
+                if (i == f) {
+                    a.onComplete();
+                    return;
+                }
+
+                n = requested;
+                if (n == e) {
+                    index = i;
+                    n = REQUESTED.addAndGet(this, -e);
+                    if (n == 0) {
+                        return;
+                    }
+                    e = 0;
+                }
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isStarted() {
+            return end != index;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return end == index;
+        }
+
+        @Override
+        public Object downstream() {
+            return actual;
+        }
+
+        @Override
+        public long requestedFromDownstream() {
+            return requested;
+        }
+
+        @Override
+        public Long poll() {
+            long i = index;
+            if (i == end) {
+                return null;
+            }
+            index = i + 1;
+            return i;
+        }
+
+        @Override
+        public long pollLong() {
+            long i = index;
+            index = i + 1;
+            return i;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return index == end;
+        }
+
+        @Override
+        public void clear() {
+            index = end;
+        }
+
+        @Override
+        public int size() {
+            long s = end - index;
+            return s < 0L || s > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)s;
+        }
+    }
+}
@@ -24,11 +24,11 @@ public final class PublisherSumInt extends PublisherSource<Integer, Integer> {
         }
         
         @Override
-        public void onNext(Integer t) {
+        protected void next(int value) {
             if (!hasValue) {
                 hasValue = true;
             }
-            accumulator += t.intValue();
+            accumulator += value;
         }
     }
 }
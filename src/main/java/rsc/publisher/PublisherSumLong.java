@@ -23,11 +23,11 @@ public final class PublisherSumLong extends PublisherSource<Long, Long> {
         }
         
         @Override
-        public void onNext(Long t) {
+        protected void next(long value) {
             if (!hasValue) {
                 hasValue = true;
             }
-            accumulator += t.longValue();
+            accumulator += value;
         }
     }
 }
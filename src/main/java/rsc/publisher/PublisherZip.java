@@ -493,7 +493,7 @@ public final class PublisherZip<T, R> extends Px<R> implements MultiReceiver, Tr
         }
     }
     
-    static final class PublisherZipCoordinator<T, R> implements Subscription, MultiReceiver,
+    static class PublisherZipCoordinator<T, R> implements Subscription, MultiReceiver,
                                                                 Trackable {
 
         final Subscriber<? super R> actual;
@@ -0,0 +1,270 @@
+package rsc.publisher;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import org.reactivestreams.*;
+
+import rsc.documentation.BackpressureMode;
+import rsc.documentation.BackpressureSupport;
+import rsc.documentation.FusionMode;
+import rsc.documentation.FusionSupport;
+import rsc.flow.*;
+import rsc.subscriber.SubscriptionHelper;
+import rsc.util.*;
+
+/**
+ * Repeatedly takes up to a given number of items from all source Publishers and
+ * emits them as a batch of rows in a columnar layout.
+ * <p>
+ * The items are drained from each source queue in one go into a columnar buffer that is
+ * reused for the lifetime of the subscription; a batch contains as many complete rows as
+ * were available, at most {@code maxBatch}. The columns start small and grow on demand up
+ * to {@code maxBatch}, thus a large {@code maxBatch} only costs memory if that many items
+ * actually queue up. The emitted {@code Object[][]} is indexed
+ * as {@code batch[sourceIndex][row]} and all its columns have the same length.
+ * <p>
+ * Unlike {@link PublisherZip}, no array is allocated and no function is called per row,
+ * which pays off when zipping several high-rate sources. The downstream request amount
+ * counts batches, not rows.
+ *
+ * @param <T> the common input type
+ */
+@BackpressureSupport(input = BackpressureMode.NOT_APPLICABLE, innerInput = BackpressureMode.BOUNDED, output = BackpressureMode.BOUNDED)
+@FusionSupport(innerInput = { FusionMode.SYNC, FusionMode.ASYNC })
+public final class PublisherZipBatched<T> extends Px<Object[][]> implements MultiReceiver, Trackable {
+
+    final Publisher<? extends T>[] sources;
+
+    final int maxBatch;
+
+    final Supplier<? extends Queue<T>> queueSupplier;
+
+    final int prefetch;
+
+    public PublisherZipBatched(Publisher<? extends T>[] sources, int maxBatch,
+            Supplier<? extends Queue<T>> queueSupplier, int prefetch) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("maxBatch > 0 required but it was " + maxBatch);
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.sources = Objects.requireNonNull(sources, "sources");
+        this.maxBatch = maxBatch;
+        this.queueSupplier = Objects.requireNonNull(queueSupplier, "queueSupplier");
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public long getPrefetch() {
+        return prefetch;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Object[][]> s) {
+        Publisher<? extends T>[] srcs = sources;
+        int n = srcs.length;
+
+        if (n == 0) {
+            SubscriptionHelper.complete(s);
+            return;
+        }
+
+        for (Publisher<? extends T> p : srcs) {
+            if (p == null) {
+                SubscriptionHelper.error(s, new NullPointerException("The sources contained a null Publisher"));
+                return;
+            }
+        }
+
+        PublisherZipBatchedCoordinator<T> coordinator =
+                new PublisherZipBatchedCoordinator<>(s, n, maxBatch, queueSupplier, prefetch);
+
+        s.onSubscribe(coordinator);
+
+        coordinator.subscribe(srcs, n);
+    }
+
+    @Override
+    public Iterator<?> upstreams() {
+        return Arrays.asList(sources).iterator();
+    }
+
+    @Override
+    public long getCapacity() {
+        return prefetch;
+    }
+
+    @Override
+    public long upstreamCount() {
+        return sources.length;
+    }
+
+    static final class PublisherZipBatchedCoordinator<T>
+    extends PublisherZip.PublisherZipCoordinator<T, Object[][]> {
+
+        final int maxBatch;
+
+        /** The columnar buffer, one column per source, accessed in drain only. */
+        final Object[][] columns;
+
+        /** The initial length of each column. */
+        static final int INITIAL_COLUMN = 16;
+
+        /** The number of items in each column, accessed in drain only. */
+        final int[] sizes;
+
+        public PublisherZipBatchedCoordinator(Subscriber<? super Object[][]> actual, int n, int maxBatch,
+                Supplier<? extends Queue<T>> queueSupplier, int prefetch) {
+            super(actual, null, n, queueSupplier, prefetch);
+            this.maxBatch = maxBatch;
+            this.columns = new Object[n][Math.min(maxBatch, INITIAL_COLUMN)];
+            this.sizes = new int[n];
+        }
+
+        void clear() {
+            for (Object[] col : columns) {
+                Arrays.fill(col, null);
+            }
+        }
+
+        @Override
+        void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+
+            final Subscriber<? super Object[][]> a = actual;
+            final PublisherZip.PublisherZipInner<T>[] qs = subscribers;
+            final int n = qs.length;
+            final Object[][] cols = columns;
+            final int[] sz = sizes;
+            final int m = maxBatch;
+
+            int missed = 1;
+
+            for (;;) {
+
+                long r = requested;
+                long e = 0L;
+
+                for (;;) {
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+
+                    if (error != null) {
+                        cancelAll();
+                        clear();
+
+                        Throwable ex = ExceptionHelper.terminate(ERROR, this);
+
+                        a.onError(ex);
+
+                        return;
+                    }
+
+                    int rows = m;
+                    boolean finished = false;
+
+                    for (int j = 0; j < n; j++) {
+                        PublisherZip.PublisherZipInner<T> inner = qs[j];
+                        Object[] col = cols[j];
+                        int c = sz[j];
+
+                        boolean d = inner.done;
+                        Queue<T> q = inner.queue;
+                        boolean empty = q == null;
+
+                        if (q != null) {
+                            int polled = 0;
+
+                            try {
+                                while (c != m) {
+                                    T v = q.poll();
+                                    if (v == null) {
+                                        empty = true;
+                                        break;
+                                    }
+                                    if (c == col.length) {
+                                        col = Arrays.copyOf(col, (int)Math.min(m, 2L * c));
+                                        cols[j] = col;
+                                    }
+                                    col[c++] = v;
+                                    polled++;
+                                }
+                            } catch (Throwable ex) {
+                                ExceptionHelper.throwIfFatal(ex);
+
+                                cancelAll();
+                                clear();
+
+                                ExceptionHelper.addThrowable(ERROR, this, ex);
+                                ex = ExceptionHelper.terminate(ERROR, this);
+
+                                a.onError(ex);
+
+                                return;
+                            }
+
+                            sz[j] = c;
+
+                            if (polled != 0) {
+                                inner.request(polled);
+                            }
+                        }
+
+                        if (d && empty && c == 0) {
+                            finished = true;
+                        }
+
+                        if (c < rows) {
+                            rows = c;
+                        }
+                    }
+
+                    if (finished) {
+                        cancelAll();
+                        clear();
+
+                        a.onComplete();
+                        return;
+                    }
+
+                    if (rows == 0 || e == r) {
+                        break;
+                    }
+
+                    Object[][] batch = new Object[n][];
+
+                    for (int j = 0; j < n; j++) {
+                        Object[] col = cols[j];
+                        int c = sz[j];
+
+                        batch[j] = Arrays.copyOf(col, rows);
+
+                        int rest = c - rows;
+                        System.arraycopy(col, rows, col, 0, rest);
+                        Arrays.fill(col, rest, c, null);
+                        sz[j] = rest;
+                    }
+
+                    a.onNext(batch);
+
+                    e++;
+                }
+
+                if (e != 0L && r != Long.MAX_VALUE) {
+                    REQUESTED.addAndGet(this, -e);
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    }
+}
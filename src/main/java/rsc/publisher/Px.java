@@ -8,7 +8,6 @@ import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -40,8 +39,12 @@ import rsc.subscriber.EmptyAsyncSubscriber;
 import rsc.subscriber.LambdaSubscriber;
 import rsc.subscriber.PeekLastSubscriber;
 import rsc.test.TestSubscriber;
+import rsc.util.MpscArrayQueue;
+import rsc.util.MpscLinkedArrayQueue;
+import rsc.util.RecordCodec;
 import rsc.util.SpscArrayQueue;
 import rsc.util.SpscLinkedArrayQueue;
+import rsc.util.SpscRecordQueue;
 import rsc.util.UnsignalledExceptions;
 
 /**
@@ -112,7 +115,7 @@ public abstract class Px<T> implements Publisher<T> {
     static final Supplier<Queue<Object>> QUEUE_SUPPLIER = new Supplier<Queue<Object>>() {
         @Override
         public Queue<Object> get() {
-            return new ConcurrentLinkedQueue<>();
+            return new MpscLinkedArrayQueue<>(BUFFER_SIZE);
         }
     };
     
@@ -142,6 +145,44 @@ public abstract class Px<T> implements Publisher<T> {
         };
     }
     
+    /**
+     * Returns a supplier of queues that can be safely offered to from multiple threads
+     * and polled from a single thread.
+     * @param <T> the value type
+     * @param capacity the queue capacity, Integer.MAX_VALUE indicates an unbounded queue
+     * @return the queue supplier
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public static <T> Supplier<Queue<T>> defaultMpscQueueSupplier(final int capacity) {
+        if (capacity == Integer.MAX_VALUE) {
+            return (Supplier)QUEUE_SUPPLIER;
+        }
+        return new Supplier<Queue<T>>() {
+            @Override
+            public Queue<T> get() {
+                return new MpscArrayQueue<>(capacity);
+            }
+        };
+    }
+    
+    /**
+     * Returns a supplier of single-producer single-consumer queues that store the values as
+     * fixed-width records in a direct ByteBuffer, off the Java heap.
+     * @param <T> the value type
+     * @param capacity the number of records the queue should hold at least
+     * @param codec the codec to convert between values and records
+     * @return the queue supplier
+     */
+    public static <T> Supplier<Queue<T>> recordQueueSupplier(final int capacity, final RecordCodec<T> codec) {
+        Objects.requireNonNull(codec, "codec");
+        return new Supplier<Queue<T>>() {
+            @Override
+            public Queue<T> get() {
+                return new SpscRecordQueue<>(capacity, codec);
+            }
+        };
+    }
+    
     public static int bufferSize() {
         return BUFFER_SIZE;
     }
@@ -570,6 +611,23 @@ public abstract class Px<T> implements Publisher<T> {
         return onAssembly(new PublisherFlatMap<>(this, mapper, delayError, maxConcurrency, defaultQueueSupplier(maxConcurrency), prefetch, defaultQueueSupplier(prefetch)));
     }
 
+    /**
+     * Maps the values into Publishers and merges them while each inner source adapts the
+     * number of values it requests between minPrefetch and maxPrefetch based on how
+     * quickly its queue is drained.
+     * @param <R> the result value type
+     * @param mapper the function mapping values into Publishers
+     * @param delayError delay the errors until all sources terminated?
+     * @param maxConcurrency the maximum number of active inner sources
+     * @param minPrefetch the smallest number of values outstanding per inner source
+     * @param maxPrefetch the largest number of values outstanding and buffered per inner source
+     * @return the new Px instance
+     * @see rsc.util.AdaptivePrefetch
+     */
+    public final <R> Px<R> flatMap(Function<? super T, ? extends Publisher<? extends R>> mapper, boolean delayError, int maxConcurrency, int minPrefetch, int maxPrefetch) {
+        return onAssembly(new PublisherFlatMap<>(this, mapper, delayError, maxConcurrency, defaultQueueSupplier(maxConcurrency), minPrefetch, maxPrefetch, defaultQueueSupplier(maxPrefetch)));
+    }
+
     @SuppressWarnings("unchecked")
     public final <U, R> Px<R> zipWith(Publisher<? extends U> other, BiFunction<? super T, ? super U, ? extends R> zipper) {
         if (this instanceof PublisherZip) {
@@ -607,6 +665,28 @@ public abstract class Px<T> implements Publisher<T> {
         return onAssembly(new PublisherConcatMap<>(this, mapper, defaultUnboundedQueueSupplier(prefetch), prefetch, errorMode));
     }
 
+    public final <R> Px<R> concatMapEager(Function<? super T, ? extends Publisher<? extends R>> mapper) {
+        return concatMapEager(mapper, false, BUFFER_SIZE, BUFFER_SIZE);
+    }
+
+    public final <R> Px<R> concatMapEager(Function<? super T, ? extends Publisher<? extends R>> mapper, int maxConcurrency, int prefetch) {
+        return concatMapEager(mapper, false, maxConcurrency, prefetch);
+    }
+
+    /**
+     * Maps the values into Publishers, subscribes to up to maxConcurrency of them at once
+     * and emits their values in the order of the source values.
+     * @param <R> the result value type
+     * @param mapper the function mapping values into Publishers
+     * @param delayError delay the errors until all sources terminated?
+     * @param maxConcurrency the maximum number of inner sources subscribed at once
+     * @param prefetch the number of values to prefetch and buffer from each inner source
+     * @return the new Px instance
+     */
+    public final <R> Px<R> concatMapEager(Function<? super T, ? extends Publisher<? extends R>> mapper, boolean delayError, int maxConcurrency, int prefetch) {
+        return onAssembly(new PublisherConcatMapEager<>(this, mapper, delayError, maxConcurrency, prefetch, defaultQueueSupplier(prefetch)));
+    }
+
     public final Px<T> observeOn(ExecutorService executor) {
         return observeOn(executor, true, BUFFER_SIZE);
     }
@@ -641,6 +721,41 @@ public abstract class Px<T> implements Publisher<T> {
         return onAssembly(new PublisherObserveOn<>(this, scheduler, delayError, prefetch, defaultQueueSupplier(prefetch)));
     }
 
+    /**
+     * Moves the signals to the given scheduler while adapting the number of values
+     * requested between minPrefetch and maxPrefetch based on how quickly the queue is drained.
+     * @param scheduler the target scheduler
+     * @param delayError delay the error until all values have been delivered?
+     * @param minPrefetch the smallest number of values outstanding
+     * @param maxPrefetch the largest number of values outstanding and buffered
+     * @return the new Px instance
+     * @see rsc.util.AdaptivePrefetch
+     */
+    public final Px<T> observeOn(Scheduler scheduler, boolean delayError, int minPrefetch, int maxPrefetch) {
+        if (this instanceof Fuseable.ScalarCallable) {
+            @SuppressWarnings("unchecked")
+            T value = ((Fuseable.ScalarCallable<T>)this).call();
+            return onAssembly(new PublisherSubscribeOnValue<>(value, scheduler));
+        }
+        return onAssembly(new PublisherObserveOn<>(this, scheduler, delayError, minPrefetch, maxPrefetch, defaultQueueSupplier(maxPrefetch)));
+    }
+
+    /**
+     * Moves the signals to the given scheduler while buffering up to prefetch values
+     * as off-heap records.
+     * <p>
+     * Fusion with this Px is disabled as a fused upstream would be polled directly,
+     * bypassing the record buffer.
+     * @param scheduler the target scheduler
+     * @param delayError delay the error until all values have been delivered?
+     * @param prefetch the number of values to prefetch and buffer
+     * @param codec the codec to convert between values and records
+     * @return the new Px instance
+     */
+    public final Px<T> observeOn(Scheduler scheduler, boolean delayError, int prefetch, RecordCodec<T> codec) {
+        return onAssembly(new PublisherObserveOn<>(new PublisherHide<>(this), scheduler, delayError, prefetch, recordQueueSupplier(prefetch, codec)));
+    }
+
     public final Px<T> subscribeOn(ExecutorService executor) {
         Scheduler fromExecutor = fromExecutor(executor);
         return subscribeOn(fromExecutor);
@@ -685,6 +800,16 @@ public abstract class Px<T> implements Publisher<T> {
         return onAssembly(new PublisherGroupBy<>(this, keySelector, valueSelector, defaultUnboundedQueueSupplier(BUFFER_SIZE), defaultUnboundedQueueSupplier(BUFFER_SIZE), BUFFER_SIZE));
     }
 
+    public final <K, V> Px<GroupedPublisher<K, V>> groupBy(Function<? super T, ? extends K> keySelector, Function<? super T, ? extends V> valueSelector, int maxGroups) {
+        return onAssembly(new PublisherGroupBy<>(this, keySelector, valueSelector, defaultUnboundedQueueSupplier(BUFFER_SIZE), defaultUnboundedQueueSupplier(BUFFER_SIZE), BUFFER_SIZE, maxGroups));
+    }
+
+    public final <K, V> Px<GroupedPublisher<K, V>> groupBy(Function<? super T, ? extends K> keySelector, Function<? super T, ? extends V> valueSelector, 
+            int maxGroups, long maxIdle, TimeUnit unit, TimedScheduler timer) {
+        return onAssembly(new PublisherGroupBy<>(this, keySelector, valueSelector, defaultUnboundedQueueSupplier(BUFFER_SIZE), defaultUnboundedQueueSupplier(BUFFER_SIZE), BUFFER_SIZE, 
+                maxGroups, maxIdle, unit, timer));
+    }
+
     public final <U> Px<Px<T>> windowBatch(int maxSize, Supplier<? extends Publisher<U>> boundarySupplier) {
         return onAssembly(new PublisherWindowBatch<>(this, boundarySupplier, defaultUnboundedQueueSupplier(BUFFER_SIZE), defaultUnboundedQueueSupplier(BUFFER_SIZE), maxSize));
     }
@@ -946,6 +1071,16 @@ public abstract class Px<T> implements Publisher<T> {
         }
         return onAssembly(new PublisherRange(start, count));
     }
+
+    public static Px<Long> rangeLong(long start, long count) {
+        if (count == 0) {
+            return empty();
+        }
+        if (count == 1) {
+            return just(start);
+        }
+        return onAssembly(new PublisherRangeLong(start, count));
+    }
     
     @SafeVarargs
     public static <T> Px<T> fromArray(T... array) {
@@ -992,6 +1127,16 @@ public abstract class Px<T> implements Publisher<T> {
     public static <T, R> Px<R> zipIterable(Iterable<? extends Publisher<? extends T>> sources, Function<? super Object[], ? extends R> zipper, int prefetch) {
         return onAssembly(new PublisherZip<>(sources, zipper, defaultQueueSupplier(prefetch), prefetch));
     }
+
+    @SafeVarargs
+    public static <T> Px<Object[][]> zipBatched(int maxBatch, Publisher<? extends T>... sources) {
+        return zipBatched(maxBatch, BUFFER_SIZE, sources);
+    }
+
+    @SafeVarargs
+    public static <T> Px<Object[][]> zipBatched(int maxBatch, int prefetch, Publisher<? extends T>... sources) {
+        return onAssembly(new PublisherZipBatched<>(sources, maxBatch, defaultQueueSupplier(prefetch), prefetch));
+    }
     
     @SafeVarargs
     public static <T> Px<T> concatArray(Publisher<? extends T>... sources) {
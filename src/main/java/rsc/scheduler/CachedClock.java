@@ -0,0 +1,73 @@
+package rsc.scheduler;
+
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rsc.flow.Disposable;
+
+/**
+ * A clock that samples another clock periodically on a daemon thread and returns the
+ * last sample, thus reading it is just a volatile read.
+ * <p>
+ * The returned time may lag behind the source clock by up to the resolution.
+ */
+public final class CachedClock implements Clock, Disposable {
+
+    static final AtomicLong COUNTER = new AtomicLong();
+
+    static final ThreadFactory THREAD_FACTORY = r -> {
+        Thread t = new Thread(r, "CachedClock-" + COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    };
+
+    final Clock source;
+
+    final ScheduledExecutorService executor;
+
+    volatile long nanos;
+
+    /**
+     * Constructs a CachedClock that samples the monotonic clock every millisecond.
+     */
+    public CachedClock() {
+        this(Clock.monotonic(), 1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructs a CachedClock that samples the given clock with the given resolution.
+     * @param source the clock to sample
+     * @param resolution the time between samples, positive
+     * @param unit the unit of the resolution
+     */
+    public CachedClock(Clock source, long resolution, TimeUnit unit) {
+        if (resolution <= 0L) {
+            throw new IllegalArgumentException("resolution > 0 required but it was " + resolution);
+        }
+        this.source = Objects.requireNonNull(source, "source");
+        this.nanos = source.now(TimeUnit.NANOSECONDS);
+        this.executor = Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY);
+        this.executor.scheduleAtFixedRate(this::sample, resolution, resolution, unit);
+    }
+
+    void sample() {
+        nanos = source.now(TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public long now(TimeUnit unit) {
+        return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the sampling; the clock keeps returning the last sample.
+     */
+    @Override
+    public void dispose() {
+        executor.shutdownNow();
+    }
+}
@@ -1,32 +1,40 @@
 package rsc.scheduler;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import rsc.flow.Disposable;
 import rsc.util.ExceptionHelper;
-import rsc.util.OpenHashSet;
+import rsc.util.MpmcLinkedTracker;
 import rsc.util.UnsignalledExceptions;
 
 /**
  * Dynamically creates ExecutorService-based Workers and caches the thread pools, reusing
  * them once the Workers have been shut down.
  * <p>
- * The maximum number of created thread pools is unbounded.
+ * The maximum number of created thread pools is unbounded by default. In bounded mode,
+ * once the maximum number of thread pools is reached, new Workers and direct tasks
+ * share the least loaded thread pool and each thread pool queues up to a given number
+ * of tasks, rejecting the ones beyond it.
  * <p>
- * The default time-to-live for unused thread pools is 60 seconds, use the
+ * The most recently released thread pools are reused first so that the rest can
+ * expire; the default time-to-live for unused thread pools is 60 seconds, use the
  * appropriate constructor to set a different value.
  * <p>
  * This scheduler is not restartable (may be later).
@@ -57,20 +65,30 @@ public final class CachedScheduler implements Scheduler {
     
     static final int DEFAULT_TTL_SECONDS = 60;
     
-    final Queue<ExecutorServiceExpiry> cache;
+    final int maxThreads;
+    
+    final int maxTasksQueued;
+    
+    /** The released thread pools, least recently used first. */
+    final ConcurrentLinkedDeque<ExecutorServiceExpiry> cache;
 
-    final Queue<ExecutorService> all;
+    final Queue<CachedExecutor> all;
 
     final ScheduledExecutorService evictor;
     
-    static final ExecutorService SHUTDOWN;
+    static final CachedExecutor SHUTDOWN;
     static {
-        SHUTDOWN = Executors.newSingleThreadExecutor();
-        SHUTDOWN.shutdownNow();
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        exec.shutdownNow();
+        SHUTDOWN = new CachedExecutor(exec);
     }
     
     volatile boolean shutdown;
     
+    volatile int created;
+    static final AtomicIntegerFieldUpdater<CachedScheduler> CREATED =
+            AtomicIntegerFieldUpdater.newUpdater(CachedScheduler.class, "created");
+    
     public CachedScheduler() {
         this(THREAD_FACTORY, DEFAULT_TTL_SECONDS);
     }
@@ -104,9 +122,30 @@ public final class CachedScheduler implements Scheduler {
     }
 
     public CachedScheduler(ThreadFactory factory, int ttlSeconds) {
+        this(factory, ttlSeconds, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a bounded CachedScheduler.
+     * @param factory the factory of the threads
+     * @param ttlSeconds the time-to-live of the unused thread pools
+     * @param maxThreads the maximum number of thread pools, beyond which the existing
+     * ones are shared by the Workers
+     * @param maxTasksQueued the maximum number of tasks each thread pool queues up,
+     * beyond which the tasks are rejected
+     */
+    public CachedScheduler(ThreadFactory factory, int ttlSeconds, int maxThreads, int maxTasksQueued) {
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException("maxThreads > 0 required but it was " + maxThreads);
+        }
+        if (maxTasksQueued <= 0) {
+            throw new IllegalArgumentException("maxTasksQueued > 0 required but it was " + maxTasksQueued);
+        }
         this.ttlSeconds = ttlSeconds;
         this.factory = factory;
-        this.cache = new ConcurrentLinkedQueue<>();
+        this.maxThreads = maxThreads;
+        this.maxTasksQueued = maxTasksQueued;
+        this.cache = new ConcurrentLinkedDeque<>();
         this.all = new ConcurrentLinkedQueue<>();
         this.evictor = Executors.newScheduledThreadPool(1, EVICTOR_FACTORY);
         this.evictor.scheduleAtFixedRate(this::eviction, ttlSeconds, ttlSeconds, TimeUnit.SECONDS);
@@ -128,35 +167,88 @@ public final class CachedScheduler implements Scheduler {
         
         cache.clear();
         
-        ExecutorService exec;
+        CachedExecutor exec;
         
         while ((exec = all.poll()) != null) {
-            exec.shutdownNow();
+            exec.executor.shutdownNow();
         }
     }
     
-    ExecutorService pick() {
+    /**
+     * Returns the number of live thread pools, busy or cached.
+     * @return the number of live thread pools
+     */
+    public int threadCount() {
+        return created;
+    }
+    
+    CachedExecutor pick() {
         if (shutdown) {
             return SHUTDOWN;
         }
-        ExecutorService result;
-        ExecutorServiceExpiry e = cache.poll();
-        if (e != null) {
-            return e.executor;
+        
+        ExecutorServiceExpiry e;
+        while ((e = cache.pollLast()) != null) {
+            if (e.executor.acquire()) {
+                return e.executor;
+            }
+        }
+        
+        for (;;) {
+            int c = created;
+            if (c < maxThreads) {
+                if (CREATED.compareAndSet(this, c, c + 1)) {
+                    break;
+                }
+            } else {
+                CachedExecutor least = leastLoaded();
+                if (least != null && least.acquire()) {
+                    return least;
+                }
+                if (shutdown) {
+                    return SHUTDOWN;
+                }
+            }
         }
         
-        result = Executors.newSingleThreadExecutor(factory);
+        CachedExecutor result = new CachedExecutor(newExecutor());
+        result.users = 1;
         all.offer(result);
         if (shutdown) {
             all.remove(result);
+            result.executor.shutdownNow();
             return SHUTDOWN;
         }
         return result;
     }
+    
+    ExecutorService newExecutor() {
+        if (maxTasksQueued == Integer.MAX_VALUE) {
+            return Executors.newSingleThreadExecutor(factory);
+        }
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, 
+                new LinkedBlockingQueue<>(maxTasksQueued), factory);
+    }
+    
+    CachedExecutor leastLoaded() {
+        CachedExecutor result = null;
+        int min = Integer.MAX_VALUE;
+        for (CachedExecutor e : all) {
+            int u = e.users;
+            if (u >= 0 && u < min) {
+                min = u;
+                result = e;
+            }
+        }
+        return result;
+    }
 
     @Override
     public Disposable schedule(Runnable task) {
-        ExecutorService exec = pick();
+        CachedExecutor exec = pick();
+        
+        // released by whichever comes first: the end of the task or its cancellation
+        AtomicBoolean once = new AtomicBoolean();
         
         Runnable wrapper = () -> {
             try {
@@ -167,33 +259,44 @@ public final class CachedScheduler implements Scheduler {
                     UnsignalledExceptions.onErrorDropped(ex);
                 }
             } finally {
-                release(exec);
+                if (once.compareAndSet(false, true)) {
+                    release(exec);
+                }
             }
         };
         Future<?> f;
         
         try {
-            f = exec.submit(wrapper);
+            f = exec.executor.submit(wrapper);
         } catch (RejectedExecutionException ex) {
             UnsignalledExceptions.onErrorDropped(ex);
+            release(exec);
             return REJECTED;
         }
-        return () -> f.cancel(true);
+        return () -> {
+            f.cancel(true);
+            if (once.compareAndSet(false, true)) {
+                release(exec);
+            }
+        };
     }
 
     @Override
     public Worker createWorker() {
-        ExecutorService exec = pick();
+        CachedExecutor exec = pick();
         return new CachedWorker(exec, this);
     }
     
-    void release(ExecutorService exec) {
+    void release(CachedExecutor exec) {
         if (exec != SHUTDOWN && !shutdown) {
+            if (CachedExecutor.USERS.decrementAndGet(exec) != 0) {
+                return;
+            }
             ExecutorServiceExpiry e = new ExecutorServiceExpiry(exec, System.currentTimeMillis() + ttlSeconds * 1000L);
             cache.offer(e);
             if (shutdown) {
                 if (cache.remove(e)) {
-                    exec.shutdownNow();
+                    exec.executor.shutdownNow();
                 }
             }
         }
@@ -202,40 +305,77 @@ public final class CachedScheduler implements Scheduler {
     void eviction() {
         long now = System.currentTimeMillis();
         
-        List<ExecutorServiceExpiry> list = new ArrayList<>(cache);
-        for (ExecutorServiceExpiry e : list) {
-            if (e.expireMillis < now) {
-                if (cache.remove(e)) {
-                    e.executor.shutdownNow();
+        // the entries were added in expiry order, the least recently used first
+        Iterator<ExecutorServiceExpiry> it = cache.iterator();
+        while (it.hasNext()) {
+            ExecutorServiceExpiry e = it.next();
+            if (e.expireMillis >= now) {
+                break;
+            }
+            if (cache.remove(e) && e.executor.evict()) {
+                all.remove(e.executor);
+                CREATED.decrementAndGet(this);
+                e.executor.executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * An ExecutorService with the number of Workers and direct tasks using it; 
+     * -1 indicates it has been evicted.
+     */
+    static final class CachedExecutor {
+        final ExecutorService executor;
+        
+        volatile int users;
+        static final AtomicIntegerFieldUpdater<CachedExecutor> USERS =
+                AtomicIntegerFieldUpdater.newUpdater(CachedExecutor.class, "users");
+        
+        public CachedExecutor(ExecutorService executor) {
+            this.executor = executor;
+        }
+        
+        boolean acquire() {
+            for (;;) {
+                int u = users;
+                if (u < 0) {
+                    return false;
+                }
+                if (USERS.compareAndSet(this, u, u + 1)) {
+                    return true;
                 }
             }
         }
+        
+        boolean evict() {
+            return USERS.compareAndSet(this, 0, -1);
+        }
     }
 
     static final class ExecutorServiceExpiry {
-        final ExecutorService executor;
+        final CachedExecutor executor;
         final long expireMillis;
 
-        public ExecutorServiceExpiry(ExecutorService executor, long expireMillis) {
+        public ExecutorServiceExpiry(CachedExecutor executor, long expireMillis) {
             this.executor = executor;
             this.expireMillis = expireMillis;
         }
     }
     
-    static final class CachedWorker implements Worker {
+    static final class CachedWorker extends MpmcLinkedTracker<CachedWorker.CachedTask> implements Worker {
+
+        final CachedExecutor cached;
 
         final ExecutorService executor;
 
         final CachedScheduler parent;
 
         volatile boolean shutdown;
-        
-        OpenHashSet<CachedTask> tasks;
-        
-        public CachedWorker(ExecutorService executor, CachedScheduler parent) {
-            this.executor = executor;
+
+        public CachedWorker(CachedExecutor cached, CachedScheduler parent) {
+            this.cached = cached;
+            this.executor = cached.executor;
             this.parent = parent;
-            this.tasks = new OpenHashSet<>();
         }
 
         @Override
@@ -243,26 +383,24 @@ public final class CachedScheduler implements Scheduler {
             if (shutdown) {
                 return REJECTED;
             }
-            
+
             CachedTask ct = new CachedTask(task, this);
-            
-            synchronized (this) {
-                if (shutdown) {
-                    return REJECTED;
-                }
-                tasks.add(ct);
+
+            if (!add(ct)) {
+                return REJECTED;
             }
-            
+
             Future<?> f;
             try {
                 f = executor.submit(ct);
             } catch (RejectedExecutionException ex) {
                 UnsignalledExceptions.onErrorDropped(ex);
+                remove(ct);
                 return REJECTED;
             }
-            
+
             ct.setFuture(f);
-            
+
             return ct;
         }
 
@@ -271,54 +409,31 @@ public final class CachedScheduler implements Scheduler {
             if (shutdown) {
                 return;
             }
-            
-            OpenHashSet<CachedTask> set;
-            synchronized (this) {
-                if (shutdown) {
-                    return;
-                }
-                shutdown = true;
-                set = tasks;
-                tasks = null;
-            }
-            
-            if (!set.isEmpty()) {
-                Object[] keys = set.keys();
-                for (Object o : keys) {
-                    if (o != null) {
-                        ((CachedTask)o).cancelFuture();
-                    }
-                }
+            shutdown = true;
+
+            if (unsubscribe()) {
+                parent.release(cached);
             }
-            
-            parent.release(executor);
         }
-        
-        void remove(CachedTask task) {
-            if (shutdown) {
-                return;
-            }
-            
-            synchronized (this) {
-                if (shutdown) {
-                    return;
-                }
-                tasks.remove(task);
-            }
+
+        @Override
+        protected void unsubscribeEntry(CachedTask entry) {
+            entry.cancelFuture();
         }
-        
-        static final class CachedTask 
-        extends AtomicReference<Future<?>>
-        implements Runnable, Disposable {
-            /** */
-            private static final long serialVersionUID = 6799295393954430738L;
 
+        static final class CachedTask extends MpmcLinkedTracker.Node
+        implements Runnable, Disposable {
             final Runnable run;
-            
+
             final CachedWorker parent;
-            
+
             volatile boolean cancelled;
 
+            volatile Future<?> future;
+            @SuppressWarnings("rawtypes")
+            static final AtomicReferenceFieldUpdater<CachedTask, Future> FUTURE =
+                    AtomicReferenceFieldUpdater.newUpdater(CachedTask.class, Future.class, "future");
+
             static final FutureTask<Object> CANCELLED = new FutureTask<>(() -> { }, null);
 
             static final FutureTask<Object> FINISHED = new FutureTask<>(() -> { }, null);
@@ -327,7 +442,7 @@ public final class CachedScheduler implements Scheduler {
                 this.run = run;
                 this.parent = parent;
             }
-            
+
             @Override
             public void run() {
                 try {
@@ -338,29 +453,29 @@ public final class CachedScheduler implements Scheduler {
                     ExceptionHelper.throwIfFatal(ex);
                     UnsignalledExceptions.onErrorDropped(ex);
                 } finally {
-                    lazySet(FINISHED);
+                    FUTURE.lazySet(this, FINISHED);
                     parent.remove(this);
                 }
             }
-            
+
             @Override
             public void dispose() {
                 cancelled = true;
                 cancelFuture();
             }
-            
+
             void setFuture(Future<?> f) {
-                if (!compareAndSet(null, f)) {
-                    if (get() != FINISHED) {
+                if (!FUTURE.compareAndSet(this, null, f)) {
+                    if (future != FINISHED) {
                         f.cancel(true);
                     }
                 }
             }
-            
+
             void cancelFuture() {
-                Future<?> f = get();
+                Future<?> f = future;
                 if (f != CANCELLED && f != FINISHED) {
-                    f = getAndSet(CANCELLED);
+                    f = FUTURE.getAndSet(this, CANCELLED);
                     if (f != null && f != CANCELLED && f != FINISHED) {
                         f.cancel(true);
                     }
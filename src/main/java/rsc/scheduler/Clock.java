@@ -0,0 +1,38 @@
+package rsc.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source of the "current time" notion of a {@link TimedScheduler}.
+ * <p>
+ * The {@link #wall()} clock is the default and measures the time since the epoch. The
+ * {@link #monotonic()} clock never goes backwards but its values are only meaningful relative
+ * to each other. Hot paths that only need coarse timestamps can use a {@link CachedClock}
+ * and tests can drive time manually via a {@link TestClock}.
+ */
+@FunctionalInterface
+public interface Clock {
+
+    /**
+     * Returns the current time of this clock.
+     * @param unit the target unit of the current time
+     * @return the current time value in the target unit of measure
+     */
+    long now(TimeUnit unit);
+
+    /**
+     * Returns the clock based on {@link System#currentTimeMillis()}.
+     * @return the wall clock
+     */
+    static Clock wall() {
+        return SystemClock.WALL;
+    }
+
+    /**
+     * Returns the clock based on {@link System#nanoTime()}.
+     * @return the monotonic clock
+     */
+    static Clock monotonic() {
+        return SystemClock.MONOTONIC;
+    }
+}
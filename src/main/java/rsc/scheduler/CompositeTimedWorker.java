@@ -111,6 +111,11 @@ public final class CompositeTimedWorker implements TimedWorker {
         return st;
     }
     
+    @Override
+    public long now(TimeUnit unit) {
+        return actual.now(unit);
+    }
+    
     @Override
     public void shutdown() {
         if (terminated) {
@@ -0,0 +1,552 @@
+package rsc.scheduler;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import rsc.flow.Disposable;
+import rsc.util.ExceptionHelper;
+import rsc.util.MpmcLinkedTracker;
+import rsc.util.MpscLinkedArrayQueue;
+import rsc.util.UnsignalledExceptions;
+
+/**
+ * A TimedScheduler that runs a fixed set of event loop threads, each with its own
+ * MPSC task queue and timer heap.
+ * <p>
+ * The loops drain their queue in batches and park only when there is nothing to do
+ * until the next timer; tasks are submitted without the per-task Future allocation of
+ * ExecutorService-based schedulers and submissions from the loop's own thread don't
+ * need to wake it up at all. Workers are pinned to a loop and run their tasks on
+ * its thread in FIFO order.
+ * <p>
+ * Workers created on a loop thread, for example by an operator subscribed from
+ * a task already running on this scheduler, are pinned to that same loop, thus the tasks
+ * they schedule are trampolined on the current thread instead of hopping threads.
+ * <p>
+ * This scheduler is not restartable.
+ */
+public final class EventLoopScheduler implements TimedScheduler {
+
+    static final AtomicLong COUNTER = new AtomicLong();
+
+    static final ThreadFactory THREAD_FACTORY = r -> {
+        Thread t = new Thread(r, "eventloop-" + COUNTER.incrementAndGet());
+        return t;
+    };
+
+    static final ThreadFactory THREAD_FACTORY_DAEMON = r -> {
+        Thread t = new Thread(r, "eventloop-" + COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    };
+
+    /** The number of queued tasks a loop runs before checking its timers. */
+    static final int DRAIN_BATCH = 1024;
+
+    static final ThreadLocal<EventLoop> CURRENT = new ThreadLocal<>();
+
+    final EventLoop[] loops;
+
+    volatile boolean shutdown;
+
+    int roundRobin;
+
+    public EventLoopScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), THREAD_FACTORY);
+    }
+
+    public EventLoopScheduler(int n) {
+        this(n, THREAD_FACTORY);
+    }
+
+    public EventLoopScheduler(int n, boolean daemon) {
+        this(n, daemon ? THREAD_FACTORY_DAEMON : THREAD_FACTORY);
+    }
+
+    public EventLoopScheduler(int n, ThreadFactory factory) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n > 0 required but it was " + n);
+        }
+        EventLoop[] a = new EventLoop[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = new EventLoop(this);
+        }
+        this.loops = a;
+        for (EventLoop loop : a) {
+            loop.start(factory);
+        }
+    }
+
+    public int parallelism() {
+        return loops.length;
+    }
+
+    /**
+     * Returns the loop of the current thread if it belongs to this scheduler, a loop
+     * picked in a round-robin fashion otherwise.
+     * @return the loop
+     */
+    EventLoop pick() {
+        EventLoop current = CURRENT.get();
+        if (current != null && current.parent == this) {
+            return current;
+        }
+        EventLoop[] a = loops;
+        // ignoring the race condition here, its already random who gets which loop
+        int idx = roundRobin;
+        if (idx >= a.length) {
+            idx = 0;
+        }
+        roundRobin = idx + 1;
+        return a[idx];
+    }
+
+    @Override
+    public Disposable schedule(Runnable task) {
+        if (shutdown) {
+            return REJECTED;
+        }
+        LoopTask t = new LoopTask(task, null);
+        pick().execute(t);
+        return t;
+    }
+
+    @Override
+    public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+        if (delay <= 0L) {
+            return schedule(task);
+        }
+        if (shutdown) {
+            return REJECTED;
+        }
+        EventLoop loop = pick();
+        TimedTask t = new TimedTask(task, null, loop, deadline(delay, unit), 0L);
+        loop.schedule(t);
+        return t;
+    }
+
+    @Override
+    public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (shutdown) {
+            return REJECTED;
+        }
+        EventLoop loop = pick();
+        TimedTask t = new TimedTask(task, null, loop,
+                deadline(initialDelay, unit), Math.max(1L, unit.toNanos(period)));
+        loop.schedule(t);
+        return t;
+    }
+
+    /**
+     * Returns the System.nanoTime() based deadline of the given delay, capped so that the
+     * deadlines can be compared by subtraction.
+     * @param delay the delay amount, non-positive values indicate now
+     * @param unit the unit of the delay
+     * @return the deadline
+     */
+    static long deadline(long delay, TimeUnit unit) {
+        long d = Math.min(Math.max(0L, unit.toNanos(delay)), Long.MAX_VALUE >> 1);
+        return System.nanoTime() + d;
+    }
+
+    @Override
+    public void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        for (EventLoop loop : loops) {
+            LockSupport.unpark(loop.thread);
+        }
+    }
+
+    @Override
+    public TimedWorker createWorker() {
+        return new EventLoopWorker(pick());
+    }
+
+    static final class EventLoop implements Runnable {
+        final EventLoopScheduler parent;
+
+        final Queue<LoopTask> queue;
+
+        Thread thread;
+
+        volatile boolean waiting;
+
+        /** The timer heap, accessed by the loop thread only. */
+        TimedTask[] heap;
+
+        int heapSize;
+
+        long sequence;
+
+        public EventLoop(EventLoopScheduler parent) {
+            this.parent = parent;
+            this.queue = new MpscLinkedArrayQueue<>(256);
+            this.heap = new TimedTask[16];
+        }
+
+        void start(ThreadFactory factory) {
+            Thread t = factory.newThread(this);
+            thread = t;
+            t.start();
+        }
+
+        boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        void execute(LoopTask t) {
+            queue.offer(t);
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        void schedule(TimedTask t) {
+            if (inLoop()) {
+                heapAdd(t);
+            } else {
+                execute(t);
+            }
+        }
+
+        void cancel(TimedTask t) {
+            if (inLoop()) {
+                if (t.heapIndex >= 0) {
+                    heapRemove(t);
+                }
+            } else {
+                // the loop removes it from the heap when it polls it again
+                execute(t);
+            }
+        }
+
+        @Override
+        public void run() {
+            CURRENT.set(this);
+            try {
+                for (;;) {
+                    if (parent.shutdown) {
+                        break;
+                    }
+
+                    int n = drain();
+
+                    long now = System.nanoTime();
+                    runTimers(now);
+
+                    if (n == DRAIN_BATCH) {
+                        continue;
+                    }
+
+                    long delay = -1L;
+                    if (heapSize != 0) {
+                        delay = heap[0].deadline - System.nanoTime();
+                        if (delay <= 0L) {
+                            continue;
+                        }
+                    }
+
+                    waiting = true;
+                    if (queue.isEmpty() && !parent.shutdown) {
+                        if (delay < 0L) {
+                            LockSupport.park(this);
+                        } else {
+                            LockSupport.parkNanos(this, delay);
+                        }
+                    }
+                    waiting = false;
+                }
+            } finally {
+                CURRENT.remove();
+                queue.clear();
+                Arrays.fill(heap, 0, heapSize, null);
+                heapSize = 0;
+            }
+        }
+
+        int drain() {
+            final Queue<LoopTask> q = queue;
+            int n = 0;
+            while (n < DRAIN_BATCH) {
+                LoopTask t = q.poll();
+                if (t == null) {
+                    break;
+                }
+                n++;
+                if (t instanceof TimedTask) {
+                    TimedTask tt = (TimedTask)t;
+                    if (tt.state == LoopTask.WAITING) {
+                        if (tt.heapIndex < 0) {
+                            heapAdd(tt);
+                        }
+                    } else
+                    if (tt.heapIndex >= 0) {
+                        heapRemove(tt);
+                    }
+                } else {
+                    t.run();
+                }
+            }
+            return n;
+        }
+
+        void runTimers(long now) {
+            while (heapSize != 0) {
+                TimedTask t = heap[0];
+                if (t.deadline - now > 0L) {
+                    break;
+                }
+                heapRemove(t);
+                if (t.periodNanos == 0L) {
+                    t.run();
+                } else
+                if (t.runPeriodic()) {
+                    t.deadline += t.periodNanos;
+                    heapAdd(t);
+                }
+            }
+        }
+
+        void heapAdd(TimedTask t) {
+            t.sequence = sequence++;
+            int n = heapSize;
+            TimedTask[] h = heap;
+            if (n == h.length) {
+                h = Arrays.copyOf(h, n * 2);
+                heap = h;
+            }
+            heapSize = n + 1;
+            siftUp(h, n, t);
+        }
+
+        void heapRemove(TimedTask t) {
+            int i = t.heapIndex;
+            TimedTask[] h = heap;
+            int n = --heapSize;
+            TimedTask last = h[n];
+            h[n] = null;
+            t.heapIndex = -1;
+            if (last != t) {
+                siftDown(h, n, i, last);
+                if (h[i] == last) {
+                    siftUp(h, i, last);
+                }
+            }
+        }
+
+        static boolean less(TimedTask a, TimedTask b) {
+            long d = a.deadline - b.deadline;
+            return d < 0L || (d == 0L && a.sequence < b.sequence);
+        }
+
+        static void siftUp(TimedTask[] h, int i, TimedTask t) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                TimedTask p = h[parent];
+                if (!less(t, p)) {
+                    break;
+                }
+                h[i] = p;
+                p.heapIndex = i;
+                i = parent;
+            }
+            h[i] = t;
+            t.heapIndex = i;
+        }
+
+        static void siftDown(TimedTask[] h, int n, int i, TimedTask t) {
+            int half = n >>> 1;
+            while (i < half) {
+                int c = 2 * i + 1;
+                TimedTask ct = h[c];
+                int r = c + 1;
+                if (r < n && less(h[r], ct)) {
+                    c = r;
+                    ct = h[r];
+                }
+                if (!less(ct, t)) {
+                    break;
+                }
+                h[i] = ct;
+                ct.heapIndex = i;
+                i = c;
+            }
+            h[i] = t;
+            t.heapIndex = i;
+        }
+    }
+
+    static class LoopTask extends MpmcLinkedTracker.Node implements Runnable, Disposable {
+        final Runnable task;
+
+        final EventLoopWorker worker;
+
+        volatile int state;
+        static final AtomicIntegerFieldUpdater<LoopTask> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(LoopTask.class, "state");
+
+        static final int WAITING = 0;
+        static final int CANCELLED = 1;
+        static final int FINISHED = 2;
+
+        public LoopTask(Runnable task, EventLoopWorker worker) {
+            this.task = task;
+            this.worker = worker;
+        }
+
+        @Override
+        public final void run() {
+            if (STATE.compareAndSet(this, WAITING, FINISHED)) {
+                try {
+                    task.run();
+                } catch (Throwable ex) {
+                    ExceptionHelper.throwIfFatal(ex);
+                    UnsignalledExceptions.onErrorDropped(ex);
+                }
+                if (worker != null) {
+                    worker.remove(this);
+                }
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (state == WAITING && STATE.compareAndSet(this, WAITING, CANCELLED)) {
+                if (worker != null) {
+                    worker.remove(this);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "[state=" + state + ", task=" + task + "]";
+        }
+    }
+
+    static final class TimedTask extends LoopTask {
+        final EventLoop loop;
+
+        final long periodNanos;
+
+        /** Accessed by the loop thread only after submission. */
+        long deadline;
+
+        long sequence;
+
+        int heapIndex = -1;
+
+        public TimedTask(Runnable task, EventLoopWorker worker, EventLoop loop, long deadline, long periodNanos) {
+            super(task, worker);
+            this.loop = loop;
+            this.deadline = deadline;
+            this.periodNanos = periodNanos;
+        }
+
+        /**
+         * Runs the periodic task.
+         * @return true if the task should be rescheduled
+         */
+        boolean runPeriodic() {
+            if (state != WAITING) {
+                return false;
+            }
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                ExceptionHelper.throwIfFatal(ex);
+                UnsignalledExceptions.onErrorDropped(ex);
+                if (STATE.compareAndSet(this, WAITING, FINISHED) && worker != null) {
+                    worker.remove(this);
+                }
+                return false;
+            }
+            return state == WAITING;
+        }
+
+        @Override
+        public void dispose() {
+            if (state == WAITING && STATE.compareAndSet(this, WAITING, CANCELLED)) {
+                loop.cancel(this);
+                if (worker != null) {
+                    worker.remove(this);
+                }
+            }
+        }
+    }
+
+    static final class EventLoopWorker extends MpmcLinkedTracker<LoopTask> implements TimedWorker {
+        final EventLoop loop;
+
+        volatile boolean terminated;
+
+        public EventLoopWorker(EventLoop loop) {
+            this.loop = loop;
+        }
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            if (terminated || loop.parent.shutdown) {
+                return REJECTED;
+            }
+            LoopTask t = new LoopTask(task, this);
+            if (!add(t)) {
+                return REJECTED;
+            }
+            loop.execute(t);
+            return t;
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+            if (delay <= 0L) {
+                return schedule(task);
+            }
+            if (terminated || loop.parent.shutdown) {
+                return REJECTED;
+            }
+            TimedTask t = new TimedTask(task, this, loop, deadline(delay, unit), 0L);
+            if (!add(t)) {
+                return REJECTED;
+            }
+            loop.schedule(t);
+            return t;
+        }
+
+        @Override
+        public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+            if (terminated || loop.parent.shutdown) {
+                return REJECTED;
+            }
+            TimedTask t = new TimedTask(task, this, loop,
+                    deadline(initialDelay, unit), Math.max(1L, unit.toNanos(period)));
+            if (!add(t)) {
+                return REJECTED;
+            }
+            loop.schedule(t);
+            return t;
+        }
+
+        @Override
+        public void shutdown() {
+            if (terminated) {
+                return;
+            }
+            terminated = true;
+            unsubscribe();
+        }
+
+        @Override
+        protected void unsubscribeEntry(LoopTask entry) {
+            entry.dispose();
+        }
+    }
+}
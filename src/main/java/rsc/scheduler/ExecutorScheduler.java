@@ -2,7 +2,6 @@ package rsc.scheduler;
 
 import java.util.Objects;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -10,7 +9,8 @@ import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import rsc.flow.Disposable;
 import rsc.util.ExceptionHelper;
-import rsc.util.OpenHashSet;
+import rsc.util.MpmcLinkedTracker;
+import rsc.util.MpscLinkedArrayQueue;
 import rsc.util.UnsignalledExceptions;
 
 /**
@@ -102,26 +102,27 @@ public final class ExecutorScheduler implements Scheduler {
      * A Runnable that wraps a task and has reference back to its parent worker to
      * remove itself once completed or cancelled
      */
-    static final class ExecutorTrackedRunnable extends AtomicBoolean 
+    static final class ExecutorTrackedRunnable extends MpmcLinkedTracker.Node
     implements Runnable, Disposable {
-        /** */
-        private static final long serialVersionUID = 3503344795919906192L;
-        
         final Runnable task;
         final WorkerDelete parent;
-        
+
         final boolean callRemoveOnFinish;
 
+        volatile int cancelled;
+        static final AtomicIntegerFieldUpdater<ExecutorTrackedRunnable> CANCELLED =
+                AtomicIntegerFieldUpdater.newUpdater(ExecutorTrackedRunnable.class, "cancelled");
+
         public ExecutorTrackedRunnable(Runnable task, WorkerDelete parent, boolean callRemoveOnFinish) {
             this.task = task;
             this.parent = parent;
             this.callRemoveOnFinish = callRemoveOnFinish;
         }
-        
+
         @Override
         public void run() {
             try {
-                if (!get()) {
+                if (cancelled == 0) {
                     task.run();
                 }
             } catch (Throwable e) {
@@ -133,34 +134,32 @@ public final class ExecutorScheduler implements Scheduler {
                 }
             }
         }
-        
+
         @Override
         public void dispose() {
-            if (compareAndSet(false, true)) {
+            if (CANCELLED.compareAndSet(this, 0, 1)) {
                 parent.delete(this);
             }
         }
-        
+
         @Override
         public String toString() {
-            return "ExecutorTrackedRunnable[cancelled=" + get() + ", task=" + task + "]";
+            return "ExecutorTrackedRunnable[cancelled=" + (cancelled != 0) + ", task=" + task + "]";
         }
     }
-    
+
     /**
      * A non-trampolining worker that tracks tasks.
      */
-    static final class ExecutorSchedulerWorker implements Scheduler.Worker, WorkerDelete {
+    static final class ExecutorSchedulerWorker extends MpmcLinkedTracker<ExecutorTrackedRunnable>
+    implements Scheduler.Worker, WorkerDelete {
 
         final Executor executor;
-        
+
         volatile boolean terminated;
-        
-        OpenHashSet<ExecutorTrackedRunnable> tasks;
-        
+
         public ExecutorSchedulerWorker(Executor executor) {
             this.executor = executor;
-            this.tasks = new OpenHashSet<>();
         }
 
         @Override
@@ -169,26 +168,19 @@ public final class ExecutorScheduler implements Scheduler {
             if (terminated) {
                 return REJECTED;
             }
-            
+
             ExecutorTrackedRunnable r = new ExecutorTrackedRunnable(task, this, true);
-            synchronized (this) {
-                if (terminated) {
-                    return REJECTED;
-                }
-                tasks.add(r);
+            if (!add(r)) {
+                return REJECTED;
             }
-            
+
             try {
                 executor.execute(r);
             } catch (RejectedExecutionException ex) {
-                synchronized (this) {
-                    if (!terminated) {
-                        tasks.remove(r);
-                    }
-                }
+                remove(r);
                 return REJECTED;
             }
-            
+
             return r;
         }
 
@@ -197,35 +189,20 @@ public final class ExecutorScheduler implements Scheduler {
             if (terminated) {
                 return;
             }
-            OpenHashSet<ExecutorTrackedRunnable> list;
-            synchronized (this) {
-                if (terminated) {
-                    return;
-                }
-                terminated = true;
-                list = tasks;
-                tasks = null;
-            }
-            
-            if (!list.isEmpty()) {
-                Object[] a = list.keys();
-                for (Object o : a) {
-                    if (o != null) {
-                        ((ExecutorTrackedRunnable)o).dispose();
-                    }
-                }
-            }
+            terminated = true;
+            unsubscribe();
         }
-        
+
+        @Override
+        protected void unsubscribeEntry(ExecutorTrackedRunnable entry) {
+            entry.dispose();
+        }
+
         @Override
         public void delete(ExecutorTrackedRunnable r) {
-            synchronized (this) {
-                if (!terminated) {
-                    tasks.remove(r);
-                }
-            }
+            remove(r);
         }
-        
+
     }
 
     /**
@@ -244,7 +221,7 @@ public final class ExecutorScheduler implements Scheduler {
         
         public ExecutorSchedulerTrampolineWorker(Executor executor) {
             this.executor = executor;
-            this.queue = new ConcurrentLinkedQueue<>();
+            this.queue = new MpscLinkedArrayQueue<>(16);
         }
 
         @Override
@@ -255,20 +232,21 @@ public final class ExecutorScheduler implements Scheduler {
             }
             
             ExecutorTrackedRunnable r = new ExecutorTrackedRunnable(task, this, false);
-            synchronized (this) {
-                if (terminated) {
-                    return REJECTED;
-                }
-                queue.offer(r);
-            }
+            queue.offer(r);
             
             if (WIP.getAndIncrement(this) == 0) {
                 try {
                     executor.execute(this);
                 } catch (RejectedExecutionException ex) {
-                    r.dispose();
+                    // the executor won't run the drain, nothing would ever decrement the wip
+                    terminated = true;
+                    disposeAll();
                     return REJECTED;
                 }
+            } else
+            if (terminated) {
+                r.dispose();
+                return REJECTED;
             }
             
             return r;
@@ -280,22 +258,25 @@ public final class ExecutorScheduler implements Scheduler {
                 return;
             }
             terminated = true;
+            // only the party that wins the wip may poll the queue
+            if (WIP.getAndIncrement(this) == 0) {
+                disposeAll();
+            }
+        }
+        
+        void disposeAll() {
             final Queue<ExecutorTrackedRunnable> q = queue;
             
             ExecutorTrackedRunnable r;
             
-            while ((r = q.poll()) != null && !q.isEmpty()) {
+            while ((r = q.poll()) != null) {
                 r.dispose();
             }
         }
         
         @Override
         public void delete(ExecutorTrackedRunnable r) {
-            synchronized (this) {
-                if (!terminated) {
-                    queue.remove(r);
-                }
-            }
+            // the queue doesn't support removal, disposed tasks are skipped when polled
         }
         
         @Override
@@ -309,6 +290,7 @@ public final class ExecutorScheduler implements Scheduler {
                 
                 while (e != r) {
                     if (terminated) {
+                        disposeAll();
                         return;
                     }
                     ExecutorTrackedRunnable task = q.poll();
@@ -323,6 +305,7 @@ public final class ExecutorScheduler implements Scheduler {
                 }
                 
                 if (e == r && terminated) {
+                    disposeAll();
                     return;
                 }
                 
@@ -15,8 +15,26 @@ public final class ExecutorTimedScheduler implements TimedScheduler {
 
     final ScheduledExecutorService executor;
     
+    final Clock clock;
+    
     public ExecutorTimedScheduler(ScheduledExecutorService executor) {
+        this(executor, Clock.wall());
+    }
+    
+    /**
+     * Constructs an ExecutorTimedScheduler with the given clock as the source of
+     * {@link #now(TimeUnit)}.
+     * @param executor the executor to wrap
+     * @param clock the clock to use
+     */
+    public ExecutorTimedScheduler(ScheduledExecutorService executor, Clock clock) {
         this.executor = Objects.requireNonNull(executor, "executor");
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+    
+    @Override
+    public long now(TimeUnit unit) {
+        return clock.now(unit);
     }
 
     @Override
@@ -39,12 +57,14 @@ public final class ExecutorTimedScheduler implements TimedScheduler {
 
     @Override
     public TimedWorker createWorker() {
-        return new ExecutorTimedWorker(executor);
+        return new ExecutorTimedWorker(executor, clock);
     }
     
     static final class ExecutorTimedWorker implements TimedWorker, Runnable {
         final ScheduledExecutorService executor;
         
+        final Clock clock;
+        
         final SpscLinkedArrayQueue<Runnable> queue;
         
         volatile boolean stopped;
@@ -55,11 +75,17 @@ public final class ExecutorTimedScheduler implements TimedScheduler {
         static final AtomicIntegerFieldUpdater<ExecutorTimedWorker> WIP =
                 AtomicIntegerFieldUpdater.newUpdater(ExecutorTimedWorker.class, "wip");
         
-        public ExecutorTimedWorker(ScheduledExecutorService executor) {
+        public ExecutorTimedWorker(ScheduledExecutorService executor, Clock clock) {
             this.executor = executor;
+            this.clock = clock;
             this.queue = new SpscLinkedArrayQueue<>(16);
             this.tasks = new OpenHashSet<>();
         }
+        
+        @Override
+        public long now(TimeUnit unit) {
+            return clock.now(unit);
+        }
 
         @Override
         public Disposable schedule(Runnable task) {
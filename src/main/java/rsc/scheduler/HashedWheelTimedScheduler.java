@@ -0,0 +1,550 @@
+package rsc.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import rsc.flow.Disposable;
+import rsc.util.ExceptionHelper;
+import rsc.util.MpmcLinkedTracker;
+import rsc.util.MpscLinkedArrayQueue;
+import rsc.util.PowerOf2;
+import rsc.util.UnsignalledExceptions;
+
+/**
+ * A TimedScheduler backed by a hashed timing wheel and a single timer thread that
+ * executes all tasks, shared among all workers.
+ * <p>
+ * Scheduling and cancelling a task is O(1) and allocates only the task's own Disposable:
+ * the new and cancelled tasks are handed over to the timer thread through MPSC queues
+ * and the timer thread links/unlinks them into/from the wheel's buckets on the next tick.
+ * Delays are rounded up to the tick resolution; tasks scheduled further than one full
+ * turn of the wheel ahead stay in their bucket for the required number of rounds.
+ * <p>
+ * Non-delayed tasks don't wait for the next tick but wake up the timer thread.
+ * <p>
+ * This scheduler is not restartable.
+ */
+public final class HashedWheelTimedScheduler implements TimedScheduler {
+
+    static final AtomicLong COUNTER = new AtomicLong();
+
+    static final ThreadFactory THREAD_FACTORY = r -> {
+        Thread t = new Thread(r, "HashedWheelTimedScheduler-" + COUNTER.incrementAndGet());
+        return t;
+    };
+
+    static final ThreadFactory THREAD_FACTORY_DAEMON = r -> {
+        Thread t = new Thread(r, "HashedWheelTimedScheduler-" + COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    };
+
+    static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /** Limits the number of new tasks moved into the wheel per tick. */
+    static final int MAX_TRANSFER = 100_000;
+
+    static final int QUEUE_LINK_SIZE = 256;
+
+    final long tickNanos;
+
+    final Bucket[] wheel;
+
+    final int mask;
+
+    final long startTime;
+
+    final Queue<Timeout> pending;
+
+    final Queue<Timeout> immediate;
+
+    final Queue<Timeout> cancelled;
+
+    final Thread thread;
+
+    final Clock clock;
+
+    volatile boolean terminated;
+
+    volatile boolean waiting;
+
+    /** Accessed by the timer thread only. */
+    long tick;
+
+    /** The periodic tasks that ran in the current tick, accessed by the timer thread only. */
+    final ArrayDeque<Timeout> rescheduled;
+
+    /**
+     * Constructs a HashedWheelTimedScheduler with 1 millisecond tick, 512 buckets and
+     * a non-daemon thread.
+     */
+    public HashedWheelTimedScheduler() {
+        this(DEFAULT_TICK_NANOS, TimeUnit.NANOSECONDS, DEFAULT_WHEEL_SIZE, THREAD_FACTORY);
+    }
+
+    /**
+     * Constructs a HashedWheelTimedScheduler with 1 millisecond tick, 512 buckets and
+     * a possibly daemon thread.
+     * @param daemon create a daemon thread?
+     */
+    public HashedWheelTimedScheduler(boolean daemon) {
+        this(DEFAULT_TICK_NANOS, TimeUnit.NANOSECONDS, DEFAULT_WHEEL_SIZE, daemon ? THREAD_FACTORY_DAEMON : THREAD_FACTORY);
+    }
+
+    /**
+     * Constructs a HashedWheelTimedScheduler with the given tick resolution, 512 buckets and
+     * a non-daemon thread.
+     * @param tick the tick duration
+     * @param unit the unit of the tick duration
+     */
+    public HashedWheelTimedScheduler(long tick, TimeUnit unit) {
+        this(tick, unit, DEFAULT_WHEEL_SIZE, THREAD_FACTORY);
+    }
+
+    /**
+     * Constructs a HashedWheelTimedScheduler.
+     * @param tick the tick duration, positive
+     * @param unit the unit of the tick duration
+     * @param wheelSize the number of buckets, rounded up to the next power of 2
+     * @param threadFactory the factory of the timer thread
+     */
+    public HashedWheelTimedScheduler(long tick, TimeUnit unit, int wheelSize, ThreadFactory threadFactory) {
+        this(tick, unit, wheelSize, threadFactory, Clock.wall());
+    }
+
+    /**
+     * Constructs a HashedWheelTimedScheduler with the given clock as the source of
+     * {@link #now(TimeUnit)}; the wheel itself always runs on {@link System#nanoTime()}.
+     * @param tick the tick duration, positive
+     * @param unit the unit of the tick duration
+     * @param wheelSize the number of buckets, rounded up to the next power of 2
+     * @param threadFactory the factory of the timer thread
+     * @param clock the clock to use
+     */
+    public HashedWheelTimedScheduler(long tick, TimeUnit unit, int wheelSize, ThreadFactory threadFactory, Clock clock) {
+        long t = unit.toNanos(tick);
+        if (t <= 0L) {
+            throw new IllegalArgumentException("tick > 0 required but it was " + t + " ns");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("wheelSize > 0 required but it was " + wheelSize);
+        }
+        int n = PowerOf2.roundUp(wheelSize);
+        Bucket[] w = new Bucket[n];
+        for (int i = 0; i < n; i++) {
+            w[i] = new Bucket();
+        }
+        this.tickNanos = t;
+        this.wheel = w;
+        this.mask = n - 1;
+        this.pending = new MpscLinkedArrayQueue<>(QUEUE_LINK_SIZE);
+        this.immediate = new MpscLinkedArrayQueue<>(QUEUE_LINK_SIZE);
+        this.cancelled = new MpscLinkedArrayQueue<>(QUEUE_LINK_SIZE);
+        this.rescheduled = new ArrayDeque<>();
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.startTime = System.nanoTime();
+        this.thread = threadFactory.newThread(this::loop);
+        this.thread.start();
+    }
+
+    @Override
+    public Disposable schedule(Runnable task) {
+        return schedule(task, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+        if (terminated) {
+            return REJECTED;
+        }
+        Timeout t = new Timeout(task, this, null, deadline(delay, unit), 0L);
+        offer(t, delay <= 0L);
+        return t;
+    }
+
+    @Override
+    public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (terminated) {
+            return REJECTED;
+        }
+        Timeout t = new Timeout(task, this, null, deadline(initialDelay, unit), Math.max(1L, unit.toNanos(period)));
+        offer(t, false);
+        return t;
+    }
+
+    @Override
+    public long now(TimeUnit unit) {
+        return clock.now(unit);
+    }
+
+    @Override
+    public void shutdown() {
+        if (terminated) {
+            return;
+        }
+        terminated = true;
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public TimedWorker createWorker() {
+        return new WheelWorker(this);
+    }
+
+    long deadline(long delay, TimeUnit unit) {
+        long d = System.nanoTime() - startTime;
+        if (delay <= 0L) {
+            return d;
+        }
+        long r = d + unit.toNanos(delay);
+        return r < 0L ? Long.MAX_VALUE : r;
+    }
+
+    void offer(Timeout t, boolean now) {
+        if (now) {
+            immediate.offer(t);
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        } else {
+            pending.offer(t);
+        }
+    }
+
+    void loop() {
+        try {
+            while (!terminated) {
+                if (!waitForNextTick()) {
+                    break;
+                }
+                processCancelled();
+                transfer();
+                expire(wheel[(int)tick & mask]);
+                tick++;
+                reschedule();
+            }
+        } finally {
+            rescheduled.clear();
+            pending.clear();
+            immediate.clear();
+            cancelled.clear();
+            for (Bucket b : wheel) {
+                b.clear();
+            }
+        }
+    }
+
+    /**
+     * Runs the non-delayed tasks until the deadline of the next tick is reached.
+     * @return false if the scheduler has been shut down in the meantime
+     */
+    boolean waitForNextTick() {
+        long deadline = startTime + tickNanos * (tick + 1);
+        for (;;) {
+            runImmediate(deadline);
+
+            if (terminated) {
+                return false;
+            }
+
+            long sleep = deadline - System.nanoTime();
+            if (sleep <= 0L) {
+                return true;
+            }
+
+            waiting = true;
+            if (immediate.isEmpty() && !terminated) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            waiting = false;
+        }
+    }
+
+    void runImmediate(long deadline) {
+        final Queue<Timeout> q = immediate;
+        int n = 0;
+        Timeout t;
+        while ((t = q.poll()) != null) {
+            t.runOnce();
+            if (++n == 256) {
+                n = 0;
+                if (terminated || deadline - System.nanoTime() <= 0L) {
+                    break;
+                }
+            }
+        }
+    }
+
+    void processCancelled() {
+        final Queue<Timeout> q = cancelled;
+        Timeout t;
+        while ((t = q.poll()) != null) {
+            Bucket b = t.bucket;
+            if (b != null) {
+                b.remove(t);
+            }
+        }
+    }
+
+    void transfer() {
+        final Queue<Timeout> q = pending;
+        for (int i = 0; i < MAX_TRANSFER; i++) {
+            Timeout t = q.poll();
+            if (t == null) {
+                break;
+            }
+            if (t.state == Timeout.WAITING) {
+                place(t, tick);
+            }
+        }
+    }
+
+    /**
+     * Links the periodic tasks that ran in the previous tick back into the wheel.
+     * <p>
+     * This can't happen while their bucket is being scanned: a period of a multiple of
+     * the wheel span maps to the same bucket, whose scan would either miss or rerun them.
+     */
+    void reschedule() {
+        final ArrayDeque<Timeout> q = rescheduled;
+        Timeout t;
+        while ((t = q.poll()) != null) {
+            if (t.state == Timeout.WAITING) {
+                place(t, tick);
+            }
+        }
+    }
+
+    /**
+     * Links the task into the bucket of its deadline but not earlier than the given tick.
+     * @param t the task
+     * @param minTick the earliest tick the task may run at
+     */
+    void place(Timeout t, long minTick) {
+        long ticks = Math.max(t.deadline / tickNanos, minTick);
+        t.remainingRounds = (ticks - tick) / wheel.length;
+        wheel[(int)ticks & mask].add(t);
+    }
+
+    void expire(Bucket b) {
+        Timeout t = b.head;
+        while (t != null) {
+            Timeout next = t.bucketNext;
+            if (t.state != Timeout.WAITING) {
+                b.remove(t);
+            } else
+            if (t.remainingRounds <= 0L) {
+                b.remove(t);
+                if (t.periodNanos != 0L) {
+                    t.runPeriodic();
+                } else {
+                    t.runOnce();
+                }
+            } else {
+                t.remainingRounds--;
+            }
+            t = next;
+        }
+    }
+
+    static final class Bucket {
+        Timeout head;
+
+        Timeout tail;
+
+        void add(Timeout t) {
+            t.bucket = this;
+            Timeout p = tail;
+            if (p == null) {
+                head = t;
+            } else {
+                p.bucketNext = t;
+                t.bucketPrev = p;
+            }
+            tail = t;
+        }
+
+        void remove(Timeout t) {
+            Timeout p = t.bucketPrev;
+            Timeout n = t.bucketNext;
+            if (p == null) {
+                head = n;
+            } else {
+                p.bucketNext = n;
+            }
+            if (n == null) {
+                tail = p;
+            } else {
+                n.bucketPrev = p;
+            }
+            t.bucketPrev = null;
+            t.bucketNext = null;
+            t.bucket = null;
+        }
+
+        void clear() {
+            Timeout t = head;
+            while (t != null) {
+                Timeout n = t.bucketNext;
+                t.bucketPrev = null;
+                t.bucketNext = null;
+                t.bucket = null;
+                t = n;
+            }
+            head = null;
+            tail = null;
+        }
+    }
+
+    static final class Timeout extends MpmcLinkedTracker.Node implements Disposable {
+        final Runnable task;
+
+        final HashedWheelTimedScheduler parent;
+
+        final WheelWorker worker;
+
+        final long periodNanos;
+
+        /** Relative to the parent's start time; accessed by the timer thread only after submission. */
+        long deadline;
+
+        long remainingRounds;
+
+        Bucket bucket;
+
+        Timeout bucketPrev;
+
+        Timeout bucketNext;
+
+        volatile int state;
+        static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        static final int WAITING = 0;
+        static final int CANCELLED = 1;
+        static final int FINISHED = 2;
+
+        public Timeout(Runnable task, HashedWheelTimedScheduler parent, WheelWorker worker,
+                long deadline, long periodNanos) {
+            this.task = task;
+            this.parent = parent;
+            this.worker = worker;
+            this.deadline = deadline;
+            this.periodNanos = periodNanos;
+        }
+
+        void runOnce() {
+            if (STATE.compareAndSet(this, WAITING, FINISHED)) {
+                try {
+                    task.run();
+                } catch (Throwable ex) {
+                    ExceptionHelper.throwIfFatal(ex);
+                    UnsignalledExceptions.onErrorDropped(ex);
+                }
+                if (worker != null) {
+                    worker.remove(this);
+                }
+            }
+        }
+
+        void runPeriodic() {
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                ExceptionHelper.throwIfFatal(ex);
+                UnsignalledExceptions.onErrorDropped(ex);
+                if (STATE.compareAndSet(this, WAITING, FINISHED) && worker != null) {
+                    worker.remove(this);
+                }
+                return;
+            }
+            if (state == WAITING) {
+                deadline += periodNanos;
+                parent.rescheduled.offer(this);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (state == WAITING && STATE.compareAndSet(this, WAITING, CANCELLED)) {
+                parent.cancelled.offer(this);
+                if (worker != null) {
+                    worker.remove(this);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Timeout[state=" + state + ", task=" + task + "]";
+        }
+    }
+
+    static final class WheelWorker extends MpmcLinkedTracker<Timeout> implements TimedWorker {
+        final HashedWheelTimedScheduler parent;
+
+        volatile boolean terminated;
+
+        public WheelWorker(HashedWheelTimedScheduler parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            return schedule(task, 0L, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+            if (terminated || parent.terminated) {
+                return REJECTED;
+            }
+            Timeout t = new Timeout(task, parent, this, parent.deadline(delay, unit), 0L);
+            if (!add(t)) {
+                return REJECTED;
+            }
+            parent.offer(t, delay <= 0L);
+            return t;
+        }
+
+        @Override
+        public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+            if (terminated || parent.terminated) {
+                return REJECTED;
+            }
+            Timeout t = new Timeout(task, parent, this, parent.deadline(initialDelay, unit), Math.max(1L, unit.toNanos(period)));
+            if (!add(t)) {
+                return REJECTED;
+            }
+            parent.offer(t, false);
+            return t;
+        }
+
+        @Override
+        public long now(TimeUnit unit) {
+            return parent.clock.now(unit);
+        }
+
+        @Override
+        public void shutdown() {
+            if (terminated) {
+                return;
+            }
+            terminated = true;
+            unsubscribe();
+        }
+
+        @Override
+        protected void unsubscribeEntry(Timeout entry) {
+            entry.dispose();
+        }
+    }
+}
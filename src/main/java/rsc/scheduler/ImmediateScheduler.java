@@ -6,6 +6,9 @@ import rsc.util.*;
 /**
  * Executes tasks on the caller's thread immediately.
  * <p>
+ * Tasks scheduling other tasks recursively grow the stack, use the
+ * {@link TrampolineScheduler} to have them queued instead.
+ * <p>
  * Use the ImmediateScheduler.instance() to get a shared, stateless instance of this scheduler.
  */
 public final class ImmediateScheduler implements Scheduler {
@@ -0,0 +1,189 @@
+package rsc.scheduler;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rsc.flow.Disposable;
+
+/**
+ * Wraps a Scheduler and reports the lifecycle of its tasks to a {@link SchedulerListener},
+ * such as the {@link SchedulerMetrics}.
+ * <p>
+ * While no listener is attached, tasks and Workers are handed to the wrapped Scheduler
+ * as they are; Workers created in the meantime aren't instrumented after a listener is
+ * attached.
+ */
+public final class InstrumentedScheduler implements Scheduler {
+
+    final Scheduler actual;
+
+    volatile SchedulerListener listener;
+
+    public InstrumentedScheduler(Scheduler actual) {
+        this(actual, null);
+    }
+
+    /**
+     * Constructs an InstrumentedScheduler.
+     * @param actual the scheduler to wrap
+     * @param listener the listener to attach, null allowed
+     */
+    public InstrumentedScheduler(Scheduler actual, SchedulerListener listener) {
+        this.actual = Objects.requireNonNull(actual, "actual");
+        this.listener = listener;
+    }
+
+    /**
+     * Attaches a listener, replacing the current one, or detaches it if null.
+     * @param listener the new listener, null allowed
+     */
+    public void setListener(SchedulerListener listener) {
+        this.listener = listener;
+    }
+
+    public SchedulerListener getListener() {
+        return listener;
+    }
+
+    @Override
+    public Disposable schedule(Runnable task) {
+        SchedulerListener l = listener;
+        if (l == null) {
+            return actual.schedule(task);
+        }
+        return schedule(actual, task, l);
+    }
+
+    static Disposable schedule(Scheduler actual, Runnable task, SchedulerListener l) {
+        Objects.requireNonNull(task, "task");
+        InstrumentedTask t = new InstrumentedTask(task, l);
+        l.onSubmit();
+        Disposable d = actual.schedule(t);
+        return t.setUpstream(d);
+    }
+
+    static Disposable schedule(Worker actual, Runnable task, SchedulerListener l) {
+        Objects.requireNonNull(task, "task");
+        InstrumentedTask t = new InstrumentedTask(task, l);
+        l.onSubmit();
+        Disposable d = actual.schedule(t);
+        return t.setUpstream(d);
+    }
+
+    @Override
+    public Worker createWorker() {
+        SchedulerListener l = listener;
+        Worker w = actual.createWorker();
+        if (l == null) {
+            return w;
+        }
+        return new InstrumentedWorker(w, l.onWorkerCreated());
+    }
+
+    @Override
+    public void start() {
+        actual.start();
+    }
+
+    @Override
+    public void shutdown() {
+        actual.shutdown();
+    }
+
+    static final class InstrumentedWorker implements Worker {
+        final Worker actual;
+
+        final SchedulerListener listener;
+
+        volatile boolean shutdown;
+
+        public InstrumentedWorker(Worker actual, SchedulerListener listener) {
+            this.actual = actual;
+            this.listener = listener;
+        }
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            return InstrumentedScheduler.schedule(actual, task, listener);
+        }
+
+        @Override
+        public void shutdown() {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            actual.shutdown();
+            listener.onWorkerShutdown();
+        }
+    }
+
+    /**
+     * Tracks the state of a task: WAITING, RUNNING, then FINISHED, or CANCELLED
+     * and REJECTED before it started.
+     */
+    static final class InstrumentedTask extends AtomicInteger implements Runnable, Disposable {
+        /** */
+        private static final long serialVersionUID = -3186426385476476358L;
+
+        static final int WAITING = 0;
+        static final int RUNNING = 1;
+        static final int FINISHED = 2;
+        static final int CANCELLED = 3;
+        static final int REJECTED = 4;
+
+        final Runnable task;
+
+        final SchedulerListener listener;
+
+        final long submitNanos;
+
+        volatile Disposable upstream;
+
+        public InstrumentedTask(Runnable task, SchedulerListener listener) {
+            this.task = task;
+            this.listener = listener;
+            this.submitNanos = System.nanoTime();
+        }
+
+        Disposable setUpstream(Disposable d) {
+            if (d == Scheduler.REJECTED) {
+                if (compareAndSet(WAITING, REJECTED)) {
+                    listener.onRejected();
+                }
+                return d;
+            }
+            upstream = d;
+            if (get() == CANCELLED) {
+                d.dispose();
+            }
+            return this;
+        }
+
+        @Override
+        public void run() {
+            if (!compareAndSet(WAITING, RUNNING)) {
+                return;
+            }
+            long start = System.nanoTime();
+            listener.onStart(start - submitNanos);
+            try {
+                task.run();
+            } finally {
+                lazySet(FINISHED);
+                listener.onFinish(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (compareAndSet(WAITING, CANCELLED)) {
+                listener.onCancelled();
+            }
+            Disposable d = upstream;
+            if (d != null) {
+                d.dispose();
+            }
+        }
+    }
+}
@@ -9,6 +9,11 @@ import rsc.util.*;
 /**
  * Scheduler that hosts a fixed pool of single-threaded ExecutorService-based workers
  * and is suited for parallel work.
+ * <p>
+ * In work-stealing mode, the threads are hosted by a single ForkJoinPool instead, which
+ * gives each thread its own deque and lets idle threads steal from the busy ones. The Workers
+ * are not pinned to a thread: they queue their tasks and run them one at a time, in FIFO order,
+ * on whichever thread picks them up, thus a slow task only delays the tasks of its own Worker.
  */
 public final class ParallelScheduler implements Scheduler {
 
@@ -29,6 +34,8 @@ public final class ParallelScheduler implements Scheduler {
     
     final ThreadFactory factory;
 
+    final boolean workStealing;
+
     volatile ExecutorService[] executors;
     static final AtomicReferenceFieldUpdater<ParallelScheduler, ExecutorService[]> EXECUTORS =
             AtomicReferenceFieldUpdater.newUpdater(ParallelScheduler.class, ExecutorService[].class, "executors");
@@ -46,12 +53,14 @@ public final class ParallelScheduler implements Scheduler {
     public ParallelScheduler() {
         this.n = Runtime.getRuntime().availableProcessors();
         this.factory = THREAD_FACTORY;
+        this.workStealing = false;
         init(n);
     }
 
     public ParallelScheduler(int n) {
         this.n = n;
         this.factory = THREAD_FACTORY;
+        this.workStealing = false;
         init(n);
     }
 
@@ -69,36 +78,81 @@ public final class ParallelScheduler implements Scheduler {
             t.setDaemon(daemon);
             return t;
         };
+        this.workStealing = false;
         init(n);
     }
 
     public ParallelScheduler(ThreadFactory factory) {
         this.n = Runtime.getRuntime().availableProcessors();
         this.factory = factory;
+        this.workStealing = false;
         init(n);
     }
     
     public ParallelScheduler(int n, ThreadFactory factory) {
+        this(n, factory, false);
+    }
+
+    /**
+     * Constructs a ParallelScheduler with the given number of threads, optionally in
+     * work-stealing mode.
+     * @param n the number of threads
+     * @param factory the factory whose threads' name, daemon status and priority are used
+     * as template in work-stealing mode
+     * @param workStealing if true, the threads share the Workers via work-stealing instead of
+     * each Worker being pinned to one thread
+     */
+    public ParallelScheduler(int n, ThreadFactory factory, boolean workStealing) {
         if (n <= 0) {
             throw new IllegalArgumentException("n > 0 required but it was " + n);
         }
         this.n = n;
         this.factory = factory;
+        this.workStealing = workStealing;
         init(n);
     }
     
     private void init(int n) {
+        EXECUTORS.lazySet(this, create(n));
+    }
+    
+    ExecutorService[] create(int n) {
+        if (workStealing) {
+            ForkJoinPool pool = new ForkJoinPool(n, forkJoinFactory(factory), null, true);
+            return new ExecutorService[] { pool };
+        }
         ExecutorService[] a = new ExecutorService[n];
         for (int i = 0; i < n; i++) {
             a[i] = Executors.newSingleThreadExecutor(factory);
         }
-        EXECUTORS.lazySet(this, a);
+        return a;
+    }
+    
+    /**
+     * Adapts a ThreadFactory to ForkJoinPool by copying the properties of the threads
+     * it creates onto ForkJoinWorkerThreads.
+     * @param factory the ThreadFactory
+     * @return the ForkJoinWorkerThreadFactory
+     */
+    static ForkJoinPool.ForkJoinWorkerThreadFactory forkJoinFactory(ThreadFactory factory) {
+        return pool -> {
+            Thread template = factory.newThread(() -> { });
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName(template.getName());
+            t.setDaemon(template.isDaemon());
+            t.setPriority(template.getPriority());
+            return t;
+        };
     }
     
     public int parallelism() {
         return n;
     }
     
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+    
     public boolean isStarted() {
         return executors != SHUTDOWN;
     }
@@ -118,10 +172,7 @@ public final class ParallelScheduler implements Scheduler {
             }
 
             if (b == null) {
-                b = new ExecutorService[n];
-                for (int i = 0; i < n; i++) {
-                    b[i] = Executors.newSingleThreadExecutor(factory);
-                }
+                b = create(n);
             }
             
             if (EXECUTORS.compareAndSet(this, a, b)) {
@@ -148,7 +199,7 @@ public final class ParallelScheduler implements Scheduler {
         if (a != SHUTDOWN) {
             // ignoring the race condition here, its already random who gets which executor
             int idx = roundRobin;
-            if (idx == n) {
+            if (idx >= a.length) {
                 idx = 0;
                 roundRobin = 0;
             } else {
@@ -168,6 +219,9 @@ public final class ParallelScheduler implements Scheduler {
 
     @Override
     public Worker createWorker() {
+        if (workStealing) {
+            return new ExecutorScheduler.ExecutorSchedulerTrampolineWorker(pick());
+        }
         return new ParallelWorker(pick());
     }
     
@@ -0,0 +1,347 @@
+package rsc.scheduler;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import rsc.flow.Disposable;
+import rsc.scheduler.ExecutorScheduler.ExecutorPlainRunnable;
+import rsc.util.*;
+
+/**
+ * Scheduler with a fixed pool of threads shared by multiple lanes of tasks, such as
+ * latency-critical and bulk ones, each lane having its own queue.
+ * <p>
+ * The threads take from the lanes in a weighted round-robin fashion: with weights
+ * {@code 4, 1}, lane 0 gets 4 out of every 5 turns while both lanes have tasks. Lanes
+ * without tasks give their turns to the others.
+ * <p>
+ * Use {@link #lane(int)} to get a Scheduler view of a lane which can be passed to operators
+ * such as {@code observeOn} and {@code runOn}. The Workers run their tasks in FIFO order,
+ * one at a time, and yield their thread after a batch of tasks so that the other lanes
+ * get their turns.
+ */
+public final class PriorityScheduler implements Scheduler {
+
+    static final AtomicLong COUNTER = new AtomicLong();
+
+    static final ThreadFactory THREAD_FACTORY = r -> {
+        Thread t = new Thread(r, "priority-" + COUNTER.incrementAndGet());
+        return t;
+    };
+
+    static final ThreadFactory THREAD_FACTORY_DAEMON = r -> {
+        Thread t = new Thread(r, "priority-" + COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    };
+
+    /** The number of tasks a Worker runs before giving its thread back to the lanes. */
+    static final int BATCH = 64;
+
+    final Queue<Runnable>[] lanes;
+
+    /** The lane index of each turn of a round. */
+    final int[] turns;
+
+    final Thread[] threads;
+
+    final Semaphore available;
+
+    final AtomicLong turn;
+
+    final Lane[] views;
+
+    volatile boolean shutdown;
+
+    /**
+     * Constructs a PriorityScheduler with non-daemon threads.
+     * @param parallelism the number of threads
+     * @param weights the weight of each lane, in lane order
+     */
+    public PriorityScheduler(int parallelism, int... weights) {
+        this(parallelism, THREAD_FACTORY, weights);
+    }
+
+    /**
+     * Constructs a PriorityScheduler.
+     * @param parallelism the number of threads
+     * @param factory the factory of the threads
+     * @param weights the weight of each lane, in lane order
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public PriorityScheduler(int parallelism, ThreadFactory factory, int... weights) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism > 0 required but it was " + parallelism);
+        }
+        Objects.requireNonNull(factory, "factory");
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("At least one lane required");
+        }
+        for (int w : weights) {
+            if (w <= 0) {
+                throw new IllegalArgumentException("weights > 0 required but it was " + w);
+            }
+        }
+        this.turns = turns(weights);
+        this.lanes = new Queue[weights.length];
+        this.views = new Lane[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            lanes[i] = new ConcurrentLinkedQueue<>();
+            views[i] = new Lane(this, i);
+        }
+        this.available = new Semaphore(0);
+        this.turn = new AtomicLong();
+        this.threads = new Thread[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            Thread t = factory.newThread(this::loop);
+            threads[i] = t;
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+    }
+
+    /**
+     * Spreads the turns of each lane evenly over a round (smooth weighted round-robin).
+     * @param weights the lane weights
+     * @return the lane of each turn
+     */
+    static int[] turns(int[] weights) {
+        int total = 0;
+        for (int w : weights) {
+            total += w;
+        }
+        int[] result = new int[total];
+        int[] current = new int[weights.length];
+        for (int i = 0; i < total; i++) {
+            int best = 0;
+            for (int j = 0; j < weights.length; j++) {
+                current[j] += weights[j];
+                if (current[j] > current[best]) {
+                    best = j;
+                }
+            }
+            current[best] -= total;
+            result[i] = best;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of lanes.
+     * @return the number of lanes
+     */
+    public int lanes() {
+        return lanes.length;
+    }
+
+    /**
+     * Returns a Scheduler view whose tasks and Workers use the given lane; shutting
+     * the view down does nothing.
+     * @param index the lane index
+     * @return the Scheduler of the lane
+     */
+    public Scheduler lane(int index) {
+        return views[index];
+    }
+
+    /**
+     * Runs the task on the last, lowest weighted, lane.
+     */
+    @Override
+    public Disposable schedule(Runnable task) {
+        return schedule(lanes.length - 1, task);
+    }
+
+    /**
+     * Creates a Worker on the last, lowest weighted, lane.
+     */
+    @Override
+    public Worker createWorker() {
+        return createWorker(lanes.length - 1);
+    }
+
+    public Disposable schedule(int lane, Runnable task) {
+        Objects.requireNonNull(task, "task");
+        if (shutdown) {
+            return REJECTED;
+        }
+        ExecutorPlainRunnable r = new ExecutorPlainRunnable(task);
+        submit(lane, r);
+        return r;
+    }
+
+    public Worker createWorker(int lane) {
+        if (lane < 0 || lane >= lanes.length) {
+            throw new IndexOutOfBoundsException("lane: " + lane + ", lanes: " + lanes.length);
+        }
+        LaneWorker w = new LaneWorker(this, lane);
+        if (shutdown) {
+            w.shutdown();
+        }
+        return w;
+    }
+
+    void submit(int lane, Runnable r) {
+        lanes[lane].offer(r);
+        available.release();
+    }
+
+    Runnable poll() {
+        final Queue<Runnable>[] qs = lanes;
+        final int[] ts = turns;
+        int first = ts[(int)(turn.getAndIncrement() % ts.length)];
+
+        Runnable r = qs[first].poll();
+        if (r != null) {
+            return r;
+        }
+        // the scheduled lane is empty, give the turn to the lanes in order
+        for (int i = 0; i < qs.length; i++) {
+            if (i != first) {
+                r = qs[i].poll();
+                if (r != null) {
+                    return r;
+                }
+            }
+        }
+        return null;
+    }
+
+    void loop() {
+        while (!shutdown) {
+            try {
+                available.acquire();
+            } catch (InterruptedException ex) {
+                continue;
+            }
+            Runnable r;
+            // each permit belongs to one task but it may sit in another lane than the turn's
+            while ((r = poll()) == null) {
+                if (shutdown) {
+                    return;
+                }
+            }
+            try {
+                r.run();
+            } catch (Throwable ex) {
+                ExceptionHelper.throwIfFatal(ex);
+                UnsignalledExceptions.onErrorDropped(ex);
+            }
+            // clear any interrupt meant for the previous task
+            Thread.interrupted();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        for (Thread t : threads) {
+            t.interrupt();
+        }
+        for (Queue<Runnable> q : lanes) {
+            q.clear();
+        }
+    }
+
+    static final class Lane implements Scheduler {
+        final PriorityScheduler parent;
+
+        final int index;
+
+        public Lane(PriorityScheduler parent, int index) {
+            this.parent = parent;
+            this.index = index;
+        }
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            return parent.schedule(index, task);
+        }
+
+        @Override
+        public Worker createWorker() {
+            return parent.createWorker(index);
+        }
+    }
+
+    static final class LaneWorker implements Worker, Runnable {
+        final PriorityScheduler parent;
+
+        final int lane;
+
+        final Queue<ExecutorPlainRunnable> queue;
+
+        volatile boolean terminated;
+
+        volatile int wip;
+        static final AtomicIntegerFieldUpdater<LaneWorker> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(LaneWorker.class, "wip");
+
+        public LaneWorker(PriorityScheduler parent, int lane) {
+            this.parent = parent;
+            this.lane = lane;
+            this.queue = new MpscLinkedArrayQueue<>(16);
+        }
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            Objects.requireNonNull(task, "task");
+            if (terminated || parent.shutdown) {
+                return REJECTED;
+            }
+            ExecutorPlainRunnable r = new ExecutorPlainRunnable(task);
+            queue.offer(r);
+            if (WIP.getAndIncrement(this) == 0) {
+                parent.submit(lane, this);
+            }
+            return r;
+        }
+
+        @Override
+        public void shutdown() {
+            if (terminated) {
+                return;
+            }
+            terminated = true;
+            // only the party that wins the wip may poll the queue
+            if (WIP.getAndIncrement(this) == 0) {
+                queue.clear();
+            }
+        }
+
+        @Override
+        public void run() {
+            final Queue<ExecutorPlainRunnable> q = queue;
+            int missed = 1;
+            int e = 0;
+            for (;;) {
+                for (;;) {
+                    if (terminated) {
+                        q.clear();
+                        return;
+                    }
+                    ExecutorPlainRunnable r = q.poll();
+                    if (r == null) {
+                        break;
+                    }
+                    r.run();
+                    if (++e == BATCH) {
+                        // yield to the other lanes, the wip is kept
+                        parent.submit(lane, this);
+                        return;
+                    }
+                }
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package rsc.scheduler;
+
+/**
+ * Receives the lifecycle events of the tasks of an {@link InstrumentedScheduler}.
+ * <p>
+ * The methods are called from the submitting and the executing threads concurrently
+ * and should be fast and non-blocking. All of them do nothing by default.
+ */
+public interface SchedulerListener {
+
+    /**
+     * Called when a Worker is created.
+     * @return the listener for the events of the new Worker's tasks, this by default
+     */
+    default SchedulerListener onWorkerCreated() {
+        return this;
+    }
+
+    /**
+     * Called on the listener returned by {@link #onWorkerCreated()} when the Worker
+     * is shut down.
+     */
+    default void onWorkerShutdown() {
+
+    }
+
+    /**
+     * Called before a task is handed to the underlying scheduler.
+     */
+    default void onSubmit() {
+
+    }
+
+    /**
+     * Called when the underlying scheduler rejected a task after {@link #onSubmit()}.
+     */
+    default void onRejected() {
+
+    }
+
+    /**
+     * Called when a task is cancelled before it could start.
+     */
+    default void onCancelled() {
+
+    }
+
+    /**
+     * Called when a task starts executing.
+     * @param waitNanos the time since the task was submitted
+     */
+    default void onStart(long waitNanos) {
+
+    }
+
+    /**
+     * Called when a task finished executing, normally or with an exception.
+     * @param executionNanos the execution time of the task
+     */
+    default void onFinish(long executionNanos) {
+
+    }
+}
@@ -0,0 +1,330 @@
+package rsc.scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.*;
+
+import rsc.flow.Disposable;
+import rsc.util.LongHistogram;
+
+/**
+ * A {@link SchedulerListener} which counts the tasks and records their wait and
+ * execution times, for the whole scheduler and for each live Worker.
+ * <p>
+ * The numbers can be read via {@link #snapshot()}, {@link #workerSnapshots()} or,
+ * once {@link #registerMBean(String) registered}, through JMX.
+ */
+public final class SchedulerMetrics implements SchedulerListener, SchedulerMetricsMXBean {
+
+    final Recorder total;
+
+    final Set<WorkerMetrics> workers;
+
+    public SchedulerMetrics() {
+        this.total = new Recorder();
+        this.workers = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public SchedulerListener onWorkerCreated() {
+        WorkerMetrics w = new WorkerMetrics(this);
+        workers.add(w);
+        return w;
+    }
+
+    @Override
+    public void onSubmit() {
+        total.onSubmit();
+    }
+
+    @Override
+    public void onRejected() {
+        total.onRejected();
+    }
+
+    @Override
+    public void onCancelled() {
+        total.onCancelled();
+    }
+
+    @Override
+    public void onStart(long waitNanos) {
+        total.onStart(waitNanos);
+    }
+
+    @Override
+    public void onFinish(long executionNanos) {
+        total.onFinish(executionNanos);
+    }
+
+    /**
+     * Returns the numbers of all the tasks of the scheduler, including those of the Workers.
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        return total.snapshot();
+    }
+
+    /**
+     * Returns the numbers of the tasks of each live Worker.
+     * @return the list of snapshots, one per Worker
+     */
+    public List<Snapshot> workerSnapshots() {
+        List<Snapshot> list = new ArrayList<>();
+        for (WorkerMetrics w : workers) {
+            list.add(w.recorder.snapshot());
+        }
+        return list;
+    }
+
+    /**
+     * Registers this as an MXBean with the platform MBeanServer under the name
+     * {@code rsc.scheduler:type=SchedulerMetrics,name=<name>}.
+     * @param name the name of the scheduler
+     * @return the Disposable to unregister the MXBean
+     * @throws IllegalStateException if the registration failed
+     */
+    public Disposable registerMBean(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName on;
+        try {
+            on = new ObjectName("rsc.scheduler:type=SchedulerMetrics,name=" + ObjectName.quote(name));
+            server.registerMBean(this, on);
+        } catch (JMException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return () -> {
+            try {
+                server.unregisterMBean(on);
+            } catch (InstanceNotFoundException ex) {
+                // already unregistered
+            } catch (MBeanRegistrationException ex) {
+                throw new IllegalStateException(ex);
+            }
+        };
+    }
+
+    @Override
+    public long getSubmitted() {
+        return total.submitted.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return total.rejected.sum();
+    }
+
+    @Override
+    public long getCancelled() {
+        return total.cancelled.sum();
+    }
+
+    @Override
+    public long getCompleted() {
+        return total.completed.sum();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return total.queueDepth.sum();
+    }
+
+    @Override
+    public int getWorkers() {
+        return workers.size();
+    }
+
+    @Override
+    public double getWaitTimeMean() {
+        return total.waitTime.snapshot().mean();
+    }
+
+    @Override
+    public long getWaitTimeP99() {
+        return total.waitTime.snapshot().percentile(99);
+    }
+
+    @Override
+    public long getWaitTimeMax() {
+        return total.waitTime.snapshot().max();
+    }
+
+    @Override
+    public double getExecutionTimeMean() {
+        return total.executionTime.snapshot().mean();
+    }
+
+    @Override
+    public long getExecutionTimeP99() {
+        return total.executionTime.snapshot().percentile(99);
+    }
+
+    @Override
+    public long getExecutionTimeMax() {
+        return total.executionTime.snapshot().max();
+    }
+
+    static final class Recorder {
+        final LongAdder submitted = new LongAdder();
+
+        final LongAdder rejected = new LongAdder();
+
+        final LongAdder cancelled = new LongAdder();
+
+        final LongAdder completed = new LongAdder();
+
+        final LongAdder queueDepth = new LongAdder();
+
+        final LongHistogram waitTime = new LongHistogram();
+
+        final LongHistogram executionTime = new LongHistogram();
+
+        void onSubmit() {
+            submitted.increment();
+            queueDepth.increment();
+        }
+
+        void onRejected() {
+            rejected.increment();
+            queueDepth.decrement();
+        }
+
+        void onCancelled() {
+            cancelled.increment();
+            queueDepth.decrement();
+        }
+
+        void onStart(long waitNanos) {
+            queueDepth.decrement();
+            waitTime.record(waitNanos);
+        }
+
+        void onFinish(long executionNanos) {
+            completed.increment();
+            executionTime.record(executionNanos);
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(submitted.sum(), rejected.sum(), cancelled.sum(), completed.sum(),
+                    queueDepth.sum(), waitTime.snapshot(), executionTime.snapshot());
+        }
+    }
+
+    static final class WorkerMetrics implements SchedulerListener {
+        final SchedulerMetrics parent;
+
+        final Recorder recorder;
+
+        public WorkerMetrics(SchedulerMetrics parent) {
+            this.parent = parent;
+            this.recorder = new Recorder();
+        }
+
+        @Override
+        public void onWorkerShutdown() {
+            parent.workers.remove(this);
+        }
+
+        @Override
+        public void onSubmit() {
+            recorder.onSubmit();
+            parent.total.onSubmit();
+        }
+
+        @Override
+        public void onRejected() {
+            recorder.onRejected();
+            parent.total.onRejected();
+        }
+
+        @Override
+        public void onCancelled() {
+            recorder.onCancelled();
+            parent.total.onCancelled();
+        }
+
+        @Override
+        public void onStart(long waitNanos) {
+            recorder.onStart(waitNanos);
+            parent.total.onStart(waitNanos);
+        }
+
+        @Override
+        public void onFinish(long executionNanos) {
+            recorder.onFinish(executionNanos);
+            parent.total.onFinish(executionNanos);
+        }
+    }
+
+    /**
+     * The task numbers at some point in time; concurrent events may be partially included.
+     */
+    public static final class Snapshot {
+        final long submitted;
+
+        final long rejected;
+
+        final long cancelled;
+
+        final long completed;
+
+        final long queueDepth;
+
+        final LongHistogram.Snapshot waitTime;
+
+        final LongHistogram.Snapshot executionTime;
+
+        Snapshot(long submitted, long rejected, long cancelled, long completed, long queueDepth,
+                LongHistogram.Snapshot waitTime, LongHistogram.Snapshot executionTime) {
+            this.submitted = submitted;
+            this.rejected = rejected;
+            this.cancelled = cancelled;
+            this.completed = completed;
+            this.queueDepth = queueDepth;
+            this.waitTime = waitTime;
+            this.executionTime = executionTime;
+        }
+
+        /** @return the number of submitted tasks, including the rejected ones */
+        public long submitted() {
+            return submitted;
+        }
+
+        public long rejected() {
+            return rejected;
+        }
+
+        public long cancelled() {
+            return cancelled;
+        }
+
+        public long completed() {
+            return completed;
+        }
+
+        /** @return the number of tasks submitted but not yet started */
+        public long queueDepth() {
+            return queueDepth;
+        }
+
+        /** @return the histogram of the times from submit to start, in nanoseconds */
+        public LongHistogram.Snapshot waitTime() {
+            return waitTime;
+        }
+
+        /** @return the histogram of the execution times, in nanoseconds */
+        public LongHistogram.Snapshot executionTime() {
+            return executionTime;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot[submitted=" + submitted + ", rejected=" + rejected + ", cancelled=" + cancelled
+                    + ", completed=" + completed + ", queueDepth=" + queueDepth
+                    + ", waitTime=" + waitTime + ", executionTime=" + executionTime + "]";
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package rsc.scheduler;
+
+/**
+ * The JMX view of the {@link SchedulerMetrics} of a scheduler; times are in nanoseconds.
+ */
+public interface SchedulerMetricsMXBean {
+
+    long getSubmitted();
+
+    long getRejected();
+
+    long getCancelled();
+
+    long getCompleted();
+
+    long getQueueDepth();
+
+    int getWorkers();
+
+    double getWaitTimeMean();
+
+    long getWaitTimeP99();
+
+    long getWaitTimeMax();
+
+    double getExecutionTimeMean();
+
+    long getExecutionTimeP99();
+
+    long getExecutionTimeMax();
+}
@@ -4,11 +4,15 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 
 import rsc.flow.Disposable;
+import rsc.scheduler.ExecutorScheduler.ExecutorSchedulerTrampolineWorker;
 import rsc.util.*;
 
 /**
  * Scheduler that works with a single-threaded ExecutorService and is suited for
  * same-thread work (like an event dispatch thread).
+ * <p>
+ * The Workers queue their tasks and submit a single drain task to the executor per burst
+ * of tasks instead of one Future per task.
  */
 public final class SingleScheduler implements Scheduler {
 
@@ -114,186 +118,6 @@ public final class SingleScheduler implements Scheduler {
 
     @Override
     public Worker createWorker() {
-        return new SingleWorker(executor);
-    }
-    
-    static final class SingleWorker implements Worker {
-        final ExecutorService exec;
-        
-        OpenHashSet<SingleWorkerTask> tasks;
-        
-        volatile boolean shutdown;
-        
-        public SingleWorker(ExecutorService exec) {
-            this.exec = exec;
-            this.tasks = new OpenHashSet<>();
-        }
-
-        @Override
-        public Disposable schedule(Runnable task) {
-            if (shutdown) {
-                return REJECTED;
-            }
-            
-            SingleWorkerTask pw = new SingleWorkerTask(task, this);
-            
-            synchronized (this) {
-                if (shutdown) {
-                    return REJECTED;
-                }
-                tasks.add(pw);
-            }
-            
-            Future<?> f;
-            try {
-                f = exec.submit(pw);
-            } catch (RejectedExecutionException ex) {
-                UnsignalledExceptions.onErrorDropped(ex);
-                return REJECTED;
-            }
-            
-            if (shutdown) {
-                f.cancel(true);
-                return REJECTED; 
-            }
-            
-            pw.setFuture(f);
-            
-            return pw;
-        }
-
-        @Override
-        public void shutdown() {
-            if (shutdown) {
-                return;
-            }
-            shutdown = true;
-            OpenHashSet<SingleWorkerTask> set;
-            synchronized (this) {
-                set = tasks;
-                tasks = null;
-            }
-            
-            if (set != null && !set.isEmpty()) {
-                Object[] a = set.keys();
-                for (Object o : a) {
-                    if (o != null) {
-                        ((SingleWorkerTask)o).cancelFuture();
-                    }
-                }
-            }
-        }
-        
-        void remove(SingleWorkerTask task) {
-            if (shutdown) {
-                return;
-            }
-            
-            synchronized (this) {
-                if (shutdown) {
-                    return;
-                }
-                tasks.remove(task);
-            }
-        }
-        
-        int pendingTasks() {
-            if (shutdown) {
-                return 0;
-            }
-            
-            synchronized (this) {
-                OpenHashSet<?> set = tasks;
-                if (set != null) {
-                    return set.size();
-                }
-                return 0;
-            }
-        }
-        
-        static final class SingleWorkerTask implements Callable<Void>, Disposable {
-            final Runnable run;
-            
-            final SingleWorker parent;
-            
-            volatile boolean cancelled;
-            
-            volatile Future<?> future;
-            @SuppressWarnings("rawtypes")
-            static final AtomicReferenceFieldUpdater<SingleWorkerTask, Future> FUTURE =
-                    AtomicReferenceFieldUpdater.newUpdater(SingleWorkerTask.class, Future.class, "future");
-            
-            static final Future<Object> FINISHED = CompletableFuture.completedFuture(null);
-            static final Future<Object> CANCELLED = CompletableFuture.completedFuture(null);
-            
-            public SingleWorkerTask(Runnable run, SingleWorker parent) {
-                this.run = run;
-                this.parent = parent;
-            }
-            
-            @Override
-            public Void call() {
-                if (cancelled || parent.shutdown) {
-                    return null;
-                }
-                try {
-                    try {
-                        run.run();
-                    } catch (Throwable ex) {
-                        ExceptionHelper.throwIfFatal(ex);
-                        UnsignalledExceptions.onErrorDropped(ex);
-                    }
-                } finally {
-                    for (;;) {
-                        Future<?> f = future;
-                        if (f == CANCELLED) {
-                            break;
-                        }
-                        if (FUTURE.compareAndSet(this, f, FINISHED)) {
-                            parent.remove(this);
-                            break;
-                        }
-                    }
-                }
-                return null;
-            }
-            
-            @Override
-            public void dispose() {
-                if (!cancelled) {
-                    cancelled = true;
-                    
-                    Future<?> f = future;
-                    if (f != CANCELLED && f != FINISHED) {
-                        f = FUTURE.getAndSet(this, CANCELLED);
-                        if (f != CANCELLED && f != FINISHED) {
-                            if (f != null) {
-                                f.cancel(true);
-                            }
-                            
-                            parent.remove(this);
-                        }
-                    }
-                }
-            }
-            
-            void setFuture(Future<?> f) {
-                if (future != null || !FUTURE.compareAndSet(this, null, f)) {
-                    if (future != FINISHED) {
-                        f.cancel(true);
-                    }
-                }
-            }
-            
-            void cancelFuture() {
-                Future<?> f = future;
-                if (f != CANCELLED && f != FINISHED) {
-                    f = FUTURE.getAndSet(this, CANCELLED);
-                    if (f != null && f != CANCELLED && f != FINISHED) {
-                        f.cancel(true);
-                    }
-                }
-            }
-        }
+        return new ExecutorSchedulerTrampolineWorker(executor);
     }
 }
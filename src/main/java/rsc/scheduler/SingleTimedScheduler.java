@@ -1,5 +1,6 @@
 package rsc.scheduler;
 
+import java.util.Objects;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
@@ -36,6 +37,8 @@ public final class SingleTimedScheduler implements TimedScheduler {
 
     final ScheduledThreadPoolExecutor executor;
     
+    final Clock clock;
+    
     /**
      * Constructs a new SingleTimedScheduler with non-daemon executor and default
      * naming of "SingleTimedScheduler-N".
@@ -84,9 +87,20 @@ public final class SingleTimedScheduler implements TimedScheduler {
      * @param threadFactory the thread factory to use
      */
     public SingleTimedScheduler(ThreadFactory threadFactory) {
+        this(threadFactory, Clock.wall());
+    }
+    
+    /**
+     * Constructs a new SingleTimedScheduler with the given thread factory and
+     * the given clock as the source of {@link #now(TimeUnit)}.
+     * @param threadFactory the thread factory to use
+     * @param clock the clock to use
+     */
+    public SingleTimedScheduler(ThreadFactory threadFactory, Clock clock) {
         ScheduledThreadPoolExecutor e = (ScheduledThreadPoolExecutor)Executors.newScheduledThreadPool(1, threadFactory);
         e.setRemoveOnCancelPolicy(true);
         executor = e;
+        this.clock = Objects.requireNonNull(clock, "clock");
     }
     
     @Override
@@ -119,6 +133,11 @@ public final class SingleTimedScheduler implements TimedScheduler {
         }
     }
     
+    @Override
+    public long now(TimeUnit unit) {
+        return clock.now(unit);
+    }
+    
     @Override
     public void start() {
         throw new UnsupportedOperationException("Not supported, yet.");
@@ -131,20 +150,28 @@ public final class SingleTimedScheduler implements TimedScheduler {
     
     @Override
     public TimedWorker createWorker() {
-        return new SingleTimedSchedulerWorker(executor);
+        return new SingleTimedSchedulerWorker(executor, clock);
     }
     
     static final class SingleTimedSchedulerWorker implements TimedWorker {
         final ScheduledThreadPoolExecutor executor;
         
+        final Clock clock;
+        
         OpenHashSet<CancelFuture> tasks;
         
         volatile boolean terminated;
         
-        public SingleTimedSchedulerWorker(ScheduledThreadPoolExecutor executor) {
+        public SingleTimedSchedulerWorker(ScheduledThreadPoolExecutor executor, Clock clock) {
             this.executor = executor;
+            this.clock = clock;
             this.tasks = new OpenHashSet<>();
         }
+        
+        @Override
+        public long now(TimeUnit unit) {
+            return clock.now(unit);
+        }
 
         @Override
         public Disposable schedule(Runnable task) {
@@ -0,0 +1,21 @@
+package rsc.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The clocks backed by the system timers.
+ */
+enum SystemClock implements Clock {
+    WALL {
+        @Override
+        public long now(TimeUnit unit) {
+            return unit.convert(System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+    },
+    MONOTONIC {
+        @Override
+        public long now(TimeUnit unit) {
+            return unit.convert(System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package rsc.scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A clock whose time only changes when it is advanced manually, for testing
+ * time-dependent logic deterministically.
+ * <p>
+ * The time starts at zero unless specified otherwise.
+ */
+public final class TestClock implements Clock {
+
+    volatile long nanos;
+    static final AtomicLongFieldUpdater<TestClock> NANOS =
+            AtomicLongFieldUpdater.newUpdater(TestClock.class, "nanos");
+
+    public TestClock() {
+    }
+
+    public TestClock(long initialTime, TimeUnit unit) {
+        this.nanos = unit.toNanos(initialTime);
+    }
+
+    @Override
+    public long now(TimeUnit unit) {
+        return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Moves the time forward (or backward with a negative amount) by the given amount.
+     * @param amount the amount to move the time with
+     * @param unit the unit of the amount
+     */
+    public void advanceTimeBy(long amount, TimeUnit unit) {
+        NANOS.addAndGet(this, unit.toNanos(amount));
+    }
+
+    /**
+     * Sets the time to the given value.
+     * @param time the new time
+     * @param unit the unit of the time
+     */
+    public void advanceTimeTo(long time, TimeUnit unit) {
+        nanos = unit.toNanos(time);
+    }
+}
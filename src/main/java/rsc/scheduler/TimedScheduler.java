@@ -44,11 +44,13 @@ public interface TimedScheduler extends Scheduler {
     
     /**
      * Returns the "current time" notion of this scheduler.
+     * <p>
+     * By default, it is the {@link Clock#wall() wall clock} time.
      * @param unit the target unit of the current time
      * @return the current time value in the target unit of measure
      */
     default long now(TimeUnit unit) {
-        return unit.convert(System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        return Clock.wall().now(unit);
     }
     
     @Override
@@ -107,7 +109,7 @@ public interface TimedScheduler extends Scheduler {
          * @return the current time value in the target unit of measure
          */
         default long now(TimeUnit unit) {
-            return unit.convert(System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            return Clock.wall().now(unit);
         }
     }
 }
@@ -0,0 +1,118 @@
+package rsc.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+import rsc.flow.Disposable;
+import rsc.util.*;
+
+/**
+ * Executes tasks on the caller's thread, like the {@link ImmediateScheduler}, but tasks
+ * scheduled while another task is running on the same thread are queued and run
+ * after it, in FIFO order, instead of growing the stack.
+ * <p>
+ * The queue is thread-local and reused, a task runs without any allocation unless it
+ * has to be queued.
+ * <p>
+ * Use the TrampolineScheduler.instance() to get a shared, stateless instance of this scheduler.
+ */
+public final class TrampolineScheduler implements Scheduler {
+
+    private static final TrampolineScheduler INSTANCE = new TrampolineScheduler();
+
+    public static Scheduler instance() {
+        return INSTANCE;
+    }
+
+    private TrampolineScheduler() {
+
+    }
+
+    static final Disposable EMPTY = () -> { };
+
+    static final ThreadLocal<Trampoline> TRAMPOLINE = ThreadLocal.withInitial(Trampoline::new);
+
+    @Override
+    public Disposable schedule(Runnable task) {
+        return TRAMPOLINE.get().schedule(task, null);
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new TrampolineWorker();
+    }
+
+    static final class Trampoline {
+        final ArrayDeque<TrampolineTask> queue = new ArrayDeque<>();
+
+        boolean draining;
+
+        Disposable schedule(Runnable task, TrampolineWorker worker) {
+            Objects.requireNonNull(task, "task");
+            if (draining) {
+                TrampolineTask t = new TrampolineTask(task, worker);
+                queue.offer(t);
+                return t;
+            }
+            draining = true;
+            try {
+                run(task);
+
+                TrampolineTask t;
+                while ((t = queue.poll()) != null) {
+                    if (!t.cancelled && (t.worker == null || !t.worker.shutdown)) {
+                        run(t.task);
+                    }
+                }
+            } finally {
+                draining = false;
+            }
+            return EMPTY;
+        }
+
+        static void run(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                ExceptionHelper.throwIfFatal(ex);
+                UnsignalledExceptions.onErrorDropped(ex);
+            }
+        }
+    }
+
+    static final class TrampolineTask implements Disposable {
+        final Runnable task;
+
+        final TrampolineWorker worker;
+
+        volatile boolean cancelled;
+
+        public TrampolineTask(Runnable task, TrampolineWorker worker) {
+            this.task = task;
+            this.worker = worker;
+        }
+
+        @Override
+        public void dispose() {
+            cancelled = true;
+        }
+    }
+
+    static final class TrampolineWorker implements Scheduler.Worker {
+
+        volatile boolean shutdown;
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            if (shutdown) {
+                return REJECTED;
+            }
+            return TRAMPOLINE.get().schedule(task, this);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package rsc.scheduler;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import rsc.flow.Disposable;
+import rsc.scheduler.ExecutorScheduler.ExecutorPlainRunnable;
+import rsc.util.*;
+
+/**
+ * A TimedScheduler that runs tasks on virtual threads, suited for wrapping blocking
+ * calls via subscribeOn without being limited by the number of platform threads.
+ * <p>
+ * Each Worker executes its tasks in FIFO order and non-concurrently: a new virtual thread
+ * is started whenever the Worker has tasks to run and it lives until the Worker's queue
+ * becomes empty. Direct tasks each run on their own virtual thread. Delays are tracked
+ * by a shared {@link HashedWheelTimedScheduler} which hands the due tasks over to the
+ * virtual threads; its timer thread is started by the first delayed or periodic task.
+ * <p>
+ * Virtual threads require Java 21+; they are looked up reflectively so this class can
+ * be compiled and loaded on the Java 8 baseline, see {@link #isSupported()}. The
+ * {@link #VirtualThreadScheduler(ThreadFactory)} constructor allows using any other
+ * thread-per-task factory instead.
+ */
+public final class VirtualThreadScheduler implements TimedScheduler {
+
+    static final ThreadFactory VIRTUAL_THREAD_FACTORY = virtualThreadFactory("VirtualThreadScheduler-");
+
+    final ThreadFactory threadFactory;
+
+    /** Created on first use, see {@link #timer()}. */
+    volatile HashedWheelTimedScheduler timer;
+    static final AtomicReferenceFieldUpdater<VirtualThreadScheduler, HashedWheelTimedScheduler> TIMER =
+            AtomicReferenceFieldUpdater.newUpdater(VirtualThreadScheduler.class, HashedWheelTimedScheduler.class, "timer");
+
+    volatile boolean shutdown;
+
+    /**
+     * Constructs a VirtualThreadScheduler running tasks on virtual threads.
+     * @throws UnsupportedOperationException if the runtime doesn't support virtual threads
+     */
+    public VirtualThreadScheduler() {
+        this(requireVirtualThreads());
+    }
+
+    /**
+     * Constructs a VirtualThreadScheduler which creates a new thread with the given
+     * factory whenever a Worker or a direct task needs one.
+     * @param threadFactory the factory of the threads, ideally cheap ones
+     */
+    public VirtualThreadScheduler(ThreadFactory threadFactory) {
+        this.threadFactory = Objects.requireNonNull(threadFactory, "threadFactory");
+    }
+
+    /**
+     * Returns the timer, creating it on the first call so that schedulers used only for
+     * direct tasks don't keep a ticking timer thread around.
+     * @return the timer, shut down if this scheduler has been shut down
+     */
+    HashedWheelTimedScheduler timer() {
+        HashedWheelTimedScheduler t = timer;
+        if (t == null) {
+            t = new HashedWheelTimedScheduler(true);
+            if (TIMER.compareAndSet(this, null, t)) {
+                if (shutdown) {
+                    t.shutdown();
+                }
+            } else {
+                t.shutdown();
+                t = timer;
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Returns true if the runtime supports virtual threads (Java 21+).
+     * @return true if the runtime supports virtual threads
+     */
+    public static boolean isSupported() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    static ThreadFactory requireVirtualThreads() {
+        ThreadFactory f = VIRTUAL_THREAD_FACTORY;
+        if (f == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21+");
+        }
+        return f;
+    }
+
+    /**
+     * Calls Thread.ofVirtual().name(prefix, 0).factory() reflectively.
+     * @param prefix the name prefix of the threads
+     * @return the virtual thread factory or null if not supported
+     */
+    static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = ofVirtual.invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError | SecurityException ex) {
+            return null;
+        }
+    }
+
+    boolean start(Runnable run) {
+        try {
+            threadFactory.newThread(run).start();
+        } catch (Throwable ex) {
+            ExceptionHelper.throwIfFatal(ex);
+            UnsignalledExceptions.onErrorDropped(ex);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Disposable schedule(Runnable task) {
+        Objects.requireNonNull(task, "task");
+        if (shutdown) {
+            return REJECTED;
+        }
+        ExecutorPlainRunnable r = new ExecutorPlainRunnable(task);
+        if (!start(r)) {
+            return REJECTED;
+        }
+        return r;
+    }
+
+    @Override
+    public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+        Objects.requireNonNull(task, "task");
+        if (shutdown) {
+            return REJECTED;
+        }
+        ExecutorPlainRunnable r = new ExecutorPlainRunnable(task);
+        Disposable d = timer().schedule(() -> start(r), delay, unit);
+        if (d == REJECTED) {
+            return REJECTED;
+        }
+        return () -> {
+            r.dispose();
+            d.dispose();
+        };
+    }
+
+    @Override
+    public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        // a dedicated worker keeps the runs from overlapping
+        TimedWorker w = createWorker();
+        Disposable d = w.schedulePeriodically(task, initialDelay, period, unit);
+        if (d == REJECTED) {
+            return REJECTED;
+        }
+        return w::shutdown;
+    }
+
+    /**
+     * Rejects new tasks and Workers and stops the timer; the tasks already running
+     * on virtual threads are not interrupted.
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        HashedWheelTimedScheduler t = timer;
+        if (t != null) {
+            t.shutdown();
+        }
+    }
+
+    @Override
+    public TimedWorker createWorker() {
+        VirtualWorker w = new VirtualWorker(this);
+        if (shutdown) {
+            w.shutdown();
+        }
+        return w;
+    }
+
+    static final class VirtualWorker extends MpmcLinkedTracker<VirtualTask>
+    implements TimedWorker, Runnable {
+        final VirtualThreadScheduler parent;
+
+        final Queue<VirtualTask> queue;
+
+        volatile int wip;
+        static final AtomicIntegerFieldUpdater<VirtualWorker> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(VirtualWorker.class, "wip");
+
+        public VirtualWorker(VirtualThreadScheduler parent) {
+            this.parent = parent;
+            this.queue = new MpscLinkedArrayQueue<>(16);
+        }
+
+        @Override
+        public long now(TimeUnit unit) {
+            return parent.now(unit);
+        }
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            Objects.requireNonNull(task, "task");
+            VirtualTask t = new VirtualTask(task, this, false);
+            if (!add(t)) {
+                return REJECTED;
+            }
+            enqueue(t);
+            return t;
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+            Objects.requireNonNull(task, "task");
+            if (delay <= 0L) {
+                return schedule(task);
+            }
+            VirtualTask t = new VirtualTask(task, this, false);
+            if (!add(t)) {
+                return REJECTED;
+            }
+            Disposable d = parent.timer().schedule(() -> enqueue(t), delay, unit);
+            if (d == REJECTED) {
+                remove(t);
+                return REJECTED;
+            }
+            t.setTimer(d);
+            return t;
+        }
+
+        @Override
+        public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+            Objects.requireNonNull(task, "task");
+            VirtualTask t = new VirtualTask(task, this, true);
+            if (!add(t)) {
+                return REJECTED;
+            }
+            Disposable d = parent.timer().schedulePeriodically(() -> enqueue(t), initialDelay, period, unit);
+            if (d == REJECTED) {
+                remove(t);
+                return REJECTED;
+            }
+            t.setTimer(d);
+            return t;
+        }
+
+        void enqueue(VirtualTask t) {
+            queue.offer(t);
+            if (WIP.getAndIncrement(this) == 0) {
+                if (!parent.start(this)) {
+                    shutdown();
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            final Queue<VirtualTask> q = queue;
+
+            int missed = 1;
+            for (;;) {
+                for (;;) {
+                    if (isUnsubscribed()) {
+                        q.clear();
+                        break;
+                    }
+                    VirtualTask t = q.poll();
+                    if (t == null) {
+                        break;
+                    }
+                    t.run();
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        protected void unsubscribeEntry(VirtualTask entry) {
+            entry.dispose();
+        }
+
+        @Override
+        public void shutdown() {
+            if (unsubscribe()) {
+                // only the party that wins the wip may clear the queue
+                if (WIP.getAndIncrement(this) == 0) {
+                    run();
+                }
+            }
+        }
+    }
+
+    static final class VirtualTask extends MpmcLinkedTracker.Node implements Runnable, Disposable {
+        final Runnable task;
+
+        final VirtualWorker parent;
+
+        final boolean periodic;
+
+        volatile int state;
+        static final AtomicIntegerFieldUpdater<VirtualTask> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(VirtualTask.class, "state");
+
+        volatile Disposable timer;
+        static final AtomicReferenceFieldUpdater<VirtualTask, Disposable> TIMER =
+                AtomicReferenceFieldUpdater.newUpdater(VirtualTask.class, Disposable.class, "timer");
+
+        static final int WAITING = 0;
+        static final int CANCELLED = 1;
+        static final int FINISHED = 2;
+
+        static final Disposable CANCELLED_TIMER = () -> { };
+
+        public VirtualTask(Runnable task, VirtualWorker parent, boolean periodic) {
+            this.task = task;
+            this.parent = parent;
+            this.periodic = periodic;
+        }
+
+        void setTimer(Disposable d) {
+            if (!TIMER.compareAndSet(this, null, d)) {
+                d.dispose();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (state != WAITING) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                ExceptionHelper.throwIfFatal(ex);
+                UnsignalledExceptions.onErrorDropped(ex);
+                if (periodic) {
+                    dispose();
+                    return;
+                }
+            }
+            if (!periodic && STATE.compareAndSet(this, WAITING, FINISHED)) {
+                parent.remove(this);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (STATE.compareAndSet(this, WAITING, CANCELLED)) {
+                Disposable d = TIMER.getAndSet(this, CANCELLED_TIMER);
+                if (d != null) {
+                    d.dispose();
+                }
+                parent.remove(this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "VirtualTask[state=" + state + ", periodic=" + periodic + ", task=" + task + "]";
+        }
+    }
+}
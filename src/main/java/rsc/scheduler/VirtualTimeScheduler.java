@@ -0,0 +1,250 @@
+package rsc.scheduler;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import rsc.flow.Disposable;
+import rsc.util.ExceptionHelper;
+import rsc.util.UnsignalledExceptions;
+
+/**
+ * A TimedScheduler whose time only moves when advanced via {@link #advanceTimeBy(long, TimeUnit)}
+ * or {@link #advanceTimeTo(long, TimeUnit)}, which then run the due tasks synchronously,
+ * on the caller's thread, in the order of their due time.
+ * <p>
+ * Tasks due at the same time run in the order they were scheduled. Non-delayed tasks
+ * don't run until the time is advanced or {@link #triggerActions()} is called.
+ * <p>
+ * This allows testing and benchmarking time-based sequences without actually waiting.
+ * The time starts at zero.
+ */
+public final class VirtualTimeScheduler implements TimedScheduler {
+
+    final Queue<VirtualTask> queue;
+
+    final AtomicLong sequence;
+
+    volatile long nanos;
+
+    volatile boolean shutdown;
+
+    public VirtualTimeScheduler() {
+        this.queue = new PriorityBlockingQueue<>();
+        this.sequence = new AtomicLong();
+    }
+
+    /**
+     * Moves the time forward by the given amount and runs the tasks that became due.
+     * @param amount the amount of time to move forward with, non-negative
+     * @param unit the unit of the amount
+     */
+    public void advanceTimeBy(long amount, TimeUnit unit) {
+        if (amount < 0L) {
+            throw new IllegalArgumentException("amount >= 0 required but it was " + amount);
+        }
+        advance(nanos + unit.toNanos(amount));
+    }
+
+    /**
+     * Moves the time forward to the given point in time and runs the tasks that became due;
+     * points in the past only run the tasks already due.
+     * @param time the point in time to move forward to
+     * @param unit the unit of the time
+     */
+    public void advanceTimeTo(long time, TimeUnit unit) {
+        advance(Math.max(nanos, unit.toNanos(time)));
+    }
+
+    /**
+     * Runs the tasks that are due at the current time, including the non-delayed ones.
+     */
+    public void triggerActions() {
+        advance(nanos);
+    }
+
+    void advance(long target) {
+        final Queue<VirtualTask> q = queue;
+        for (;;) {
+            VirtualTask t = q.peek();
+            if (t == null || t.time > target) {
+                break;
+            }
+            q.poll();
+            if (t.time > nanos) {
+                nanos = t.time;
+            }
+            t.execute();
+        }
+        nanos = target;
+    }
+
+    /**
+     * Returns the number of tasks waiting in the queue, including the ones of shut down
+     * Workers.
+     * @return the number of tasks waiting
+     */
+    public int pendingTasks() {
+        return queue.size();
+    }
+
+    @Override
+    public long now(TimeUnit unit) {
+        return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Disposable schedule(Runnable task) {
+        return schedule(task, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+        return add(task, null, delay, 0L, unit);
+    }
+
+    @Override
+    public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        return add(task, null, initialDelay, Math.max(1L, unit.toNanos(period)), unit);
+    }
+
+    Disposable add(Runnable task, VirtualWorker worker, long delay, long periodNanos, TimeUnit unit) {
+        Objects.requireNonNull(task, "task");
+        if (shutdown) {
+            return REJECTED;
+        }
+        long time = nanos + Math.max(0L, unit.toNanos(delay));
+        VirtualTask t = new VirtualTask(task, this, worker, time, periodNanos, sequence.getAndIncrement());
+        queue.offer(t);
+        return t;
+    }
+
+    /**
+     * Restarts the scheduler after a {@link #shutdown()}; the time is kept.
+     */
+    @Override
+    public void start() {
+        shutdown = false;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        queue.clear();
+    }
+
+    @Override
+    public TimedWorker createWorker() {
+        return new VirtualWorker(this);
+    }
+
+    static final class VirtualTask implements Disposable, Comparable<VirtualTask> {
+        final Runnable task;
+
+        final VirtualTimeScheduler parent;
+
+        final VirtualWorker worker;
+
+        final long periodNanos;
+
+        long time;
+
+        long index;
+
+        volatile boolean cancelled;
+
+        public VirtualTask(Runnable task, VirtualTimeScheduler parent, VirtualWorker worker,
+                long time, long periodNanos, long index) {
+            this.task = task;
+            this.parent = parent;
+            this.worker = worker;
+            this.time = time;
+            this.periodNanos = periodNanos;
+            this.index = index;
+        }
+
+        void execute() {
+            if (cancelled || (worker != null && worker.shutdown)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                ExceptionHelper.throwIfFatal(ex);
+                UnsignalledExceptions.onErrorDropped(ex);
+                return;
+            }
+            if (periodNanos != 0L && !cancelled && !parent.shutdown) {
+                time += periodNanos;
+                index = parent.sequence.getAndIncrement();
+                parent.queue.offer(this);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            cancelled = true;
+            parent.queue.remove(this);
+        }
+
+        @Override
+        public int compareTo(VirtualTask o) {
+            if (time == o.time) {
+                return Long.compare(index, o.index);
+            }
+            return Long.compare(time, o.time);
+        }
+
+        @Override
+        public String toString() {
+            return "VirtualTask[time=" + time + ", cancelled=" + cancelled + ", task=" + task + "]";
+        }
+    }
+
+    static final class VirtualWorker implements TimedWorker {
+        final VirtualTimeScheduler parent;
+
+        volatile boolean shutdown;
+
+        public VirtualWorker(VirtualTimeScheduler parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public long now(TimeUnit unit) {
+            return parent.now(unit);
+        }
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            return schedule(task, 0L, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+            if (shutdown) {
+                return REJECTED;
+            }
+            return parent.add(task, this, delay, 0L, unit);
+        }
+
+        @Override
+        public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+            if (shutdown) {
+                return REJECTED;
+            }
+            return parent.add(task, this, initialDelay, Math.max(1L, unit.toNanos(period)), unit);
+        }
+
+        /**
+         * Prevents the tasks of this worker from running; they are dropped from the
+         * queue once they become due.
+         */
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+    }
+}
@@ -3,11 +3,17 @@ package rsc.subscriber;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
+import rsc.flow.Fuseable;
+import rsc.util.ExceptionHelper;
+
 /**
  * Base class for reducing integer values (without the constant re-boxing).
  * <p>
  * Use the {@code accumulator} field and set the {@code hasValue} to indicate
  * there is actually something in the accumulator.
+ * <p>
+ * If the upstream is a synchronous {@link Fuseable.IntQueueSubscription}, the values
+ * are pulled and reduced without boxing them at all.
  */
 public abstract class IntReducer extends DeferredScalarSubscriber<Integer, Integer> {
         protected int accumulator;
@@ -24,11 +30,60 @@ public abstract class IntReducer extends DeferredScalarSubscriber<Integer, Integ
         public final void onSubscribe(Subscription s) {
             this.s = s;
             
+            if (s instanceof Fuseable.IntQueueSubscription) {
+                Fuseable.IntQueueSubscription qs = (Fuseable.IntQueueSubscription) s;
+                
+                if (qs.requestFusion(Fuseable.SYNC) == Fuseable.SYNC) {
+                    subscriber.onSubscribe(this);
+                    
+                    drainSync(qs);
+                    return;
+                }
+            }
+            
             subscriber.onSubscribe(this);
             
             s.request(Long.MAX_VALUE);
         }
         
+        void drainSync(Fuseable.IntQueueSubscription qs) {
+            for (;;) {
+                if (isCancelled()) {
+                    return;
+                }
+                
+                boolean empty;
+                
+                try {
+                    empty = qs.isEmpty();
+                    if (!empty) {
+                        next(qs.pollInt());
+                    }
+                } catch (Throwable ex) {
+                    ExceptionHelper.throwIfFatal(ex);
+                    s.cancel();
+                    subscriber.onError(ex);
+                    return;
+                }
+                
+                if (empty) {
+                    onComplete();
+                    return;
+                }
+            }
+        }
+        
+        @Override
+        public final void onNext(Integer t) {
+            next(t.intValue());
+        }
+        
+        /**
+         * Accumulate the next upstream value.
+         * @param value the value to accumulate
+         */
+        protected abstract void next(int value);
+        
         @Override
         public final void onComplete() {
             if (hasValue) {
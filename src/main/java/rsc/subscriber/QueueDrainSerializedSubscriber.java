@@ -0,0 +1,216 @@
+package rsc.subscriber;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import rsc.flow.Producer;
+import rsc.flow.Receiver;
+import rsc.flow.Trackable;
+import rsc.util.MpscLinkedArrayQueue;
+import rsc.util.UnsignalledExceptions;
+
+/**
+ * Subscriber that makes sure signals are delivered sequentially in case the onNext, onError or onComplete methods are
+ * called concurrently.
+ * <p>
+ * Unlike the {@link SerializedSubscriber}, the implementation is lock-free: concurrent values are offered to an
+ * MPSC queue and whichever thread wins the work-in-progress counter drains it, thus producers never block
+ * each other. An uncontended onNext is emitted directly, without touching the queue.
+ * <p>
+ * Note that the class implements Subscription to save on allocation.
+ *
+ * @param <T> the value type
+ */
+public final class QueueDrainSerializedSubscriber<T> implements Subscriber<T>, Subscription, Receiver, Producer,
+                                                                Trackable {
+
+    final Subscriber<? super T> actual;
+
+    final Queue<T> queue;
+
+    Subscription s;
+
+    Throwable error;
+
+    volatile boolean done;
+
+    volatile boolean cancelled;
+
+    volatile int terminated;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<QueueDrainSerializedSubscriber> TERMINATED =
+            AtomicIntegerFieldUpdater.newUpdater(QueueDrainSerializedSubscriber.class, "terminated");
+
+    volatile int wip;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<QueueDrainSerializedSubscriber> WIP =
+            AtomicIntegerFieldUpdater.newUpdater(QueueDrainSerializedSubscriber.class, "wip");
+
+    /**
+     * Safely gate a subscriber subject concurrent Reactive Stream signals, thus serializing as a single sequence.
+     * Note that serialization uses Thread Stealing and is vulnerable to cpu starving issues.
+     * @param actual the subscriber to gate
+     * @param <T> the value type
+     * @return a safe subscriber
+     */
+    public static <T> Subscriber<T> create(Subscriber<T> actual) {
+        return new QueueDrainSerializedSubscriber<>(actual);
+    }
+
+    public QueueDrainSerializedSubscriber(Subscriber<? super T> actual) {
+        this.actual = actual;
+        this.queue = new MpscLinkedArrayQueue<>(16);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (SubscriptionHelper.validate(this.s, s)) {
+            this.s = s;
+
+            actual.onSubscribe(this);
+        }
+    }
+
+    @Override
+    public void onNext(T t) {
+        if (cancelled || done) {
+            return;
+        }
+
+        if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+            actual.onNext(t);
+            if (WIP.decrementAndGet(this) == 0) {
+                return;
+            }
+        } else {
+            queue.offer(t);
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+        }
+        drainLoop();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (cancelled || done || !TERMINATED.compareAndSet(this, 0, 1)) {
+            UnsignalledExceptions.onErrorDropped(t);
+            return;
+        }
+        error = t;
+        done = true;
+        if (WIP.getAndIncrement(this) == 0) {
+            drainLoop();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (cancelled || done || !TERMINATED.compareAndSet(this, 0, 1)) {
+            return;
+        }
+        done = true;
+        if (WIP.getAndIncrement(this) == 0) {
+            drainLoop();
+        }
+    }
+
+    @Override
+    public void request(long n) {
+        s.request(n);
+    }
+
+    @Override
+    public void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            s.cancel();
+
+            if (WIP.getAndIncrement(this) == 0) {
+                queue.clear();
+            }
+        }
+    }
+
+    void drainLoop() {
+        final Subscriber<? super T> a = actual;
+        final Queue<T> q = queue;
+
+        int missed = 1;
+
+        for (;;) {
+
+            for (;;) {
+                if (cancelled) {
+                    q.clear();
+                    return;
+                }
+
+                boolean d = done;
+
+                T v = q.poll();
+
+                boolean empty = v == null;
+
+                if (d && empty) {
+                    Throwable e = error;
+                    if (e != null) {
+                        a.onError(e);
+                    } else {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                if (empty) {
+                    break;
+                }
+
+                a.onNext(v);
+            }
+
+            missed = WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public Subscriber<? super T> downstream() {
+        return actual;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return done;
+    }
+
+    @Override
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return s != null || !cancelled;
+    }
+
+    @Override
+    public Subscription upstream() {
+        return s;
+    }
+
+    @Override
+    public long getPending() {
+        return queue.size();
+    }
+}
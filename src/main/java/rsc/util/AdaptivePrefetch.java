@@ -0,0 +1,111 @@
+package rsc.util;
+
+/**
+ * Adjusts the number of items outstanding from an upstream between a minimum and a maximum
+ * prefetch amount with an additive-increase, multiplicative-decrease strategy.
+ * <p>
+ * The window starts at the minimum prefetch. At each replenishment the controller looks at
+ * how often the consumer found its queue empty since the previous one:
+ * <ul>
+ * <li>less than once every four items: the stream is bulk and the window grows by the
+ * minimum prefetch, amortizing the request calls over larger batches;</li>
+ * <li>at least once every two items: the stream trickles and the window is halved,
+ * keeping the queue and the request bursts small;</li>
+ * <li>otherwise the window stays.</li>
+ * </ul>
+ * The next replenishment happens once three quarters of the window has been consumed.
+ * <p>
+ * The class is not thread-safe; it should be accessed from within the drain loop only.
+ */
+public final class AdaptivePrefetch {
+
+    final int minPrefetch;
+
+    final int maxPrefetch;
+
+    int window;
+
+    long outstanding;
+
+    int limit;
+
+    int idle;
+
+    /**
+     * Constructs an AdaptivePrefetch.
+     * @param minPrefetch the smallest window, positive
+     * @param maxPrefetch the largest window, at least minPrefetch; the consumer's queue
+     * has to be able to hold this many items
+     */
+    public AdaptivePrefetch(int minPrefetch, int maxPrefetch) {
+        if (minPrefetch <= 0) {
+            throw new IllegalArgumentException("minPrefetch > 0 required but it was " + minPrefetch);
+        }
+        if (maxPrefetch < minPrefetch) {
+            throw new IllegalArgumentException("maxPrefetch >= minPrefetch required but it was " + maxPrefetch);
+        }
+        this.minPrefetch = minPrefetch;
+        this.maxPrefetch = maxPrefetch;
+        this.window = minPrefetch;
+        this.outstanding = minPrefetch;
+        this.limit = minPrefetch - (minPrefetch >> 2);
+    }
+
+    /**
+     * Returns the amount to request when the upstream subscribes.
+     * @return the amount to request when the upstream subscribes
+     */
+    public int initial() {
+        return window;
+    }
+
+    /**
+     * Returns the number of items to consume before calling {@link #replenish(long)}.
+     * @return the number of items to consume before calling {@link #replenish(long)}
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the current window.
+     * @return the current window
+     */
+    public int window() {
+        return window;
+    }
+
+    /**
+     * Indicate the consumer found its queue empty.
+     */
+    public void idle() {
+        idle++;
+    }
+
+    /**
+     * Adjusts the window after the given number of items have been consumed and
+     * returns the amount to request from upstream.
+     * @param consumed the number of items consumed since the last replenishment
+     * @return the amount to request, zero if the window shrunk below the outstanding amount
+     */
+    public long replenish(long consumed) {
+        long o = outstanding - consumed;
+        long w = window;
+        long i = idle;
+        idle = 0;
+
+        if (i << 2 <= consumed) {
+            w = Math.min(maxPrefetch, w + minPrefetch);
+        } else
+        if (i << 1 >= consumed) {
+            w = Math.max(minPrefetch, w >> 1);
+        }
+        window = (int)w;
+
+        long n = Math.max(0L, w - o);
+        o += n;
+        outstanding = o;
+        limit = (int)Math.max(1L, o - (w >> 2));
+        return n;
+    }
+}
@@ -0,0 +1,136 @@
+package rsc.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values with power-of-two buckets.
+ * <p>
+ * Recording takes a few uncontended atomic operations and never allocates; percentiles
+ * are reported as the upper bound of the bucket they fall into, thus they are accurate
+ * up to a factor of 2.
+ */
+public final class LongHistogram {
+
+    static final int BUCKETS = 64;
+
+    final AtomicLongArray buckets;
+
+    final LongAdder sum;
+
+    final AtomicLong max;
+
+    public LongHistogram() {
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Records a value; negative values are recorded as zero.
+     * @param value the value to record
+     */
+    public void record(long value) {
+        if (value < 0L) {
+            value = 0L;
+        }
+        buckets.getAndIncrement(bucket(value));
+        sum.add(value);
+
+        AtomicLong m = max;
+        long c = m.get();
+        while (value > c && !m.compareAndSet(c, value)) {
+            c = m.get();
+        }
+    }
+
+    /**
+     * Returns the bucket index of a value: 0 for 0 and i for [2<sup>i-1</sup>, 2<sup>i</sup>).
+     * @param value the non-negative value
+     * @return the bucket index
+     */
+    static int bucket(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Returns a point-in-time copy of the histogram; concurrent recordings may be
+     * partially included.
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long n = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = buckets.get(i);
+            counts[i] = c;
+            n += c;
+        }
+        return new Snapshot(counts, n, sum.sum(), max.get());
+    }
+
+    /**
+     * An immutable copy of a LongHistogram.
+     */
+    public static final class Snapshot {
+        final long[] counts;
+
+        final long count;
+
+        final long sum;
+
+        final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public double mean() {
+            return count == 0L ? 0d : (double)sum / count;
+        }
+
+        /**
+         * Returns the upper bound of the bucket containing the given percentile,
+         * capped by the maximum recorded value.
+         * @param percentile the percentile, between 0 and 100
+         * @return the value at the percentile or 0 if the histogram is empty
+         */
+        public long percentile(double percentile) {
+            if (percentile < 0d || percentile > 100d) {
+                throw new IllegalArgumentException("percentile in [0, 100] required but it was " + percentile);
+            }
+            long n = count;
+            if (n == 0L) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long)Math.ceil(n * percentile / 100d));
+            long c = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                c += counts[i];
+                if (c >= rank) {
+                    long upper = i == 0 ? 0L : (i == 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return Math.min(upper, max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot[count=" + count + ", mean=" + mean() + ", p50=" + percentile(50)
+                    + ", p99=" + percentile(99) + ", max=" + max + "]";
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package rsc.util;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Lock-free tracker of entries that can be added and removed from any thread concurrently,
+ * the multi-threaded counterpart of {@link SpscSetTracker}.
+ * <p>
+ * The entries themselves are the nodes of an intrusive, singly-linked stack: adding is a single CAS
+ * on the head and removing just marks the entry. Marked entries are unlinked in bulk by
+ * whichever remover pushes the number of marked entries over the current limit, so there is
+ * no extra allocation per entry and no thread ever blocks on a monitor.
+ *
+ * @param <T> the entry type
+ */
+public abstract class MpmcLinkedTracker<T extends MpmcLinkedTracker.Node> {
+
+    static final int MIN_PURGE_LIMIT = 16;
+
+    static final Node TERMINATED = new Node() { };
+
+    volatile Node head;
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<MpmcLinkedTracker, Node> HEAD =
+            AtomicReferenceFieldUpdater.newUpdater(MpmcLinkedTracker.class, Node.class, "head");
+
+    volatile int removed;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<MpmcLinkedTracker> REMOVED =
+            AtomicIntegerFieldUpdater.newUpdater(MpmcLinkedTracker.class, "removed");
+
+    volatile int wip;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<MpmcLinkedTracker> WIP =
+            AtomicIntegerFieldUpdater.newUpdater(MpmcLinkedTracker.class, "wip");
+
+    volatile int purgeLimit = MIN_PURGE_LIMIT;
+
+    protected abstract void unsubscribeEntry(T entry);
+
+    /**
+     * Adds the entry unless this tracker has been unsubscribed.
+     * <p>
+     * An entry may be added only once.
+     * @param entry the entry to add
+     * @return true if added, false if the tracker has been unsubscribed
+     */
+    public final boolean add(T entry) {
+        for (;;) {
+            Node h = head;
+            if (h == TERMINATED) {
+                return false;
+            }
+            Node.NEXT.lazySet(entry, h);
+            if (HEAD.compareAndSet(this, h, entry)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Marks the entry as removed; the entry is unlinked later in bulk.
+     * @param entry the entry to remove
+     */
+    public final void remove(T entry) {
+        if (head == TERMINATED) {
+            return;
+        }
+        if (entry.removed == 0 && Node.REMOVED.compareAndSet(entry, 0, 1)) {
+            if (REMOVED.incrementAndGet(this) >= purgeLimit && WIP.compareAndSet(this, 0, 1)) {
+                purge();
+            }
+        }
+    }
+
+    /**
+     * Unlinks the removed entries; only one thread may run it at a time.
+     */
+    void purge() {
+        Node h = head;
+        if (h != TERMINATED && h != null) {
+            int unlinked = 0;
+            int live = 0;
+
+            // the next links of entries already in the list are only ever written here
+            Node prev = h;
+            Node curr = h.next;
+            while (curr != null) {
+                Node next = curr.next;
+                if (curr.removed != 0) {
+                    Node.NEXT.lazySet(prev, next);
+                    unlinked++;
+                } else {
+                    prev = curr;
+                    live++;
+                }
+                curr = next;
+            }
+
+            if (h.removed != 0) {
+                if (HEAD.compareAndSet(this, h, h.next)) {
+                    unlinked++;
+                }
+            } else {
+                live++;
+            }
+
+            purgeLimit = Math.max(MIN_PURGE_LIMIT, live);
+            REMOVED.addAndGet(this, -unlinked);
+        }
+        wip = 0;
+    }
+
+    /**
+     * Terminates this tracker and calls {@link #unsubscribeEntry(Node)} with the entries that
+     * haven't been removed.
+     * @return true if this call terminated the tracker, false if it was already terminated
+     */
+    @SuppressWarnings("unchecked")
+    protected final boolean unsubscribe() {
+        Node h = HEAD.getAndSet(this, TERMINATED);
+        if (h == TERMINATED) {
+            return false;
+        }
+        while (h != null) {
+            if (h.removed == 0) {
+                unsubscribeEntry((T)h);
+            }
+            h = h.next;
+        }
+        return true;
+    }
+
+    protected final boolean isUnsubscribed() {
+        return head == TERMINATED;
+    }
+
+    /**
+     * Counts the entries that haven't been removed by walking the list; for diagnostic
+     * purposes only.
+     * @return the number of entries not removed
+     */
+    public final int size() {
+        Node h = head;
+        if (h == TERMINATED) {
+            return 0;
+        }
+        int n = 0;
+        while (h != null) {
+            if (h.removed == 0) {
+                n++;
+            }
+            h = h.next;
+        }
+        return n;
+    }
+
+    /**
+     * Base class of the tracked entries holding the link and removal state.
+     */
+    public abstract static class Node {
+        volatile Node next;
+        static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+        volatile int removed;
+        static final AtomicIntegerFieldUpdater<Node> REMOVED =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "removed");
+    }
+}
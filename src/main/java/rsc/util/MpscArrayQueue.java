@@ -0,0 +1,253 @@
+package rsc.util;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A bounded, array backed, multi-producer single-consumer queue.
+ *
+ * This implementation is based on JCTools' MPSC algorithms:
+ * <a href='https://github.com/JCTools/JCTools/blob/master/jctools-core/src/main/java/org/jctools/queues/MpscArrayQueue.java'>MpscArrayQueue</a>
+ * and <a href='https://github.com/JCTools/JCTools/blob/master/jctools-core/src/main/java/org/jctools/queues/atomic/MpscAtomicArrayQueue.java'>MpscAtomicArrayQueue</a>.
+ * Producers claim a slot by CAS on the producer index and then lazily publish the element into it;
+ * the consumer spins briefly if it finds a claimed but not yet published slot. Similar to
+ * {@link SpscArrayQueue}, the AtomicReferenceArray is inlined and the indexes are padded
+ * from each other.
+ *
+ * @param <T> the value type
+ */
+public final class MpscArrayQueue<T> extends MpscArrayQueueP3<T> implements Queue<T> {
+    /** */
+    private static final long serialVersionUID = -1296597691183856449L;
+
+    public MpscArrayQueue(int capacity) {
+        super(PowerOf2.roundUp(capacity));
+    }
+
+    @Override
+    public boolean offer(T e) {
+        Objects.requireNonNull(e, "e");
+        final int m = mask;
+        final long c = m + 1L;
+        long limit = producerLimit;
+        long pi;
+
+        do {
+            pi = producerIndex;
+            if (pi >= limit) {
+                limit = consumerIndex + c;
+                if (pi >= limit) {
+                    return false;
+                }
+                PRODUCER_LIMIT.lazySet(this, limit);
+            }
+        } while (!PRODUCER_INDEX.compareAndSet(this, pi, pi + 1));
+
+        lazySet((int)pi & m, e);
+        return true;
+    }
+
+    @Override
+    public T poll() {
+        long ci = consumerIndex;
+        int offset = (int)ci & mask;
+
+        T v = get(offset);
+        if (v == null) {
+            if (ci == producerIndex) {
+                return null;
+            }
+            // a producer has claimed the slot but hasn't published the value yet
+            do {
+                v = get(offset);
+            } while (v == null);
+        }
+        lazySet(offset, null);
+        CONSUMER_INDEX.lazySet(this, ci + 1);
+        return v;
+    }
+
+    @Override
+    public T peek() {
+        long ci = consumerIndex;
+        int offset = (int)ci & mask;
+
+        T v = get(offset);
+        if (v == null && ci != producerIndex) {
+            do {
+                v = get(offset);
+            } while (v == null);
+        }
+        return v;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex == consumerIndex;
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null && !isEmpty());
+    }
+
+    @Override
+    public int size() {
+        long ci = consumerIndex;
+        for (;;) {
+            long pi = producerIndex;
+            long ci2 = consumerIndex;
+            if (ci == ci2) {
+                return (int)(pi - ci);
+            }
+            ci = ci2;
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object[] toArray() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <R> R[] toArray(R[] a) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean add(T e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public T remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public T element() {
+        throw new UnsupportedOperationException();
+    }
+}
+
+class MpscArrayQueueCold<T> extends AtomicReferenceArray<T> {
+    /** */
+    private static final long serialVersionUID = 2157239406468390758L;
+
+    final int mask;
+
+    public MpscArrayQueueCold(int length) {
+        super(length);
+        mask = length - 1;
+    }
+}
+class MpscArrayQueueP1<T> extends MpscArrayQueueCold<T> {
+    /** */
+    private static final long serialVersionUID = -7425186914418713733L;
+
+    volatile long p00, p01, p02, p03, p04, p05, p06, p07;
+    volatile long p08, p09, p0A, p0B, p0C, p0D, p0E;
+
+    public MpscArrayQueueP1(int length) {
+        super(length);
+    }
+}
+
+class MpscArrayQueueProducer<T> extends MpscArrayQueueP1<T> {
+
+    /** */
+    private static final long serialVersionUID = 6084326453463451340L;
+
+    public MpscArrayQueueProducer(int length) {
+        super(length);
+        producerLimit = length;
+    }
+
+    volatile long producerIndex;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<MpscArrayQueueProducer> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscArrayQueueProducer.class, "producerIndex");
+
+    volatile long producerLimit;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<MpscArrayQueueProducer> PRODUCER_LIMIT =
+            AtomicLongFieldUpdater.newUpdater(MpscArrayQueueProducer.class, "producerLimit");
+}
+
+class MpscArrayQueueP2<T> extends MpscArrayQueueProducer<T> {
+    /** */
+    private static final long serialVersionUID = 1421693163282424913L;
+
+    volatile long p00, p01, p02, p03, p04, p05, p06, p07;
+    volatile long p08, p09, p0A, p0B, p0C, p0D, p0E;
+
+    public MpscArrayQueueP2(int length) {
+        super(length);
+    }
+}
+
+class MpscArrayQueueConsumer<T> extends MpscArrayQueueP2<T> {
+
+    /** */
+    private static final long serialVersionUID = -3212005961387066016L;
+
+    public MpscArrayQueueConsumer(int length) {
+        super(length);
+    }
+
+    volatile long consumerIndex;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<MpscArrayQueueConsumer> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscArrayQueueConsumer.class, "consumerIndex");
+
+}
+
+class MpscArrayQueueP3<T> extends MpscArrayQueueConsumer<T> {
+    /** */
+    private static final long serialVersionUID = -8003226497834236460L;
+
+    volatile long p00, p01, p02, p03, p04, p05, p06, p07;
+    volatile long p08, p09, p0A, p0B, p0C, p0D, p0E;
+
+    public MpscArrayQueueP3(int length) {
+        super(length);
+    }
+}
@@ -0,0 +1,186 @@
+package rsc.util;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * An unbounded, array-backed multi-producer, single-consumer queue with a fixed link size.
+ *
+ * This implementation is based on JCTools' MPSC algorithms:
+ * <a href='https://github.com/JCTools/JCTools/blob/master/jctools-core/src/main/java/org/jctools/queues/MpscUnboundedArrayQueue.java'>MpscUnboundedArrayQueue</a>
+ * and <a href='https://github.com/JCTools/JCTools/blob/master/jctools-core/src/main/java/org/jctools/queues/atomic/MpscUnboundedAtomicArrayQueue.java'>MpscUnboundedAtomicArrayQueue</a>.
+ * The producer index moves in steps of two and its lowest bit indicates that one of the producers
+ * is linking in a new array; the others spin until it is done. Unlike {@link SpscLinkedArrayQueue},
+ * the arrays are always filled completely before a new one is linked in, therefore there is only one allocation
+ * per {@code linkSize} elements. Similar to the SPSC variant, the fields are not padded.
+ *
+ * @param <T> the value type
+ */
+public final class MpscLinkedArrayQueue<T> extends AbstractQueue<T> {
+
+    final int mask;
+
+    volatile long producerIndex;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<MpscLinkedArrayQueue> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscLinkedArrayQueue.class, "producerIndex");
+    volatile long producerLimit;
+    volatile AtomicReferenceArray<Object> producerArray;
+
+    volatile long consumerIndex;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<MpscLinkedArrayQueue> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscLinkedArrayQueue.class, "consumerIndex");
+    long consumerLimit;
+    AtomicReferenceArray<Object> consumerArray;
+
+    public MpscLinkedArrayQueue(int linkSize) {
+        int c = PowerOf2.roundUp(Math.max(2, linkSize));
+        AtomicReferenceArray<Object> a = new AtomicReferenceArray<>(c + 1);
+        this.producerArray = a;
+        this.consumerArray = a;
+        this.mask = c - 1;
+        this.producerLimit = 2L * c;
+        this.consumerLimit = 2L * c;
+    }
+
+    @Override
+    public boolean offer(T e) {
+        Objects.requireNonNull(e);
+
+        for (;;) {
+            long pi = producerIndex;
+
+            if ((pi & 1) != 0) {
+                // another producer is linking in the next array
+                continue;
+            }
+
+            long limit = producerLimit;
+            AtomicReferenceArray<Object> a = producerArray;
+
+            if (pi >= limit) {
+                if (PRODUCER_INDEX.compareAndSet(this, pi, pi + 1)) {
+                    int m = mask;
+                    AtomicReferenceArray<Object> b = new AtomicReferenceArray<>(m + 2);
+                    b.lazySet((int)(pi >> 1) & m, e);
+                    producerArray = b;
+                    producerLimit = limit + 2L * (m + 1);
+                    a.lazySet(m + 1, b);
+                    PRODUCER_INDEX.lazySet(this, pi + 2);
+                    return true;
+                }
+            } else
+            if (PRODUCER_INDEX.compareAndSet(this, pi, pi + 2)) {
+                a.lazySet((int)(pi >> 1) & mask, e);
+                return true;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T poll() {
+        long ci = consumerIndex;
+        AtomicReferenceArray<Object> a = consumerArray;
+        int m = mask;
+
+        if (ci == consumerLimit) {
+            if (ci == producerIndex) {
+                return null;
+            }
+            a = nextArray(a);
+        }
+
+        int offset = (int)(ci >> 1) & m;
+
+        Object o = a.get(offset);
+
+        if (o == null) {
+            if (ci == producerIndex) {
+                return null;
+            }
+            // a producer has claimed the slot but hasn't published the value yet
+            do {
+                o = a.get(offset);
+            } while (o == null);
+        }
+
+        a.lazySet(offset, null);
+        CONSUMER_INDEX.lazySet(this, ci + 2);
+
+        return (T)o;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T peek() {
+        long ci = consumerIndex;
+        AtomicReferenceArray<Object> a = consumerArray;
+
+        if (ci == consumerLimit) {
+            if (ci == producerIndex) {
+                return null;
+            }
+            a = nextArray(a);
+        }
+
+        int offset = (int)(ci >> 1) & mask;
+
+        Object o = a.get(offset);
+
+        if (o == null && ci != producerIndex) {
+            do {
+                o = a.get(offset);
+            } while (o == null);
+        }
+
+        return (T)o;
+    }
+
+    /**
+     * Moves the consumer to the next array linked from the given array, waiting for the
+     * link to become visible if necessary.
+     * @param a the current, fully consumed array
+     * @return the next array
+     */
+    @SuppressWarnings("unchecked")
+    AtomicReferenceArray<Object> nextArray(AtomicReferenceArray<Object> a) {
+        int m = mask;
+        Object b;
+        while ((b = a.get(m + 1)) == null) ;
+        a.lazySet(m + 1, null);
+        AtomicReferenceArray<Object> next = (AtomicReferenceArray<Object>)b;
+        consumerArray = next;
+        consumerLimit += 2L * (m + 1);
+        return next;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex == consumerIndex;
+    }
+
+    @Override
+    public int size() {
+        long ci = consumerIndex;
+        for (;;) {
+            long pi = producerIndex;
+            long ci2 = consumerIndex;
+            if (ci == ci2) {
+                return (int)((pi - ci) >> 1);
+            }
+            ci = ci2;
+        }
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null && !isEmpty());
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        throw new UnsupportedOperationException();
+    }
+}
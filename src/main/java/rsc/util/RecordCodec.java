@@ -0,0 +1,36 @@
+package rsc.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts values to and from fixed-width binary records.
+ * <p>
+ * Implementations should use the absolute get and put methods of the ByteBuffer so
+ * its position and limit are left intact.
+ *
+ * @param <T> the value type
+ */
+public interface RecordCodec<T> {
+
+    /**
+     * Returns the width of a record in bytes.
+     * @return the width of a record in bytes, positive
+     */
+    int recordSize();
+
+    /**
+     * Writes the value as a record into the buffer.
+     * @param buffer the target buffer
+     * @param offset the index where the record starts
+     * @param value the value to write, not null
+     */
+    void write(ByteBuffer buffer, int offset, T value);
+
+    /**
+     * Reads a value from the record in the buffer.
+     * @param buffer the source buffer
+     * @param offset the index where the record starts
+     * @return the value read, not null
+     */
+    T read(ByteBuffer buffer, int offset);
+}
@@ -5,6 +5,7 @@ import java.util.Iterator;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.atomic.*;
+import java.util.function.Consumer;
 
 /**
  * A bounded, array backed, single-producer single-consumer queue.
@@ -52,6 +53,100 @@ public final class SpscArrayQueue<T> extends SpscArrayQueueP3<T> implements Queu
         return v;
     }
     
+    /**
+     * Offers a batch of elements, publishing the producer index only once.
+     * <p>
+     * The batch is accepted either completely or not at all.
+     * @param items the array containing the elements to offer, none of them null
+     * @param off the index of the first element in the array
+     * @param len the number of elements to offer, not more than the capacity
+     * @return true if all elements were accepted, false if there wasn't enough room
+     * @throws NullPointerException if any of the elements is null, in which case none is offered
+     */
+    public boolean offer(T[] items, int off, int len) {
+        if (len == 0) {
+            return true;
+        }
+        final int m = mask;
+        if (len > m + 1) {
+            throw new IllegalArgumentException("len > capacity: " + len + " > " + (m + 1));
+        }
+        // the consumer sees the slots as soon as they are set, check them all upfront
+        for (int i = off, end = off + len; i < end; i++) {
+            Objects.requireNonNull(items[i], "e");
+        }
+        long pi = producerIndex;
+        // slots are freed in order so if the last slot is empty, all the others are as well
+        if (get((int)(pi + len - 1) & m) != null) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            lazySet((int)(pi + i) & m, items[off + i]);
+        }
+        PRODUCER_INDEX.lazySet(this, pi + len);
+        return true;
+    }
+    
+    /**
+     * Polls elements into the given array, starting at index zero, publishing the
+     * consumer index only once.
+     * @param into the target array
+     * @return the number of elements polled
+     */
+    public int poll(T[] into) {
+        final int m = mask;
+        final int n = into.length;
+        long ci = consumerIndex;
+        int i = 0;
+        
+        while (i != n) {
+            int offset = (int)ci & m;
+            T v = get(offset);
+            if (v == null) {
+                break;
+            }
+            lazySet(offset, null);
+            into[i++] = v;
+            ci++;
+        }
+        if (i != 0) {
+            CONSUMER_INDEX.lazySet(this, ci);
+        }
+        return i;
+    }
+    
+    /**
+     * Polls and hands over up to the given number of elements to the consumer,
+     * publishing the consumer index only once.
+     * @param consumer the consumer of the polled elements
+     * @param limit the maximum number of elements to poll
+     * @return the number of elements polled
+     */
+    public int drain(Consumer<? super T> consumer, int limit) {
+        final int m = mask;
+        long ci = consumerIndex;
+        int i = 0;
+        
+        try {
+            while (i != limit) {
+                int offset = (int)ci & m;
+                T v = get(offset);
+                if (v == null) {
+                    break;
+                }
+                lazySet(offset, null);
+                ci++;
+                i++;
+                consumer.accept(v);
+            }
+        } finally {
+            if (i != 0) {
+                CONSUMER_INDEX.lazySet(this, ci);
+            }
+        }
+        return i;
+    }
+    
     @Override
     public T peek() {
         int offset = (int)consumerIndex & mask;
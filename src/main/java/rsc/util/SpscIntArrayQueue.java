@@ -0,0 +1,117 @@
+package rsc.util;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A bounded, single-producer single-consumer queue that stores its values in a primitive int array.
+ * <p>
+ * Producers should use {@link #offerInt(int)} and consumers should check {@link #isEmpty()} before
+ * calling {@link #pollInt()} to avoid boxing; the regular {@link java.util.Queue} methods are there
+ * so the queue can be supplied to operators that are not aware of the primitive API.
+ */
+public final class SpscIntArrayQueue extends AbstractQueue<Integer> {
+
+    final int[] array;
+    
+    final int mask;
+    
+    volatile long producerIndex;
+    static final AtomicLongFieldUpdater<SpscIntArrayQueue> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(SpscIntArrayQueue.class, "producerIndex");
+
+    long producerLimit;
+    
+    volatile long consumerIndex;
+    static final AtomicLongFieldUpdater<SpscIntArrayQueue> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(SpscIntArrayQueue.class, "consumerIndex");
+
+    public SpscIntArrayQueue(int capacity) {
+        int c = PowerOf2.roundUp(capacity);
+        this.array = new int[c];
+        this.mask = c - 1;
+        this.producerLimit = c;
+    }
+    
+    /**
+     * Offer a value if there is room for it.
+     * @param value the value to offer
+     * @return true if the value was accepted, false if the queue is full
+     */
+    public boolean offerInt(int value) {
+        long pi = producerIndex;
+        if (pi >= producerLimit) {
+            long limit = consumerIndex + array.length;
+            if (pi >= limit) {
+                return false;
+            }
+            producerLimit = limit;
+        }
+        array[(int)pi & mask] = value;
+        PRODUCER_INDEX.lazySet(this, pi + 1);
+        return true;
+    }
+    
+    /**
+     * Returns the next value; call only if {@link #isEmpty()} returned false.
+     * @return the next value
+     */
+    public int pollInt() {
+        long ci = consumerIndex;
+        int v = array[(int)ci & mask];
+        CONSUMER_INDEX.lazySet(this, ci + 1);
+        return v;
+    }
+
+    @Override
+    public boolean offer(Integer e) {
+        Objects.requireNonNull(e, "e");
+        return offerInt(e.intValue());
+    }
+
+    @Override
+    public Integer poll() {
+        if (isEmpty()) {
+            return null;
+        }
+        return pollInt();
+    }
+
+    @Override
+    public Integer peek() {
+        if (isEmpty()) {
+            return null;
+        }
+        return array[(int)consumerIndex & mask];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex == consumerIndex;
+    }
+    
+    @Override
+    public void clear() {
+        CONSUMER_INDEX.lazySet(this, producerIndex);
+    }
+
+    @Override
+    public int size() {
+        long ci = consumerIndex;
+        for (;;) {
+            long pi = producerIndex;
+            long ci2 = consumerIndex;
+            if (ci == ci2) {
+                return (int)(pi - ci);
+            }
+            ci = ci2;
+        }
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -3,6 +3,7 @@ package rsc.util;
 import java.util.*;
 import java.util.concurrent.atomic.*;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 
 /**
  * An unbounded, array-backed single-producer, single-consumer queue with a fixed link size.
@@ -36,7 +37,7 @@ public final class SpscLinkedArrayQueue<T> extends AbstractQueue<T> implements
     static final Object NEXT = new Object();
     
     public SpscLinkedArrayQueue(int linkSize) {
-        int c = PowerOf2.roundUp(Math.min(2, linkSize));
+        int c = PowerOf2.roundUp(Math.max(2, linkSize));
         this.producerArray = this.consumerArray = new AtomicReferenceArray<>(c + 1);
         this.mask = c - 1;
     }
@@ -96,6 +97,132 @@ public final class SpscLinkedArrayQueue<T> extends AbstractQueue<T> implements
         return (T)o;
     }
     
+    /**
+     * Offers a batch of elements, publishing the producer index only once.
+     * @param items the array containing the elements to offer, none of them null
+     * @param off the index of the first element in the array
+     * @param len the number of elements to offer
+     * @return always true
+     * @throws NullPointerException if any of the elements is null, in which case none is offered
+     */
+    public boolean offer(T[] items, int off, int len) {
+        if (len == 0) {
+            return true;
+        }
+        // the consumer sees the slots as soon as they are set, check them all upfront
+        for (int i = off, end = off + len; i < end; i++) {
+            Objects.requireNonNull(items[i]);
+        }
+        long pi = producerIndex;
+        AtomicReferenceArray<Object> a = producerArray;
+        int m = mask;
+        
+        for (int i = 0; i < len; i++) {
+            T e = items[off + i];
+            
+            int offset = (int)pi & m;
+            int offset1 = (int)(pi + 1) & m;
+            
+            if (a.get(offset1) != null) {
+                AtomicReferenceArray<Object> b = new AtomicReferenceArray<>(m + 2);
+                b.lazySet(offset, e);
+                a.lazySet(m + 1, b);
+                a.lazySet(offset, NEXT);
+                a = b;
+            } else {
+                a.lazySet(offset, e);
+            }
+            pi++;
+        }
+        producerArray = a;
+        PRODUCER_INDEX.lazySet(this, pi);
+        
+        return true;
+    }
+    
+    /**
+     * Polls elements into the given array, starting at index zero, publishing the
+     * consumer index only once.
+     * @param into the target array
+     * @return the number of elements polled
+     */
+    @SuppressWarnings("unchecked")
+    public int poll(T[] into) {
+        final int n = into.length;
+        long ci = consumerIndex;
+        AtomicReferenceArray<Object> a = consumerArray;
+        int m = mask;
+        int i = 0;
+
+        while (i != n) {
+            int offset = (int)ci & m;
+            
+            Object o = a.get(offset);
+            
+            if (o == null) {
+                break;
+            }
+            if (o == NEXT) {
+                AtomicReferenceArray<Object> b = (AtomicReferenceArray<Object>)a.get(m + 1);
+                a.lazySet(m + 1, null);
+                o = b.get(offset);
+                a = b;
+            }
+            a.lazySet(offset, null);
+            into[i++] = (T)o;
+            ci++;
+        }
+        
+        if (i != 0) {
+            consumerArray = a;
+            CONSUMER_INDEX.lazySet(this, ci);
+        }
+        return i;
+    }
+    
+    /**
+     * Polls and hands over up to the given number of elements to the consumer,
+     * publishing the consumer index only once.
+     * @param consumer the consumer of the polled elements
+     * @param limit the maximum number of elements to poll
+     * @return the number of elements polled
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super T> consumer, int limit) {
+        long ci = consumerIndex;
+        AtomicReferenceArray<Object> a = consumerArray;
+        int m = mask;
+        int i = 0;
+
+        try {
+            while (i != limit) {
+                int offset = (int)ci & m;
+                
+                Object o = a.get(offset);
+                
+                if (o == null) {
+                    break;
+                }
+                if (o == NEXT) {
+                    AtomicReferenceArray<Object> b = (AtomicReferenceArray<Object>)a.get(m + 1);
+                    a.lazySet(m + 1, null);
+                    o = b.get(offset);
+                    a = b;
+                }
+                a.lazySet(offset, null);
+                ci++;
+                i++;
+                consumer.accept((T)o);
+            }
+        } finally {
+            if (i != 0) {
+                consumerArray = a;
+                CONSUMER_INDEX.lazySet(this, ci);
+            }
+        }
+        return i;
+    }
+    
     @SuppressWarnings("unchecked")
     @Override
     public T peek() {
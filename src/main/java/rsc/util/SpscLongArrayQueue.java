@@ -0,0 +1,117 @@
+package rsc.util;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A bounded, single-producer single-consumer queue that stores its values in a primitive long array.
+ * <p>
+ * Producers should use {@link #offerLong(long)} and consumers should check {@link #isEmpty()} before
+ * calling {@link #pollLong()} to avoid boxing; the regular {@link java.util.Queue} methods are there
+ * so the queue can be supplied to operators that are not aware of the primitive API.
+ */
+public final class SpscLongArrayQueue extends AbstractQueue<Long> {
+
+    final long[] array;
+    
+    final int mask;
+    
+    volatile long producerIndex;
+    static final AtomicLongFieldUpdater<SpscLongArrayQueue> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(SpscLongArrayQueue.class, "producerIndex");
+
+    long producerLimit;
+    
+    volatile long consumerIndex;
+    static final AtomicLongFieldUpdater<SpscLongArrayQueue> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(SpscLongArrayQueue.class, "consumerIndex");
+
+    public SpscLongArrayQueue(int capacity) {
+        int c = PowerOf2.roundUp(capacity);
+        this.array = new long[c];
+        this.mask = c - 1;
+        this.producerLimit = c;
+    }
+    
+    /**
+     * Offer a value if there is room for it.
+     * @param value the value to offer
+     * @return true if the value was accepted, false if the queue is full
+     */
+    public boolean offerLong(long value) {
+        long pi = producerIndex;
+        if (pi >= producerLimit) {
+            long limit = consumerIndex + array.length;
+            if (pi >= limit) {
+                return false;
+            }
+            producerLimit = limit;
+        }
+        array[(int)pi & mask] = value;
+        PRODUCER_INDEX.lazySet(this, pi + 1);
+        return true;
+    }
+    
+    /**
+     * Returns the next value; call only if {@link #isEmpty()} returned false.
+     * @return the next value
+     */
+    public long pollLong() {
+        long ci = consumerIndex;
+        long v = array[(int)ci & mask];
+        CONSUMER_INDEX.lazySet(this, ci + 1);
+        return v;
+    }
+
+    @Override
+    public boolean offer(Long e) {
+        Objects.requireNonNull(e, "e");
+        return offerLong(e.longValue());
+    }
+
+    @Override
+    public Long poll() {
+        if (isEmpty()) {
+            return null;
+        }
+        return pollLong();
+    }
+
+    @Override
+    public Long peek() {
+        if (isEmpty()) {
+            return null;
+        }
+        return array[(int)consumerIndex & mask];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex == consumerIndex;
+    }
+    
+    @Override
+    public void clear() {
+        CONSUMER_INDEX.lazySet(this, producerIndex);
+    }
+
+    @Override
+    public int size() {
+        long ci = consumerIndex;
+        for (;;) {
+            long pi = producerIndex;
+            long ci2 = consumerIndex;
+            if (ci == ci2) {
+                return (int)(pi - ci);
+            }
+            ci = ci2;
+        }
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        throw new UnsupportedOperationException();
+    }
+}
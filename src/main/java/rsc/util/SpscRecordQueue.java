@@ -0,0 +1,153 @@
+package rsc.util;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A bounded, single-producer single-consumer queue that stores its values as fixed-width
+ * records in a ByteBuffer ring instead of an object array.
+ * <p>
+ * Values are encoded on offer and decoded on poll via a {@link RecordCodec}, so pending
+ * values don't occupy the Java heap when the buffer is direct or memory-mapped; only the
+ * short-lived decoded instances do.
+ *
+ * @param <T> the value type
+ */
+public final class SpscRecordQueue<T> extends AbstractQueue<T> {
+
+    final ByteBuffer buffer;
+
+    final RecordCodec<T> codec;
+
+    final int recordSize;
+
+    final int mask;
+
+    volatile long producerIndex;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<SpscRecordQueue> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(SpscRecordQueue.class, "producerIndex");
+
+    long producerLimit;
+
+    volatile long consumerIndex;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<SpscRecordQueue> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(SpscRecordQueue.class, "consumerIndex");
+
+    /**
+     * Constructs a queue over a newly allocated direct ByteBuffer.
+     * @param capacity the number of records the queue should hold at least
+     * @param codec the record codec
+     */
+    public SpscRecordQueue(int capacity, RecordCodec<T> codec) {
+        this(ByteBuffer.allocateDirect(checkedSize(PowerOf2.roundUp(capacity), codec)), codec);
+    }
+
+    /**
+     * Constructs a queue over the given ByteBuffer, for example a MappedByteBuffer.
+     * <p>
+     * The capacity is the largest power-of-2 number of records that fit into the buffer.
+     * @param buffer the buffer to use, starting at index zero
+     * @param codec the record codec
+     */
+    public SpscRecordQueue(ByteBuffer buffer, RecordCodec<T> codec) {
+        this.buffer = Objects.requireNonNull(buffer, "buffer");
+        this.codec = Objects.requireNonNull(codec, "codec");
+        int rs = codec.recordSize();
+        if (rs <= 0) {
+            throw new IllegalArgumentException("recordSize > 0 required but it was " + rs);
+        }
+        int n = buffer.capacity() / rs;
+        if (n == 0) {
+            throw new IllegalArgumentException("The buffer can't hold a single record");
+        }
+        int c = Integer.highestOneBit(n);
+        this.recordSize = rs;
+        this.mask = c - 1;
+        this.producerLimit = c;
+    }
+
+    static int checkedSize(int capacity, RecordCodec<?> codec) {
+        long size = (long)capacity * codec.recordSize();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity * recordSize exceeds the maximum buffer size: " + size);
+        }
+        return (int)size;
+    }
+
+    @Override
+    public boolean offer(T e) {
+        Objects.requireNonNull(e, "e");
+        long pi = producerIndex;
+        if (pi >= producerLimit) {
+            long limit = consumerIndex + mask + 1;
+            if (pi >= limit) {
+                return false;
+            }
+            producerLimit = limit;
+        }
+        codec.write(buffer, ((int)pi & mask) * recordSize, e);
+        PRODUCER_INDEX.lazySet(this, pi + 1);
+        return true;
+    }
+
+    @Override
+    public T poll() {
+        long ci = consumerIndex;
+        if (ci == producerIndex) {
+            return null;
+        }
+        T v = codec.read(buffer, ((int)ci & mask) * recordSize);
+        CONSUMER_INDEX.lazySet(this, ci + 1);
+        return v;
+    }
+
+    @Override
+    public T peek() {
+        long ci = consumerIndex;
+        if (ci == producerIndex) {
+            return null;
+        }
+        return codec.read(buffer, ((int)ci & mask) * recordSize);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex == consumerIndex;
+    }
+
+    @Override
+    public void clear() {
+        CONSUMER_INDEX.lazySet(this, producerIndex);
+    }
+
+    @Override
+    public int size() {
+        long ci = consumerIndex;
+        for (;;) {
+            long pi = producerIndex;
+            long ci2 = consumerIndex;
+            if (ci == ci2) {
+                return (int)(pi - ci);
+            }
+            ci = ci2;
+        }
+    }
+
+    /**
+     * Returns the number of records this queue can hold.
+     * @return the number of records this queue can hold
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -570,4 +570,47 @@ public class ParallelPublisherTest {
         
         ts.assertValue(1);
     }
+
+    @Test
+    public void concatMapEagerKeepsRailOrder() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        ParallelPublisher.fromArray(Px.range(0, 5), Px.range(5, 5))
+        .concatMapEager(v -> Px.range(v * 10, 10).hide(), false, 2, 4)
+        .sequential()
+        .subscribe(ts);
+
+        ts.assertValueCount(100)
+        .assertNoError()
+        .assertComplete();
+
+        List<Integer> rail1 = new ArrayList<>();
+        List<Integer> rail2 = new ArrayList<>();
+        for (Integer v : ts.values()) {
+            if (v < 50) {
+                rail1.add(v);
+            } else {
+                rail2.add(v);
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals(i, rail1.get(i).intValue());
+            Assert.assertEquals(i + 50, rail2.get(i).intValue());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void concatMapEagerZeroMaxConcurrency() {
+        ParallelPublisher.fromArray(Px.range(0, 5)).concatMapEager(v -> Px.just(v), false, 0, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void concatMapEagerZeroPrefetch() {
+        ParallelPublisher.fromArray(Px.range(0, 5)).concatMapEager(v -> Px.just(v), false, 2, 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void concatMapEagerNullMapper() {
+        ParallelPublisher.fromArray(Px.range(0, 5)).concatMapEager(null, false, 2, 4);
+    }
 }
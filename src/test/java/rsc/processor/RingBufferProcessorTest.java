@@ -0,0 +1,211 @@
+package rsc.processor;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import rsc.publisher.Px;
+import rsc.scheduler.ExecutorServiceScheduler;
+import rsc.scheduler.SingleScheduler;
+import rsc.test.TestSubscriber;
+import rsc.util.TestHelper;
+
+public class RingBufferProcessorTest {
+
+    @Test(expected = NullPointerException.class)
+    public void onNextNull() {
+        new RingBufferProcessor<Integer>().onNext(null);
+    }
+
+    @Test
+    public void normal() {
+        RingBufferProcessor<Integer> rp = new RingBufferProcessor<>(16);
+
+        TestSubscriber<Integer> ts1 = new TestSubscriber<>();
+        TestSubscriber<Integer> ts2 = new TestSubscriber<>();
+
+        rp.subscribe(ts1);
+        rp.subscribe(ts2);
+
+        Assert.assertEquals(2, rp.downstreamCount());
+
+        Px.range(1, 100).subscribe(rp);
+
+        ts1.assertValueCount(100)
+        .assertNoError()
+        .assertComplete();
+        ts2.assertValueCount(100)
+        .assertNoError()
+        .assertComplete();
+
+        Assert.assertFalse(rp.hasDownstreams());
+    }
+
+    @Test
+    public void slowestGatesUpstream() {
+        RingBufferProcessor<Integer> rp = new RingBufferProcessor<>(16);
+
+        TestSubscriber<Integer> fast = new TestSubscriber<>();
+        TestSubscriber<Integer> slow = new TestSubscriber<>(0);
+
+        rp.subscribe(fast);
+        rp.subscribe(slow);
+
+        List<Long> requests = new ArrayList<>();
+        Px.range(1, 100).doOnRequest(requests::add).subscribe(rp);
+
+        fast.assertValueCount(16)
+        .assertNotComplete();
+        slow.assertNoValues();
+
+        slow.request(4);
+
+        // 4 slots freed, less than the replenish batch of 16 / 4
+        slow.assertValues(1, 2, 3, 4);
+        fast.assertValueCount(20);
+
+        slow.request(96);
+
+        fast.assertValueCount(100)
+        .assertComplete();
+        slow.assertValueCount(100)
+        .assertComplete();
+
+        Assert.assertEquals(Long.valueOf(16), requests.get(0));
+    }
+
+    @Test
+    public void cancelLiftsGating() {
+        RingBufferProcessor<Integer> rp = new RingBufferProcessor<>(16);
+
+        TestSubscriber<Integer> fast = new TestSubscriber<>();
+        TestSubscriber<Integer> slow = new TestSubscriber<>(0);
+
+        rp.subscribe(fast);
+        rp.subscribe(slow);
+
+        Px.range(1, 100).subscribe(rp);
+
+        fast.assertValueCount(16);
+
+        slow.cancel();
+
+        fast.assertValueCount(100)
+        .assertComplete();
+    }
+
+    @Test
+    public void lateSubscriberSeesOnlyNewItems() {
+        RingBufferProcessor<Integer> rp = new RingBufferProcessor<>(16);
+
+        TestSubscriber<Integer> ts1 = new TestSubscriber<>();
+        rp.subscribe(ts1);
+
+        rp.onNext(1);
+        rp.onNext(2);
+
+        TestSubscriber<Integer> ts2 = new TestSubscriber<>();
+        rp.subscribe(ts2);
+
+        rp.onNext(3);
+        rp.onComplete();
+
+        ts1.assertValues(1, 2, 3).assertComplete();
+        ts2.assertValues(3).assertComplete();
+
+        TestSubscriber<Integer> ts3 = new TestSubscriber<>();
+        rp.subscribe(ts3);
+
+        ts3.assertNoValues().assertComplete();
+    }
+
+    @Test
+    public void error() {
+        RingBufferProcessor<Integer> rp = new RingBufferProcessor<>(16);
+
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+        rp.subscribe(ts);
+
+        rp.onNext(1);
+        rp.onError(new RuntimeException("forced failure"));
+
+        ts.assertNoValues()
+        .assertNotComplete();
+
+        ts.request(1);
+
+        ts.assertValues(1)
+        .assertError(RuntimeException.class)
+        .assertErrorMessage("forced failure");
+    }
+
+    @Test
+    public void noSubscribersDropsItems() {
+        RingBufferProcessor<Integer> rp = new RingBufferProcessor<>(16);
+
+        Px.range(1, 100).subscribe(rp);
+
+        Assert.assertTrue(rp.isTerminated());
+        Assert.assertNull(rp.getError());
+    }
+
+    @Test
+    public void asyncSubscribers() {
+        RingBufferProcessor<Integer> rp = new RingBufferProcessor<>(64);
+
+        ExecutorService exec = Executors.newFixedThreadPool(2);
+        try {
+            ExecutorServiceScheduler scheduler = new ExecutorServiceScheduler(exec);
+            List<TestSubscriber<Integer>> list = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                TestSubscriber<Integer> ts = new TestSubscriber<>();
+                rp.observeOn(scheduler).subscribe(ts);
+                list.add(ts);
+            }
+
+            Px.range(1, 100_000).subscribe(rp);
+
+            for (TestSubscriber<Integer> ts : list) {
+                ts.assertTerminated(5, TimeUnit.SECONDS);
+                ts.assertValueCount(100_000)
+                .assertNoError()
+                .assertComplete();
+            }
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test
+    public void subscribeWhileEmitting() {
+        SingleScheduler scheduler = new SingleScheduler();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                RingBufferProcessor<Integer> rp = new RingBufferProcessor<>(16);
+                TestSubscriber<Integer> ts = new TestSubscriber<>(0L);
+
+                TestHelper.race(() -> Px.range(0, 1000).subscribe(rp), () -> rp.subscribe(ts), scheduler);
+
+                // the unrequested Subscriber gates the producer, it can't run ahead of it
+                Assert.assertNull(rp.getError());
+
+                ts.request(Long.MAX_VALUE);
+
+                ts.assertNoError()
+                .assertComplete();
+
+                List<Integer> values = ts.values();
+                for (int j = 1; j < values.size(); j++) {
+                    Assert.assertEquals(values.get(j - 1) + 1, values.get(j).intValue());
+                }
+                if (!values.isEmpty()) {
+                    Assert.assertEquals(999, values.get(values.size() - 1).intValue());
+                }
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
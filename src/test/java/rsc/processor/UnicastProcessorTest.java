@@ -1,10 +1,11 @@
 package rsc.processor;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -13,6 +14,8 @@ import rsc.scheduler.Scheduler;
 import rsc.scheduler.SingleScheduler;
 import rsc.test.TestSubscriber;
 import rsc.util.SpscLinkedArrayQueue;
+import rsc.util.SpscRecordQueue;
+import rsc.util.SpscRecordQueueTest;
 
 public class UnicastProcessorTest {
 
@@ -290,4 +293,83 @@ public class UnicastProcessorTest {
             ts.assertResult(1, 2, 3, 4, 5, 6);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void offHeapQueueBuffersBeforeSubscribe() {
+        UnicastProcessor<Long> up = new UnicastProcessor<>(new SpscRecordQueue<>(16, SpscRecordQueueTest.LONG_CODEC));
+
+        up.onNext(1L);
+        up.onNext(2L);
+        up.onNext(3L);
+        up.onComplete();
+
+        TestSubscriber<Long> ts = new TestSubscriber<>();
+
+        up.subscribe(ts);
+
+        ts.assertResult(1L, 2L, 3L);
+    }
+
+    void multiProducer(boolean fused) throws Exception {
+        int threads = 4;
+        int n = 50_000;
+
+        UnicastProcessor<Integer> up = UnicastProcessor.multiProducer();
+
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        if (fused) {
+            ts.requestedFusionMode(Fuseable.ANY);
+        }
+        up.subscribe(ts);
+
+        ExecutorService exec = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int base = i * n;
+                futures.add(exec.submit(() -> {
+                    barrier.await();
+                    for (int j = 0; j < n; j++) {
+                        up.onNext(base + j);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            exec.shutdownNow();
+        }
+        up.onComplete();
+        up.onComplete();
+
+        ts.assertTerminated(5, TimeUnit.SECONDS);
+        ts.assertNoError()
+        .assertComplete()
+        .assertValueCount(threads * n);
+        if (fused) {
+            ts.assertFusionMode(Fuseable.ASYNC);
+        }
+
+        // each producer's values stay in order
+        int[] last = new int[threads];
+        Arrays.fill(last, -1);
+        for (Integer v : ts.values()) {
+            int p = v / n;
+            Assert.assertTrue(v + " after " + last[p], v > last[p]);
+            last[p] = v;
+        }
+    }
+
+    @Test
+    public void multiProducer() throws Exception {
+        multiProducer(false);
+    }
+
+    @Test
+    public void multiProducerFused() throws Exception {
+        multiProducer(true);
+    }
+}
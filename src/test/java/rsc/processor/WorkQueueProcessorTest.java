@@ -0,0 +1,172 @@
+package rsc.processor;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import rsc.publisher.Px;
+import rsc.scheduler.ExecutorServiceScheduler;
+import rsc.test.TestSubscriber;
+
+public class WorkQueueProcessorTest {
+
+    @Test(expected = NullPointerException.class)
+    public void onNextNull() {
+        new WorkQueueProcessor<Integer>().onNext(null);
+    }
+
+    @Test
+    public void eachItemToOneSubscriber() {
+        WorkQueueProcessor<Integer> wp = new WorkQueueProcessor<>(16);
+
+        TestSubscriber<Integer> ts1 = new TestSubscriber<>();
+        TestSubscriber<Integer> ts2 = new TestSubscriber<>();
+
+        wp.subscribe(ts1);
+        wp.subscribe(ts2);
+
+        Px.range(1, 100).subscribe(wp);
+
+        ts1.assertValueCount(50)
+        .assertNoError()
+        .assertComplete();
+        ts2.assertValueCount(50)
+        .assertNoError()
+        .assertComplete();
+
+        Set<Integer> set = new HashSet<>(ts1.values());
+        set.addAll(ts2.values());
+        Assert.assertEquals(100, set.size());
+    }
+
+    @Test
+    public void distributedByDemand() {
+        WorkQueueProcessor<Integer> wp = new WorkQueueProcessor<>(16);
+
+        TestSubscriber<Integer> ts1 = new TestSubscriber<>(2);
+        TestSubscriber<Integer> ts2 = new TestSubscriber<>(0);
+
+        wp.subscribe(ts1);
+        wp.subscribe(ts2);
+
+        Px.range(1, 10).subscribe(wp);
+
+        ts1.assertValues(1, 2);
+        ts2.assertNoValues();
+
+        ts2.request(3);
+
+        ts2.assertValues(3, 4, 5);
+
+        ts1.request(10);
+
+        ts1.assertValues(1, 2, 6, 7, 8, 9, 10)
+        .assertComplete();
+        ts2.assertValues(3, 4, 5)
+        .assertComplete();
+    }
+
+    @Test
+    public void noSubscribersKeepsItemsQueued() {
+        WorkQueueProcessor<Integer> wp = new WorkQueueProcessor<>(16);
+
+        List<Long> requests = new ArrayList<>();
+        Px.range(1, 100).doOnRequest(requests::add).subscribe(wp);
+
+        Assert.assertEquals(Arrays.asList(16L), requests);
+        Assert.assertEquals(16, wp.getPending());
+        Assert.assertFalse(wp.isTerminated());
+
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        wp.subscribe(ts);
+
+        ts.assertValueCount(100)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void cancelledItemsGoToTheOthers() {
+        WorkQueueProcessor<Integer> wp = new WorkQueueProcessor<>(16);
+
+        TestSubscriber<Integer> ts1 = new TestSubscriber<>(5);
+        TestSubscriber<Integer> ts2 = new TestSubscriber<>(0);
+
+        wp.subscribe(ts1);
+        wp.subscribe(ts2);
+
+        Px.range(1, 100).subscribe(wp);
+
+        ts1.assertValues(1, 2, 3, 4, 5);
+
+        ts1.cancel();
+
+        ts2.request(95);
+
+        ts2.assertValueCount(95)
+        .assertNoError()
+        .assertComplete();
+        Assert.assertEquals(Integer.valueOf(6), ts2.values().get(0));
+        ts1.assertNotComplete();
+    }
+
+    @Test
+    public void errorAfterQueueDrained() {
+        WorkQueueProcessor<Integer> wp = new WorkQueueProcessor<>(16);
+
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+        wp.subscribe(ts);
+
+        wp.onNext(1);
+        wp.onError(new RuntimeException("forced failure"));
+
+        ts.assertNoValues()
+        .assertNotComplete();
+
+        ts.request(1);
+
+        ts.assertValues(1)
+        .assertError(RuntimeException.class)
+        .assertErrorMessage("forced failure");
+
+        TestSubscriber<Integer> ts2 = new TestSubscriber<>();
+        wp.subscribe(ts2);
+
+        ts2.assertNoValues()
+        .assertError(RuntimeException.class);
+    }
+
+    @Test
+    public void asyncSubscribers() {
+        WorkQueueProcessor<Integer> wp = new WorkQueueProcessor<>(64);
+
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            ExecutorServiceScheduler scheduler = new ExecutorServiceScheduler(exec);
+            List<TestSubscriber<Integer>> list = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                TestSubscriber<Integer> ts = new TestSubscriber<>();
+                wp.observeOn(scheduler).subscribe(ts);
+                list.add(ts);
+            }
+
+            Px.range(1, 100_000).subscribe(wp);
+
+            Set<Integer> set = new HashSet<>();
+            int count = 0;
+            for (TestSubscriber<Integer> ts : list) {
+                ts.assertTerminated(5, TimeUnit.SECONDS);
+                ts.assertNoError()
+                .assertComplete();
+                set.addAll(ts.values());
+                count += ts.values().size();
+            }
+            Assert.assertEquals(100_000, count);
+            Assert.assertEquals(100_000, set.size());
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package rsc.publisher;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+
+import rsc.processor.DirectProcessor;
+import rsc.processor.UnicastProcessor;
+import rsc.scheduler.ExecutorServiceScheduler;
+import rsc.scheduler.Scheduler;
+import rsc.test.TestSubscriber;
+import rsc.util.ConstructorTestBuilder;
+
+public class PublisherConcatMapEagerTest {
+
+    @Test
+    public void constructors() {
+        ConstructorTestBuilder ctb = new ConstructorTestBuilder(PublisherConcatMapEager.class);
+        
+        ctb.addRef("source", PublisherNever.instance());
+        ctb.addRef("mapper", (Function<Object, Publisher<Object>>)v -> PublisherNever.instance());
+        ctb.addInt("maxConcurrency", 1, Integer.MAX_VALUE);
+        ctb.addInt("prefetch", 1, Integer.MAX_VALUE);
+        ctb.addRef("innerQueueSupplier", (Supplier<Queue<Object>>)() -> new ConcurrentLinkedQueue<>());
+        
+        ctb.test();
+    }
+
+    @Test
+    public void normal() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        Px.range(1, 2).hide().concatMapEager(v -> Px.range(v, 2)).subscribe(ts);
+        
+        ts.assertValues(1, 2, 2, 3)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void normalHidden() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        Px.range(1, 1000).hide().concatMapEager(v -> Px.range(v, 2).hide(), 4, 1).subscribe(ts);
+        
+        ts.assertValueCount(2000)
+        .assertNoError()
+        .assertComplete();
+        
+        List<Integer> list = ts.values();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i + 1, list.get(i * 2).intValue());
+            Assert.assertEquals(i + 2, list.get(i * 2 + 1).intValue());
+        }
+    }
+
+    @Test
+    public void laterSourceBufferedUntilEarlierCompletes() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        UnicastProcessor<Integer> up1 = new UnicastProcessor<>(new ConcurrentLinkedQueue<>());
+        UnicastProcessor<Integer> up2 = new UnicastProcessor<>(new ConcurrentLinkedQueue<>());
+        
+        Px.fromArray(up1, up2).concatMapEager(v -> v).subscribe(ts);
+        
+        up2.onNext(3);
+        up2.onNext(4);
+        up2.onComplete();
+        
+        ts.assertNoValues();
+        
+        up1.onNext(1);
+        
+        ts.assertValues(1);
+        
+        up1.onNext(2);
+        up1.onComplete();
+        
+        ts.assertValues(1, 2, 3, 4)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void maxConcurrency() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        AtomicInteger subscriptions = new AtomicInteger();
+        
+        DirectProcessor<Integer> dp1 = new DirectProcessor<>();
+        DirectProcessor<Integer> dp2 = new DirectProcessor<>();
+        DirectProcessor<Integer> dp3 = new DirectProcessor<>();
+        
+        Px.fromArray(dp1, dp2, dp3)
+        .concatMapEager(v -> v.doOnSubscribe(s -> subscriptions.getAndIncrement()), 2, 16)
+        .subscribe(ts);
+        
+        Assert.assertEquals(2, subscriptions.get());
+        Assert.assertFalse(dp3.hasDownstreams());
+        
+        dp2.onNext(2);
+        dp2.onComplete();
+        
+        Assert.assertEquals(2, subscriptions.get());
+        
+        dp1.onNext(1);
+        dp1.onComplete();
+        
+        Assert.assertEquals(3, subscriptions.get());
+        
+        dp3.onNext(3);
+        dp3.onComplete();
+        
+        ts.assertValues(1, 2, 3)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void backpressured() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+        
+        Px.range(1, 3).concatMapEager(v -> Px.range(v * 10, 3).hide(), 3, 4).subscribe(ts);
+        
+        ts.assertNoValues();
+        
+        ts.request(4);
+        
+        ts.assertValues(10, 11, 12, 20);
+        
+        ts.request(10);
+        
+        ts.assertValues(10, 11, 12, 20, 21, 22, 30, 31, 32)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void innerErrorImmediate() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        DirectProcessor<Integer> dp1 = new DirectProcessor<>();
+        DirectProcessor<Integer> dp2 = new DirectProcessor<>();
+        
+        Px.fromArray(dp1, dp2).concatMapEager(v -> v).subscribe(ts);
+        
+        dp1.onNext(1);
+        dp2.onError(new RuntimeException("forced failure"));
+        
+        ts.assertValues(1)
+        .assertError(RuntimeException.class)
+        .assertErrorMessage("forced failure")
+        .assertNotComplete();
+        
+        Assert.assertFalse("dp1 has subscribers?", dp1.hasDownstreams());
+    }
+
+    @Test
+    public void innerErrorDelayed() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        DirectProcessor<Integer> dp1 = new DirectProcessor<>();
+        DirectProcessor<Integer> dp2 = new DirectProcessor<>();
+        
+        Px.fromArray(dp1, dp2).concatMapEager(v -> v, true, 2, 16).subscribe(ts);
+        
+        dp2.onNext(2);
+        dp2.onError(new RuntimeException("forced failure"));
+        
+        ts.assertNoValues()
+        .assertNoError();
+        
+        dp1.onNext(1);
+        dp1.onComplete();
+        
+        ts.assertValues(1, 2)
+        .assertError(RuntimeException.class)
+        .assertErrorMessage("forced failure")
+        .assertNotComplete();
+    }
+
+    @Test
+    public void mainError() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        Px.<Integer>error(new RuntimeException("forced failure")).concatMapEager(v -> Px.just(v)).subscribe(ts);
+        
+        ts.assertNoValues()
+        .assertError(RuntimeException.class)
+        .assertErrorMessage("forced failure");
+    }
+
+    @Test
+    public void mapperThrows() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        Px.range(1, 2).hide().<Integer>concatMapEager(v -> {
+            throw new RuntimeException("forced failure");
+        }).subscribe(ts);
+        
+        ts.assertNoValues()
+        .assertError(RuntimeException.class)
+        .assertErrorMessage("forced failure");
+    }
+
+    @Test
+    public void cancelCancelsAllInners() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        DirectProcessor<Integer> dp1 = new DirectProcessor<>();
+        DirectProcessor<Integer> dp2 = new DirectProcessor<>();
+        
+        Px.fromArray(dp1, dp2).concatMapEager(v -> v).subscribe(ts);
+        
+        Assert.assertTrue(dp1.hasDownstreams());
+        Assert.assertTrue(dp2.hasDownstreams());
+        
+        ts.cancel();
+        
+        Assert.assertFalse(dp1.hasDownstreams());
+        Assert.assertFalse(dp2.hasDownstreams());
+    }
+
+    @Test
+    public void asyncInnersKeepOrder() {
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            Scheduler scheduler = new ExecutorServiceScheduler(exec);
+            
+            TestSubscriber<Integer> ts = new TestSubscriber<>();
+            
+            Px.range(0, 100).concatMapEager(v -> Px.range(v * 100, 100).subscribeOn(scheduler), 8, 16)
+            .subscribe(ts);
+            
+            ts.assertTerminated(5, TimeUnit.SECONDS);
+            
+            ts.assertValueCount(10_000)
+            .assertNoError()
+            .assertComplete();
+            
+            List<Integer> list = ts.values();
+            for (int i = 0; i < 10_000; i++) {
+                Assert.assertEquals(i, list.get(i).intValue());
+            }
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+}
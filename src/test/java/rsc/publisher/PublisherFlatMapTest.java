@@ -22,6 +22,7 @@ public class PublisherFlatMapTest {
         ctb.addRef("source", PublisherNever.instance());
         ctb.addRef("mapper", (Function<Object, Publisher<Object>>)v -> PublisherNever.instance());
         ctb.addInt("prefetch", 1, Integer.MAX_VALUE);
+        ctb.addInt("minPrefetch", 1, Integer.MAX_VALUE);
         ctb.addInt("maxConcurrency", 1, Integer.MAX_VALUE);
         ctb.addRef("mainQueueSupplier", (Supplier<Queue<Object>>)() -> new ConcurrentLinkedQueue<>());
         ctb.addRef("innerQueueSupplier", (Supplier<Queue<Object>>)() -> new ConcurrentLinkedQueue<>());
@@ -726,4 +727,191 @@ public class PublisherFlatMapTest {
         }
     }
 
+    @Test
+    public void adaptivePrefetch() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(0, 100).flatMap(v -> Px.range(v * 1000, 1000).hide(), false, 4, 8, 128)
+        .subscribe(ts);
+
+        ts.assertValueCount(100_000)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void adaptivePrefetchBackpressured() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+        ConcurrentLinkedQueue<Long> requests = new ConcurrentLinkedQueue<>();
+
+        Px.range(0, 10).flatMap(v -> Px.range(v * 1000, 1000).hide().doOnRequest(requests::add), false, 1, 8, 128)
+        .subscribe(ts);
+
+        ts.assertNoValues();
+        Assert.assertEquals((Long)8L, requests.peek());
+
+        for (int i = 0; i < 100; i++) {
+            ts.request(100);
+        }
+
+        ts.assertValueCount(10_000)
+        .assertNoError()
+        .assertComplete();
+
+        for (Long n : requests) {
+            Assert.assertTrue("" + n, n > 0L && n <= 128L);
+        }
+    }
+
+    @Test
+    public void adaptivePrefetchAsync() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Scheduler s = new ExecutorServiceScheduler(ForkJoinPool.commonPool());
+
+        Px.range(0, 100).flatMap(v -> Px.range(v * 1000, 1000).hide().subscribeOn(s), false, 4, 8, 128)
+        .subscribe(ts);
+
+        ts.await(5, TimeUnit.SECONDS);
+
+        ts.assertValueCount(100_000)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void syncInnersEmittedDirectly() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(0, 1000).flatMap(v -> Px.range(v * 3, 3)).subscribe(ts);
+
+        ts.assertValueCount(3000)
+        .assertNoError()
+        .assertComplete();
+
+        List<Integer> list = ts.values();
+        for (int i = 0; i < 3000; i++) {
+            Assert.assertEquals(i, list.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void syncInnersRemainderQueued() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+
+        Px.range(0, 100).flatMap(v -> Px.fromArray(v * 3, v * 3 + 1, v * 3 + 2)).subscribe(ts);
+
+        ts.assertNoValues();
+
+        for (int i = 0; i < 43; i++) {
+            ts.request(7);
+        }
+
+        ts.assertValueCount(300)
+        .assertNoError()
+        .assertComplete();
+
+        Set<Integer> set = new HashSet<>(ts.values());
+        Assert.assertEquals(300, set.size());
+    }
+
+    @Test
+    public void syncInnersMaxConcurrency() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(0, 1000).flatMap(v -> Px.fromIterable(Arrays.asList(v, v)), false, 2).subscribe(ts);
+
+        ts.assertValueCount(2000)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void syncInnerPollCrash() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(1, 10).flatMap(v -> Px.fromIterable(() -> new Iterator<Integer>() {
+            int count;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (++count == 2) {
+                    throw new RuntimeException("forced failure");
+                }
+                return count;
+            }
+        })).subscribe(ts);
+
+        ts.assertValues(1)
+        .assertError(RuntimeException.class)
+        .assertErrorMessage("forced failure")
+        .assertNotComplete();
+    }
+
+    @Test
+    public void syncAndAsyncInnersMixed() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Scheduler s = new ExecutorServiceScheduler(ForkJoinPool.commonPool());
+
+        Px.range(0, 1000).flatMap(v -> (v & 1) == 0 ? Px.range(v, 10) : Px.range(v, 10).subscribeOn(s))
+        .subscribe(ts);
+
+        ts.await(5, TimeUnit.SECONDS);
+
+        ts.assertValueCount(10_000)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void syncInnerSubscribeRequestRace() throws Exception {
+        
+        Scheduler s = new SingleScheduler();
+        
+        for (int i = 0; i < 500; i++) {
+            
+            Px<Integer> source = Px.range(0, 1000).hide().flatMap(v -> Px.range(v * 2, 2), false, 2);
+            
+            TestSubscriber<Integer> ts = new TestSubscriber<>(0L);
+            
+            TestHelper.race(() -> source.subscribe(ts), () -> {
+                for (int j = 0; j < 2000; j++) {
+                    ts.request(1);
+                }
+            }, s);
+            
+            if (!ts.await(5, TimeUnit.SECONDS)) {
+                ts.cancel();
+                throw new TimeoutException();
+            }
+            
+            ts.assertValueCount(2000)
+            .assertNoError()
+            .assertComplete();
+            
+            Assert.assertEquals(2000, new HashSet<>(ts.values()).size());
+        }
+    }
+
+    @Test
+    public void syncInnerSubscriberReused() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        Set<Object> inners = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Px.range(0, 100).flatMap(v -> (Publisher<Integer>)s -> {
+            inners.add(s);
+            Px.range(v * 3, 3).subscribe(s);
+        }).subscribe(ts);
+
+        ts.assertValueCount(300)
+        .assertNoError()
+        .assertComplete();
+
+        // each inner completed within its subscribe call, thus the same instance serves them all
+        Assert.assertEquals(1, inners.size());
+    }
 }
@@ -1,5 +1,7 @@
 package rsc.publisher;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -9,7 +11,9 @@ import org.junit.Test;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
+import rsc.processor.DirectProcessor;
 import rsc.publisher.PublisherConcatMap.ErrorMode;
+import rsc.scheduler.VirtualTimeScheduler;
 import rsc.subscriber.SubscriptionHelper;
 import rsc.test.TestSubscriber;
 import rsc.util.ConstructorTestBuilder;
@@ -27,6 +31,10 @@ public class PublisherGroupByTest {
         ctb.addRef("mainQueueSupplier", Px.defaultQueueSupplier(1));
         ctb.addRef("groupQueueSupplier", Px.defaultQueueSupplier(1));
         ctb.addInt("prefetch", 1, Integer.MAX_VALUE);
+        ctb.addInt("maxGroups", 1, Integer.MAX_VALUE);
+        ctb.addLong("maxIdle", 1, Long.MAX_VALUE);
+        ctb.addRef("unit", TimeUnit.SECONDS);
+        ctb.addRef("timer", new VirtualTimeScheduler());
         
         ctb.test();
     }
@@ -640,4 +648,134 @@ public class PublisherGroupByTest {
         .assertNoError();
     }
 
+    @Test
+    public void maxGroupsEvictsLeastRecentlyUsed() {
+        TestSubscriber<List<Integer>> ts = new TestSubscriber<>();
+        
+        Px.fromArray(1, 2, 1, 3, 4, 1).groupBy(k -> k, v -> v, 2)
+        .flatMap(g -> g.buffer(Integer.MAX_VALUE)).subscribe(ts);
+        
+        ts.assertValues(Arrays.asList(2), Arrays.asList(1, 1), Arrays.asList(3), Arrays.asList(4), Arrays.asList(1))
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void maxGroupsManyKeys() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        Px.range(0, 10_000).groupBy(k -> k % 1000, v -> v, 16)
+        .flatMap(g -> g, false, 16).subscribe(ts);
+        
+        ts.assertValueCount(10_000)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void idleGroupsComplete() {
+        VirtualTimeScheduler vts = new VirtualTimeScheduler();
+        DirectProcessor<Integer> dp = new DirectProcessor<>();
+        TestSubscriber<List<Integer>> ts = new TestSubscriber<>();
+        
+        dp.groupBy(k -> k, v -> v, Integer.MAX_VALUE, 10, TimeUnit.SECONDS, vts)
+        .flatMap(g -> g.buffer(Integer.MAX_VALUE)).subscribe(ts);
+        
+        dp.onNext(1);
+        dp.onNext(2);
+        
+        vts.advanceTimeBy(6, TimeUnit.SECONDS);
+        
+        dp.onNext(1);
+        
+        ts.assertNoValues();
+        
+        vts.advanceTimeBy(4, TimeUnit.SECONDS);
+        
+        ts.assertValues(Arrays.asList(2));
+        
+        vts.advanceTimeBy(10, TimeUnit.SECONDS);
+        
+        ts.assertValues(Arrays.asList(2), Arrays.asList(1, 1));
+        
+        dp.onNext(2);
+        dp.onComplete();
+        
+        ts.assertValues(Arrays.asList(2), Arrays.asList(1, 1), Arrays.asList(2))
+        .assertNoError()
+        .assertComplete();
+        
+        Assert.assertEquals(0, vts.pendingTasks());
+    }
+
+    @Test
+    public void idleGroupCompletedOutsideOfLocks() throws Exception {
+        VirtualTimeScheduler vts = new VirtualTimeScheduler();
+        DirectProcessor<Integer> dp = new DirectProcessor<>();
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        
+        boolean[] emitted = { false };
+        
+        dp.groupBy(k -> k, v -> v, Integer.MAX_VALUE, 10, TimeUnit.SECONDS, vts)
+        .flatMap(g -> g.doOnComplete(() -> {
+            if (g.key() == 1) {
+                // the upstream emitting from another thread must not wait for the idle check
+                Thread t = new Thread(() -> dp.onNext(2));
+                t.start();
+                try {
+                    t.join(5000);
+                } catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+                emitted[0] = !t.isAlive();
+            }
+        })).subscribe(ts);
+        
+        dp.onNext(1);
+        
+        vts.advanceTimeBy(10, TimeUnit.SECONDS);
+        
+        Assert.assertTrue("Upstream blocked", emitted[0]);
+        
+        dp.onComplete();
+        
+        ts.assertValues(1, 2)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void idleCheckStopsOnCancel() {
+        VirtualTimeScheduler vts = new VirtualTimeScheduler();
+        DirectProcessor<Integer> dp = new DirectProcessor<>();
+        TestSubscriber<GroupedPublisher<Integer, Integer>> ts = new TestSubscriber<>();
+        
+        dp.groupBy(k -> k, v -> v, Integer.MAX_VALUE, 10, TimeUnit.SECONDS, vts).subscribe(ts);
+        
+        Assert.assertEquals(1, vts.pendingTasks());
+        
+        ts.cancel();
+        
+        Assert.assertEquals(0, vts.pendingTasks());
+        Assert.assertFalse("dp has subscribers?", dp.hasDownstreams());
+    }
+
+    @Test
+    public void idleGroupsOnError() {
+        VirtualTimeScheduler vts = new VirtualTimeScheduler();
+        DirectProcessor<Integer> dp = new DirectProcessor<>();
+        TestSubscriber<GroupedPublisher<Integer, Integer>> ts = new TestSubscriber<>();
+        
+        dp.groupBy(k -> k % 2, v -> v, 1, 10, TimeUnit.SECONDS, vts).subscribe(ts);
+        
+        dp.onNext(1);
+        dp.onNext(2);
+        dp.onError(new RuntimeException("forced failure"));
+        
+        ts.assertValueCount(2)
+        .assertError(RuntimeException.class)
+        .assertErrorMessage("forced failure");
+        
+        Assert.assertEquals(0, vts.pendingTasks());
+    }
 }
@@ -1,5 +1,6 @@
 package rsc.publisher;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -33,6 +34,7 @@ public class PublisherObserveOnTest {
         ctb.addRef("executor", exec);
         ctb.addRef("scheduler", new ExecutorServiceScheduler(ForkJoinPool.commonPool()));
         ctb.addInt("prefetch", 1, Integer.MAX_VALUE);
+        ctb.addInt("minPrefetch", 1, Integer.MAX_VALUE);
         ctb.addRef("queueSupplier", Px.defaultQueueSupplier(Integer.MAX_VALUE));
         
         ctb.test();
@@ -863,4 +865,109 @@ public class PublisherObserveOnTest {
         }
     }
 
+    @Test
+    public void offHeapRecords() {
+        TestSubscriber<Long> ts = new TestSubscriber<>();
+        
+        Px.range(1, 1_000_000).map(v -> (long)v).hide()
+        .observeOn(new ExecutorServiceScheduler(exec), true, 1024, SpscRecordQueueTest.LONG_CODEC)
+        .subscribe(ts);
+        
+        ts.await(5, TimeUnit.SECONDS);
+        
+        ts.assertValueCount(1_000_000)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void adaptivePrefetch() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+        ConcurrentLinkedQueue<Long> requests = new ConcurrentLinkedQueue<>();
+
+        Px.range(1, 100_000).hide()
+        .doOnRequest(requests::add)
+        .observeOn(new ExecutorServiceScheduler(exec), true, 16, 256)
+        .subscribe(ts);
+
+        ts.await(5, TimeUnit.SECONDS);
+
+        ts.assertValueCount(100_000)
+        .assertNoError()
+        .assertComplete();
+
+        Assert.assertEquals((Long)16L, requests.poll());
+        for (Long n : requests) {
+            Assert.assertTrue("" + n, n > 0L && n <= 256L);
+        }
+    }
+
+    @Test
+    public void adaptivePrefetchConditional() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(1, 100_000).hide()
+        .observeOn(new ExecutorServiceScheduler(exec), true, 16, 256)
+        .filter(v -> (v & 1) == 0)
+        .subscribe(ts);
+
+        ts.await(5, TimeUnit.SECONDS);
+
+        ts.assertValueCount(50_000)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void adaptivePrefetchOutputFused() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(1, 100_000).hide()
+        .observeOn(new ExecutorServiceScheduler(exec), true, 16, 256)
+        .observeOn(new ExecutorServiceScheduler(ForkJoinPool.commonPool()))
+        .subscribe(ts);
+
+        ts.await(5, TimeUnit.SECONDS);
+
+        ts.assertValueCount(100_000)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void recordCodecFuseableSource() {
+        AtomicInteger writes = new AtomicInteger();
+        RecordCodec<Integer> codec = new RecordCodec<Integer>() {
+            @Override
+            public int recordSize() {
+                return 4;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, Integer value) {
+                writes.getAndIncrement();
+                buffer.putInt(offset, value);
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer, int offset) {
+                return buffer.getInt(offset);
+            }
+        };
+
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(1, 1000)
+        .observeOn(new ExecutorServiceScheduler(exec), false, 16, codec)
+        .subscribe(ts);
+
+        ts.await(5, TimeUnit.SECONDS);
+
+        ts.assertValueCount(1000)
+        .assertNoError()
+        .assertComplete();
+
+        // the values went through the record buffer instead of being polled from range
+        Assert.assertEquals(1000, writes.get());
+    }
 }
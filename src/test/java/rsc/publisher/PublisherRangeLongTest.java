@@ -0,0 +1,76 @@
+package rsc.publisher;
+
+import org.junit.Test;
+
+import rsc.scheduler.ImmediateScheduler;
+import rsc.test.TestSubscriber;
+
+public class PublisherRangeLongTest {
+
+    @Test
+    public void normal() {
+        TestSubscriber<Long> ts = new TestSubscriber<>();
+
+        new PublisherRangeLong(1, 5).subscribe(ts);
+
+        ts
+          .assertNoError()
+          .assertValues(1L, 2L, 3L, 4L, 5L)
+          .assertComplete();
+    }
+
+    @Test
+    public void normalBackpressured() {
+        TestSubscriber<Long> ts = new TestSubscriber<>(0);
+
+        new PublisherRangeLong(1, 5).subscribe(ts);
+
+        ts
+          .assertNoError()
+          .assertNoValues()
+          .assertNotComplete();
+
+        ts.request(2);
+
+        ts
+          .assertNoError()
+          .assertValues(1L, 2L)
+          .assertNotComplete();
+
+        ts.request(10);
+
+        ts
+          .assertNoError()
+          .assertValues(1L, 2L, 3L, 4L, 5L)
+          .assertComplete();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void countIsNegative() {
+        new PublisherRangeLong(1, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeOverflow() {
+        new PublisherRangeLong(2, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void normalNearMaxValue() {
+        TestSubscriber<Long> ts = new TestSubscriber<>();
+
+        new PublisherRangeLong(Long.MAX_VALUE - 1, 2).subscribe(ts);
+
+        ts
+          .assertNoError()
+          .assertValues(Long.MAX_VALUE - 1, Long.MAX_VALUE)
+          .assertComplete();
+    }
+
+    @Test
+    public void fused() {
+        Px.rangeLong(1, 5).observeOn(ImmediateScheduler.instance())
+        .test()
+        .assertResult(1L, 2L, 3L, 4L, 5L);
+    }
+}
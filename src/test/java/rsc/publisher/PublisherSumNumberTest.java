@@ -1,6 +1,10 @@
 package rsc.publisher;
 
 import org.junit.Test;
+import org.reactivestreams.Subscriber;
+
+import rsc.flow.Fuseable;
+import rsc.test.TestSubscriber;
 
 public class PublisherSumNumberTest {
 
@@ -44,4 +48,99 @@ public class PublisherSumNumberTest {
         Px.empty().maxInt().test().assertResult();
     }
 
+    @Test
+    public void normalHidden() {
+        Px.range(1, 10).hide().sumInt().test().assertResult(55);
+    }
+
+    @Test
+    public void minNormalHidden() {
+        Px.range(1, 10).hide().minInt().test().assertResult(1);
+    }
+
+    @Test
+    public void maxNormalHidden() {
+        Px.range(1, 10).hide().maxInt().test().assertResult(10);
+    }
+
+    @Test
+    public void normalBackpressured() {
+        TestSubscriber<Integer> ts = Px.range(1, 10).sumInt().test(0);
+        
+        ts.assertNoValues().assertNotComplete();
+        
+        ts.request(1);
+        
+        ts.assertResult(55);
+    }
+
+    @Test
+    public void rangeLong() {
+        Px.rangeLong(1, 10).sumLong().test().assertResult(55L);
+    }
+
+    @Test
+    public void rangeLongHidden() {
+        Px.rangeLong(1, 10).hide().sumLong().test().assertResult(55L);
+    }
+
+    @Test
+    public void longFusedPollsUnboxed() {
+        // poll() fails, thus the result can only come from pollLong()
+        Px<Long> source = new Px<Long>() {
+            @Override
+            public void subscribe(Subscriber<? super Long> s) {
+                s.onSubscribe(new UnboxedOnlySubscription(1, 11));
+            }
+        };
+        
+        source.sumLong().test().assertResult(55L);
+    }
+    
+    static final class UnboxedOnlySubscription 
+    implements Fuseable.SynchronousSubscription<Long>, Fuseable.LongQueueSubscription {
+        final long end;
+        
+        long index;
+        
+        UnboxedOnlySubscription(long start, long end) {
+            this.index = start;
+            this.end = end;
+        }
+
+        @Override
+        public long pollLong() {
+            return index++;
+        }
+
+        @Override
+        public Long poll() {
+            throw new IllegalStateException("boxed poll");
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return index == end;
+        }
+
+        @Override
+        public void clear() {
+            index = end;
+        }
+
+        @Override
+        public int size() {
+            return (int)(end - index);
+        }
+
+        @Override
+        public void request(long n) {
+            throw new IllegalStateException("not fused");
+        }
+
+        @Override
+        public void cancel() {
+            // no-op
+        }
+    }
 }
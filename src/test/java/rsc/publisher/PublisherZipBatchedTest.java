@@ -0,0 +1,233 @@
+package rsc.publisher;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import org.junit.*;
+import org.reactivestreams.Publisher;
+
+import rsc.processor.DirectProcessor;
+import rsc.test.TestSubscriber;
+import rsc.util.ConstructorTestBuilder;
+
+public class PublisherZipBatchedTest {
+
+    @Test
+    public void constructors() {
+        ConstructorTestBuilder ctb = new ConstructorTestBuilder(PublisherZipBatched.class);
+
+        ctb.addRef("sources", new Publisher[0]);
+        ctb.addInt("maxBatch", 1, Integer.MAX_VALUE);
+        ctb.addRef("queueSupplier", (Supplier<Queue<Object>>)() -> new ConcurrentLinkedQueue<>());
+        ctb.addInt("prefetch", 1, Integer.MAX_VALUE);
+
+        ctb.test();
+    }
+
+    static List<Integer> rowSums(List<Object[][]> batches) {
+        List<Integer> list = new ArrayList<>();
+        for (Object[][] b : batches) {
+            int rows = b[0].length;
+            for (int i = 0; i < rows; i++) {
+                int sum = 0;
+                for (Object[] col : b) {
+                    Assert.assertEquals(rows, col.length);
+                    sum += (Integer)col[i];
+                }
+                list.add(sum);
+            }
+        }
+        return list;
+    }
+
+    @Test
+    public void normal() {
+        TestSubscriber<Object[][]> ts = new TestSubscriber<>();
+
+        Px.zipBatched(4, Px.range(1, 10), Px.range(11, 10), Px.fromIterable(Arrays.asList(21, 22, 23, 24, 25, 26, 27, 28, 29, 30)))
+        .subscribe(ts);
+
+        ts.assertValueCount(3)
+        .assertNoError()
+        .assertComplete();
+
+        Assert.assertEquals(4, ts.values().get(0)[0].length);
+        Assert.assertEquals(4, ts.values().get(1)[0].length);
+        Assert.assertEquals(2, ts.values().get(2)[0].length);
+
+        Assert.assertEquals(Arrays.asList(33, 36, 39, 42, 45, 48, 51, 54, 57, 60), rowSums(ts.values()));
+    }
+
+    @Test
+    public void columnLayout() {
+        TestSubscriber<Object[][]> ts = new TestSubscriber<>();
+
+        Px.zipBatched(8, Px.fromArray(1, 2, 3), Px.fromArray("a", "b", "c")).subscribe(ts);
+
+        ts.assertValueCount(1)
+        .assertComplete();
+
+        Object[][] b = ts.values().get(0);
+        Assert.assertArrayEquals(new Object[] { 1, 2, 3 }, b[0]);
+        Assert.assertArrayEquals(new Object[] { "a", "b", "c" }, b[1]);
+    }
+
+    @Test
+    public void shorterSourceTruncates() {
+        TestSubscriber<Object[][]> ts = new TestSubscriber<>();
+
+        Px.zipBatched(16, Px.range(1, 100), Px.range(1, 5)).subscribe(ts);
+
+        ts.assertValueCount(1)
+        .assertNoError()
+        .assertComplete();
+
+        Assert.assertEquals(5, ts.values().get(0)[0].length);
+    }
+
+    @Test
+    public void backpressured() {
+        TestSubscriber<Object[][]> ts = new TestSubscriber<>(0);
+
+        Px.zipBatched(5, Px.range(0, 23), Px.range(0, 23)).subscribe(ts);
+
+        ts.assertNoValues()
+        .assertNotComplete();
+
+        ts.request(2);
+
+        ts.assertValueCount(2)
+        .assertNotComplete();
+
+        ts.request(3);
+
+        ts.assertValueCount(5)
+        .assertNoError()
+        .assertComplete();
+
+        Assert.assertEquals(3, ts.values().get(4)[0].length);
+        Assert.assertEquals(23, rowSums(ts.values()).size());
+    }
+
+    @Test
+    public void partialBatchesFromHotSources() {
+        TestSubscriber<Object[][]> ts = new TestSubscriber<>();
+
+        DirectProcessor<Integer> dp1 = new DirectProcessor<>();
+        DirectProcessor<Integer> dp2 = new DirectProcessor<>();
+
+        Px.zipBatched(4, dp1, dp2).subscribe(ts);
+
+        dp1.onNext(1);
+        dp1.onNext(2);
+
+        ts.assertNoValues();
+
+        dp2.onNext(10);
+
+        ts.assertValueCount(1);
+        Assert.assertEquals(Arrays.asList(11), rowSums(ts.values()));
+
+        dp2.onNext(20);
+        dp2.onNext(30);
+
+        Assert.assertEquals(Arrays.asList(11, 22), rowSums(ts.values()));
+
+        dp1.onNext(3);
+        dp1.onComplete();
+
+        Assert.assertEquals(Arrays.asList(11, 22, 33), rowSums(ts.values()));
+        ts.assertNoError()
+        .assertComplete();
+
+        Assert.assertFalse("dp2 has subscribers?", dp2.hasDownstreams());
+    }
+
+    @Test
+    public void error() {
+        TestSubscriber<Object[][]> ts = new TestSubscriber<>();
+
+        Px.zipBatched(4, Px.range(1, 10), Px.<Integer>error(new RuntimeException("forced failure"))).subscribe(ts);
+
+        ts.assertNoValues()
+        .assertError(RuntimeException.class)
+        .assertErrorMessage("forced failure")
+        .assertNotComplete();
+    }
+
+    @Test
+    public void emptySource() {
+        TestSubscriber<Object[][]> ts = new TestSubscriber<>();
+
+        Px.zipBatched(4, Px.range(1, 10), Px.<Integer>empty()).subscribe(ts);
+
+        ts.assertNoValues()
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void noSources() {
+        TestSubscriber<Object[][]> ts = new TestSubscriber<>();
+
+        Px.<Integer>zipBatched(4).subscribe(ts);
+
+        ts.assertNoValues()
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void longSources() {
+        TestSubscriber<Object[][]> ts = new TestSubscriber<>();
+
+        Px.zipBatched(64, 16, Px.range(0, 10_000).hide(), Px.range(0, 10_000), Px.range(0, 10_000).hide())
+        .subscribe(ts);
+
+        ts.assertNoError()
+        .assertComplete();
+
+        List<Integer> sums = rowSums(ts.values());
+        Assert.assertEquals(10_000, sums.size());
+        for (int i = 0; i < 10_000; i++) {
+            Assert.assertEquals(3 * i, sums.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void hugeMaxBatch() {
+        TestSubscriber<Object[][]> ts = new TestSubscriber<>();
+
+        Px.zipBatched(Integer.MAX_VALUE, Px.range(0, 1000), Px.range(0, 1000).hide(), Px.range(0, 1000))
+        .subscribe(ts);
+
+        ts.assertNoError()
+        .assertComplete();
+
+        List<Integer> sums = rowSums(ts.values());
+        Assert.assertEquals(1000, sums.size());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(3 * i, sums.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void columnsStartSmall() {
+        Supplier<Queue<Object>> qs = () -> new ConcurrentLinkedQueue<>();
+
+        PublisherZipBatched.PublisherZipBatchedCoordinator<Object> big =
+                new PublisherZipBatched.PublisherZipBatchedCoordinator<>(new TestSubscriber<>(), 5, Integer.MAX_VALUE, qs, 16);
+
+        for (Object[] col : big.columns) {
+            Assert.assertEquals(PublisherZipBatched.PublisherZipBatchedCoordinator.INITIAL_COLUMN, col.length);
+        }
+
+        PublisherZipBatched.PublisherZipBatchedCoordinator<Object> small =
+                new PublisherZipBatched.PublisherZipBatchedCoordinator<>(new TestSubscriber<>(), 5, 4, qs, 16);
+
+        for (Object[] col : small.columns) {
+            Assert.assertEquals(4, col.length);
+        }
+    }
+}
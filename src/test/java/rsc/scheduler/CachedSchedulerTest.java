@@ -99,4 +99,80 @@ public class CachedSchedulerTest {
         
         Assert.assertEquals(threadName[0], threadName[1]);
     }
+    
+    @Test
+    public void boundedSharesThreadPools() throws Exception {
+        CachedScheduler bounded = new CachedScheduler(CachedScheduler.THREAD_FACTORY_DAEMON, 60, 2, 1000);
+        try {
+            int n = 10;
+            CountDownLatch cdl = new CountDownLatch(n);
+            Worker[] workers = new Worker[n];
+            
+            for (int i = 0; i < n; i++) {
+                workers[i] = bounded.createWorker();
+                Assert.assertNotSame(Scheduler.REJECTED, workers[i].schedule(cdl::countDown));
+            }
+            
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(2, bounded.threadCount());
+            
+            for (Worker w : workers) {
+                w.shutdown();
+            }
+            Assert.assertEquals(2, bounded.cache.size());
+        } finally {
+            bounded.shutdown();
+        }
+    }
+    
+    @Test
+    public void boundedRejectsOverflow() throws Exception {
+        CachedScheduler bounded = new CachedScheduler(CachedScheduler.THREAD_FACTORY_DAEMON, 60, 1, 1);
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        Worker w = bounded.createWorker();
+        try {
+            w.schedule(() -> {
+                running.countDown();
+                try {
+                    block.await();
+                } catch (InterruptedException ex) {
+                    // ignored
+                }
+            });
+            Assert.assertTrue(running.await(5, TimeUnit.SECONDS));
+            
+            Assert.assertNotSame(Scheduler.REJECTED, w.schedule(() -> { }));
+            Assert.assertSame(Scheduler.REJECTED, w.schedule(() -> { }));
+            Assert.assertSame(Scheduler.REJECTED, bounded.schedule(() -> { }));
+        } finally {
+            block.countDown();
+            w.shutdown();
+            bounded.shutdown();
+        }
+    }
+    
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+        CachedScheduler s = new CachedScheduler(CachedScheduler.THREAD_FACTORY_DAEMON, 1);
+        try {
+            Worker w1 = s.createWorker();
+            Worker w2 = s.createWorker();
+            
+            w1.shutdown();
+            Thread.sleep(1100);
+            w2.shutdown();
+            
+            s.eviction();
+            
+            Assert.assertEquals(1, s.threadCount());
+            Assert.assertSame(((CachedScheduler.CachedWorker)w2).cached, s.cache.peekFirst().executor);
+            
+            Worker w3 = s.createWorker();
+            Assert.assertSame(((CachedScheduler.CachedWorker)w2).cached, ((CachedScheduler.CachedWorker)w3).cached);
+            w3.shutdown();
+        } finally {
+            s.shutdown();
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package rsc.scheduler;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import rsc.scheduler.TimedScheduler.TimedWorker;
+
+public class ClockTest {
+
+    @Test
+    public void monotonic() {
+        Clock c = Clock.monotonic();
+        long t0 = c.now(TimeUnit.NANOSECONDS);
+        for (int i = 0; i < 1000; i++) {
+            long t1 = c.now(TimeUnit.NANOSECONDS);
+            Assert.assertTrue(t1 >= t0);
+            t0 = t1;
+        }
+    }
+
+    @Test
+    public void wallIsDefault() {
+        TimedScheduler s = new ExecutorTimedScheduler(Executors.newSingleThreadScheduledExecutor());
+        try {
+            long t0 = System.currentTimeMillis();
+            long t = s.now(TimeUnit.MILLISECONDS);
+            long t1 = System.currentTimeMillis();
+
+            Assert.assertTrue(t >= t0 && t <= t1);
+        } finally {
+            ((ExecutorTimedScheduler)s).executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testClock() {
+        TestClock c = new TestClock(1, TimeUnit.SECONDS);
+
+        Assert.assertEquals(1000, c.now(TimeUnit.MILLISECONDS));
+
+        c.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(1500, c.now(TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, c.now(TimeUnit.SECONDS));
+
+        c.advanceTimeTo(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(10_000_000_000L, c.now(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void cachedClock() throws Exception {
+        TestClock source = new TestClock();
+        CachedClock c = new CachedClock(source, 1, TimeUnit.MILLISECONDS);
+        try {
+            source.advanceTimeBy(5, TimeUnit.SECONDS);
+
+            for (int i = 0; i < 1000 && c.now(TimeUnit.SECONDS) != 5; i++) {
+                Thread.sleep(1);
+            }
+
+            Assert.assertEquals(5, c.now(TimeUnit.SECONDS));
+        } finally {
+            c.dispose();
+        }
+
+        source.advanceTimeBy(5, TimeUnit.SECONDS);
+        Thread.sleep(10);
+
+        Assert.assertEquals(5, c.now(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void schedulersUseClock() {
+        TestClock c = new TestClock(42, TimeUnit.SECONDS);
+
+        SingleTimedScheduler single = new SingleTimedScheduler(SingleTimedScheduler.THREAD_FACTORY_DAEMON, c);
+        HashedWheelTimedScheduler wheel = new HashedWheelTimedScheduler(1, TimeUnit.MILLISECONDS, 16,
+                HashedWheelTimedScheduler.THREAD_FACTORY_DAEMON, c);
+        try {
+            for (TimedScheduler s : new TimedScheduler[] { single, wheel }) {
+                Assert.assertEquals(42, s.now(TimeUnit.SECONDS));
+
+                TimedWorker w = s.createWorker();
+                try {
+                    Assert.assertEquals(42, w.now(TimeUnit.SECONDS));
+                    Assert.assertEquals(42, new CompositeTimedWorker(w).now(TimeUnit.SECONDS));
+                } finally {
+                    w.shutdown();
+                }
+            }
+        } finally {
+            single.shutdown();
+            wheel.shutdown();
+        }
+    }
+}
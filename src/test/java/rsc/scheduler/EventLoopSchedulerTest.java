@@ -0,0 +1,208 @@
+package rsc.scheduler;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+import rsc.flow.Disposable;
+import rsc.publisher.Px;
+import rsc.scheduler.TimedScheduler.TimedWorker;
+import rsc.test.TestSubscriber;
+
+public class EventLoopSchedulerTest {
+
+    EventLoopScheduler scheduler;
+
+    @Before
+    public void before() {
+        scheduler = new EventLoopScheduler(2, true);
+    }
+
+    @After
+    public void after() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void workerFifo() throws Exception {
+        Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+
+        CountDownLatch cdl = new CountDownLatch(1);
+
+        int n = 10_000;
+
+        TimedWorker worker = scheduler.createWorker();
+        try {
+            for (int i = 0; i < n; i++) {
+                int j = i;
+                worker.schedule(() -> queue.offer(j));
+            }
+            worker.schedule(cdl::countDown);
+
+            if (!cdl.await(5, TimeUnit.SECONDS)) {
+                Assert.fail("Timeout " + queue.size());
+            }
+
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(i, queue.poll().intValue());
+            }
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void delayedOrder() throws Exception {
+        Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+
+        CountDownLatch cdl = new CountDownLatch(4);
+
+        TimedWorker worker = scheduler.createWorker();
+        try {
+            worker.schedule(() -> { queue.offer(3); cdl.countDown(); }, 60, TimeUnit.MILLISECONDS);
+            worker.schedule(() -> { queue.offer(1); cdl.countDown(); }, 20, TimeUnit.MILLISECONDS);
+            worker.schedule(() -> { queue.offer(2); cdl.countDown(); }, 40, TimeUnit.MILLISECONDS);
+            worker.schedule(() -> { queue.offer(0); cdl.countDown(); });
+
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            Assert.assertEquals(Arrays.asList(0, 1, 2, 3), new ArrayList<>(queue));
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelDelayed() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+
+        List<Disposable> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(scheduler.schedule(counter::getAndIncrement, 20, TimeUnit.MILLISECONDS));
+        }
+        for (Disposable d : list) {
+            d.dispose();
+        }
+
+        CountDownLatch cdl = new CountDownLatch(2);
+        scheduler.schedule(cdl::countDown, 40, TimeUnit.MILLISECONDS);
+        scheduler.schedule(cdl::countDown, 40, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+        Assert.assertEquals(0, counter.get());
+    }
+
+    @Test
+    public void periodic() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        CountDownLatch cdl = new CountDownLatch(5);
+
+        Disposable d = scheduler.schedulePeriodically(() -> {
+            counter.getAndIncrement();
+            cdl.countDown();
+        }, 0, 3, TimeUnit.MILLISECONDS);
+
+        try {
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+        } finally {
+            d.dispose();
+        }
+
+        Thread.sleep(20);
+        int c = counter.get();
+        Thread.sleep(20);
+
+        Assert.assertEquals(c, counter.get());
+    }
+
+    @Test
+    public void workerCreatedOnLoopStaysOnLoop() throws Exception {
+        Thread[] threads = new Thread[2];
+        CountDownLatch cdl = new CountDownLatch(1);
+
+        TimedWorker worker = scheduler.createWorker();
+        try {
+            worker.schedule(() -> {
+                threads[0] = Thread.currentThread();
+                TimedWorker inner = scheduler.createWorker();
+                inner.schedule(() -> {
+                    threads[1] = Thread.currentThread();
+                    inner.shutdown();
+                    cdl.countDown();
+                });
+            });
+
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            Assert.assertSame(threads[0], threads[1]);
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void workerShutdownCancelsTasks() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+
+        TimedWorker worker = scheduler.createWorker();
+
+        worker.schedule(counter::getAndIncrement, 20, TimeUnit.MILLISECONDS);
+        worker.schedulePeriodically(counter::getAndIncrement, 20, 20, TimeUnit.MILLISECONDS);
+
+        worker.shutdown();
+
+        Assert.assertSame(Scheduler.REJECTED, worker.schedule(() -> { }));
+
+        Thread.sleep(60);
+
+        Assert.assertEquals(0, counter.get());
+    }
+
+    @Test
+    public void observeOnSubscribeOn() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(1, 1000).subscribeOn(scheduler).observeOn(scheduler).observeOn(scheduler).subscribe(ts);
+
+        ts.await(5, TimeUnit.SECONDS);
+
+        ts.assertValueCount(1000)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void rejectedAfterShutdown() {
+        scheduler.shutdown();
+
+        Assert.assertSame(Scheduler.REJECTED, scheduler.schedule(() -> { }));
+        Assert.assertSame(Scheduler.REJECTED, scheduler.schedule(() -> { }, 1, TimeUnit.SECONDS));
+        Assert.assertSame(Scheduler.REJECTED, scheduler.createWorker().schedule(() -> { }));
+    }
+
+    @Test
+    public void workerPeriodicHugeInitialDelay() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+
+        TimedWorker worker = scheduler.createWorker();
+        try {
+            worker.schedulePeriodically(counter::getAndIncrement, Long.MAX_VALUE, 1, TimeUnit.MILLISECONDS);
+
+            Thread.sleep(50);
+
+            Assert.assertEquals(0, counter.get());
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void startIsNoOp() {
+        scheduler.start();
+
+        Assert.assertNotSame(Scheduler.REJECTED, scheduler.schedule(() -> { }));
+    }
+}
@@ -0,0 +1,193 @@
+package rsc.scheduler;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+import rsc.flow.Disposable;
+import rsc.scheduler.TimedScheduler.TimedWorker;
+
+public class HashedWheelTimedSchedulerTest {
+
+    HashedWheelTimedScheduler scheduler;
+
+    @Before
+    public void before() {
+        scheduler = new HashedWheelTimedScheduler(1, TimeUnit.MILLISECONDS, 16, HashedWheelTimedScheduler.THREAD_FACTORY_DAEMON);
+    }
+
+    @After
+    public void after() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void workerFifo() throws Exception {
+        Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+
+        CountDownLatch cdl = new CountDownLatch(1);
+
+        int n = 10_000;
+
+        TimedWorker worker = scheduler.createWorker();
+        try {
+            for (int i = 0; i < n; i++) {
+                int j = i;
+                worker.schedule(() -> queue.offer(j));
+            }
+            worker.schedule(cdl::countDown);
+
+            if (!cdl.await(5, TimeUnit.SECONDS)) {
+                Assert.fail("Timeout " + queue.size());
+            }
+
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(i, queue.poll().intValue());
+            }
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void delayedOrder() throws Exception {
+        Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+
+        CountDownLatch cdl = new CountDownLatch(3);
+
+        // more than one turn of the 16 ms wheel
+        scheduler.schedule(() -> { queue.offer(3); cdl.countDown(); }, 60, TimeUnit.MILLISECONDS);
+        scheduler.schedule(() -> { queue.offer(1); cdl.countDown(); }, 5, TimeUnit.MILLISECONDS);
+        scheduler.schedule(() -> { queue.offer(2); cdl.countDown(); }, 25, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+        Assert.assertEquals(Arrays.asList(1, 2, 3), new ArrayList<>(queue));
+    }
+
+    @Test
+    public void delayIsRespected() throws Exception {
+        CountDownLatch cdl = new CountDownLatch(1);
+        long[] end = { 0L };
+
+        long start = System.nanoTime();
+        scheduler.schedule(() -> {
+            end[0] = System.nanoTime();
+            cdl.countDown();
+        }, 50, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+        Assert.assertTrue("" + (end[0] - start), end[0] - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+
+        List<Disposable> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(scheduler.schedule(counter::getAndIncrement, 20, TimeUnit.MILLISECONDS));
+        }
+        for (Disposable d : list) {
+            d.dispose();
+        }
+
+        CountDownLatch cdl = new CountDownLatch(1);
+        scheduler.schedule(cdl::countDown, 40, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+        Assert.assertEquals(0, counter.get());
+    }
+
+    @Test
+    public void periodic() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        CountDownLatch cdl = new CountDownLatch(5);
+
+        Disposable d = scheduler.schedulePeriodically(() -> {
+            counter.getAndIncrement();
+            cdl.countDown();
+        }, 0, 3, TimeUnit.MILLISECONDS);
+
+        try {
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+        } finally {
+            d.dispose();
+        }
+
+        Thread.sleep(20);
+        int c = counter.get();
+        Thread.sleep(20);
+
+        Assert.assertEquals(c, counter.get());
+    }
+
+    @Test
+    public void workerShutdownCancelsTasks() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+
+        TimedWorker worker = scheduler.createWorker();
+
+        worker.schedule(counter::getAndIncrement, 20, TimeUnit.MILLISECONDS);
+        worker.schedulePeriodically(counter::getAndIncrement, 20, 20, TimeUnit.MILLISECONDS);
+
+        worker.shutdown();
+
+        Assert.assertSame(Scheduler.REJECTED, worker.schedule(() -> { }));
+
+        Thread.sleep(60);
+
+        Assert.assertEquals(0, counter.get());
+    }
+
+    @Test
+    public void rejectedAfterShutdown() {
+        scheduler.shutdown();
+
+        Assert.assertSame(Scheduler.REJECTED, scheduler.schedule(() -> { }));
+        Assert.assertSame(Scheduler.REJECTED, scheduler.schedule(() -> { }, 1, TimeUnit.SECONDS));
+        Assert.assertSame(Scheduler.REJECTED, scheduler.createWorker().schedule(() -> { }));
+    }
+
+    @Test
+    public void periodicWheelSpan() throws Exception {
+        HashedWheelTimedScheduler hw = new HashedWheelTimedScheduler(10, TimeUnit.MILLISECONDS, 8, HashedWheelTimedScheduler.THREAD_FACTORY_DAEMON);
+        try {
+            Queue<Long> times = new ConcurrentLinkedQueue<>();
+            CountDownLatch cdl = new CountDownLatch(5);
+
+            // the period equals the wheel span: every run maps to the bucket being scanned
+            Disposable d = hw.schedulePeriodically(() -> {
+                times.offer(System.nanoTime());
+                cdl.countDown();
+            }, 20, 80, TimeUnit.MILLISECONDS);
+
+            try {
+                Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+            } finally {
+                d.dispose();
+            }
+
+            long prev = times.poll();
+            for (int i = 0; i < 4; i++) {
+                long t = times.poll();
+                long gap = TimeUnit.NANOSECONDS.toMillis(t - prev);
+                Assert.assertTrue("gap " + gap + " ms", gap >= 40 && gap < 150);
+                prev = t;
+            }
+        } finally {
+            hw.shutdown();
+        }
+    }
+
+    @Test
+    public void startIsNoOp() {
+        scheduler.start();
+
+        Assert.assertNotSame(Scheduler.REJECTED, scheduler.schedule(() -> { }));
+    }
+}
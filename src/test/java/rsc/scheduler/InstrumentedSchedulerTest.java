@@ -0,0 +1,109 @@
+package rsc.scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.*;
+
+import javax.management.ObjectName;
+
+import org.junit.*;
+
+import rsc.flow.Disposable;
+import rsc.scheduler.Scheduler.Worker;
+
+public class InstrumentedSchedulerTest {
+
+    @Test
+    public void noListenerPassesThrough() {
+        Scheduler actual = ImmediateScheduler.instance();
+        InstrumentedScheduler scheduler = new InstrumentedScheduler(actual);
+
+        Assert.assertSame(ImmediateScheduler.EMPTY, scheduler.schedule(() -> { }));
+        Assert.assertFalse(scheduler.createWorker() instanceof InstrumentedScheduler.InstrumentedWorker);
+    }
+
+    @Test
+    public void countsDirectAndWorkerTasks() {
+        SchedulerMetrics metrics = new SchedulerMetrics();
+        InstrumentedScheduler scheduler = new InstrumentedScheduler(ImmediateScheduler.instance(), metrics);
+
+        scheduler.schedule(() -> { });
+        scheduler.schedule(() -> { throw new IllegalStateException(); });
+
+        Worker w = scheduler.createWorker();
+        w.schedule(() -> { });
+
+        Assert.assertEquals(1, metrics.getWorkers());
+        Assert.assertEquals(1, metrics.workerSnapshots().get(0).submitted());
+
+        w.shutdown();
+
+        Assert.assertSame(Scheduler.REJECTED, w.schedule(() -> { }));
+
+        SchedulerMetrics.Snapshot s = metrics.snapshot();
+        Assert.assertEquals(4, s.submitted());
+        Assert.assertEquals(3, s.completed());
+        Assert.assertEquals(1, s.rejected());
+        Assert.assertEquals(0, s.queueDepth());
+        Assert.assertEquals(3, s.waitTime().count());
+        Assert.assertEquals(3, s.executionTime().count());
+        Assert.assertEquals(0, metrics.getWorkers());
+    }
+
+    @Test
+    public void queueDepthAndCancel() throws Exception {
+        SchedulerMetrics metrics = new SchedulerMetrics();
+        SingleScheduler actual = new SingleScheduler();
+        InstrumentedScheduler scheduler = new InstrumentedScheduler(actual, metrics);
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        try {
+            Worker w = scheduler.createWorker();
+            w.schedule(() -> {
+                running.countDown();
+                try {
+                    block.await();
+                } catch (InterruptedException ex) {
+                    // ignored
+                }
+            });
+            Assert.assertTrue(running.await(5, TimeUnit.SECONDS));
+
+            w.schedule(() -> { });
+            Disposable d = w.schedule(() -> { });
+
+            Assert.assertEquals(2, metrics.getQueueDepth());
+
+            d.dispose();
+
+            Assert.assertEquals(1, metrics.getQueueDepth());
+            Assert.assertEquals(1, metrics.getCancelled());
+
+            CountDownLatch done = new CountDownLatch(1);
+            w.schedule(done::countDown);
+            block.countDown();
+
+            Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(0, metrics.getQueueDepth());
+            Assert.assertTrue(metrics.getWaitTimeMax() > 0L);
+            w.shutdown();
+        } finally {
+            block.countDown();
+            actual.shutdown();
+        }
+    }
+
+    @Test
+    public void registerMBean() throws Exception {
+        SchedulerMetrics metrics = new SchedulerMetrics();
+        InstrumentedScheduler scheduler = new InstrumentedScheduler(ImmediateScheduler.instance(), metrics);
+        scheduler.schedule(() -> { });
+
+        Disposable d = metrics.registerMBean("test");
+        try {
+            ObjectName on = new ObjectName("rsc.scheduler:type=SchedulerMetrics,name=\"test\"");
+            Assert.assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(on, "Submitted"));
+        } finally {
+            d.dispose();
+        }
+    }
+}
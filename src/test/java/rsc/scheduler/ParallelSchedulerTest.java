@@ -75,4 +75,75 @@ public class ParallelSchedulerTest {
         }
     }
 
+    @Test
+    public void workStealingWorkerFifo() throws Exception {
+        ParallelScheduler ws = new ParallelScheduler(2, ParallelScheduler.THREAD_FACTORY_DAEMON, true);
+        try {
+            int n = 10_000;
+            int[] last = { -1 };
+            AtomicInteger outOfOrder = new AtomicInteger();
+            CountDownLatch cdl = new CountDownLatch(1);
+            
+            Scheduler.Worker w = ws.createWorker();
+            try {
+                for (int i = 0; i < n; i++) {
+                    int k = i;
+                    w.schedule(() -> {
+                        if (last[0] + 1 != k) {
+                            outOfOrder.getAndIncrement();
+                        }
+                        last[0] = k;
+                    });
+                }
+                w.schedule(cdl::countDown);
+                
+                Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+                Assert.assertEquals(0, outOfOrder.get());
+                Assert.assertEquals(n - 1, last[0]);
+            } finally {
+                w.shutdown();
+            }
+        } finally {
+            ws.shutdown();
+        }
+    }
+
+    @Test
+    public void workStealingSlowTaskDoesNotStallOtherWorkers() throws Exception {
+        ParallelScheduler ws = new ParallelScheduler(2, ParallelScheduler.THREAD_FACTORY_DAEMON, true);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            int m = 8;
+            CountDownLatch cdl = new CountDownLatch(m);
+            
+            Scheduler.Worker slow = ws.createWorker();
+            slow.schedule(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    // ignored
+                }
+            });
+            
+            for (int i = 0; i < m; i++) {
+                Scheduler.Worker w = ws.createWorker();
+                w.schedule(cdl::countDown);
+            }
+            
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+            
+            release.countDown();
+        } finally {
+            ws.shutdown();
+        }
+    }
+
+    @Test
+    public void workStealingShutdown() {
+        ParallelScheduler ws = new ParallelScheduler(2, ParallelScheduler.THREAD_FACTORY_DAEMON, true);
+        Assert.assertTrue(ws.isWorkStealing());
+        ws.shutdown();
+        
+        Assert.assertSame(Scheduler.REJECTED, ws.createWorker().schedule(() -> { }));
+    }
 }
@@ -0,0 +1,148 @@
+package rsc.scheduler;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import rsc.parallel.ParallelPublisher;
+import rsc.publisher.Px;
+import rsc.scheduler.Scheduler.Worker;
+import rsc.test.TestSubscriber;
+
+public class PrioritySchedulerTest {
+
+    PriorityScheduler scheduler;
+
+    @Before
+    public void before() {
+        scheduler = new PriorityScheduler(1, PriorityScheduler.THREAD_FACTORY_DAEMON, 4, 1);
+    }
+
+    @After
+    public void after() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void turns() {
+        Assert.assertArrayEquals(new int[] { 0, 0, 1, 0, 0 }, PriorityScheduler.turns(new int[] { 4, 1 }));
+        Assert.assertArrayEquals(new int[] { 0, 1, 0 }, PriorityScheduler.turns(new int[] { 2, 1 }));
+        Assert.assertArrayEquals(new int[] { 0, 0, 0 }, PriorityScheduler.turns(new int[] { 3 }));
+    }
+
+    @Test
+    public void workerFifo() throws Exception {
+        Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+        CountDownLatch cdl = new CountDownLatch(1);
+        int n = 10_000;
+
+        Worker worker = scheduler.lane(0).createWorker();
+        try {
+            for (int i = 0; i < n; i++) {
+                int j = i;
+                worker.schedule(() -> queue.offer(j));
+            }
+            worker.schedule(cdl::countDown);
+
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(i, queue.poll().intValue());
+            }
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void weightedLanes() throws Exception {
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+
+        scheduler.schedule(1, () -> {
+            running.countDown();
+            try {
+                block.await();
+            } catch (InterruptedException ex) {
+                // ignored
+            }
+        });
+        Assert.assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        Queue<Integer> order = new ConcurrentLinkedQueue<>();
+        int n = 20;
+        CountDownLatch cdl = new CountDownLatch(2 * n);
+        for (int i = 0; i < n; i++) {
+            scheduler.schedule(1, () -> { order.offer(1); cdl.countDown(); });
+        }
+        for (int i = 0; i < n; i++) {
+            scheduler.schedule(0, () -> { order.offer(0); cdl.countDown(); });
+        }
+        block.countDown();
+
+        Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+        int critical = 0;
+        Iterator<Integer> it = order.iterator();
+        for (int i = 0; i < 10; i++) {
+            if (it.next() == 0) {
+                critical++;
+            }
+        }
+        Assert.assertTrue("" + order, critical >= 7);
+    }
+
+    @Test
+    public void busyLaneDoesNotStarveOthers() throws Exception {
+        Worker bulk = scheduler.lane(1).createWorker();
+        CountDownLatch cdl = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                bulk.schedule(() -> { });
+            }
+            scheduler.lane(0).schedule(cdl::countDown);
+
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+        } finally {
+            bulk.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectedAfterShutdown() {
+        scheduler.shutdown();
+
+        Assert.assertSame(Scheduler.REJECTED, scheduler.schedule(() -> { }));
+        Assert.assertSame(Scheduler.REJECTED, scheduler.lane(0).createWorker().schedule(() -> { }));
+    }
+
+    @Test
+    public void observeOnLane() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(1, 1000).observeOn(scheduler.lane(0)).subscribe(ts);
+
+        ts.await(5, TimeUnit.SECONDS);
+
+        ts.assertValueCount(1000)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void runOnLane() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        ParallelPublisher.from(Px.range(1, 1000), false, 2)
+        .runOn(scheduler.lane(1))
+        .sequential()
+        .subscribe(ts);
+
+        ts.await(5, TimeUnit.SECONDS);
+
+        ts.assertValueCount(1000)
+        .assertNoError()
+        .assertComplete();
+    }
+}
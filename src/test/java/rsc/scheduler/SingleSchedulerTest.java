@@ -0,0 +1,98 @@
+package rsc.scheduler;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+import rsc.flow.Disposable;
+import rsc.scheduler.Scheduler.Worker;
+
+public class SingleSchedulerTest {
+
+    SingleScheduler scheduler;
+
+    @Before
+    public void before() {
+        scheduler = new SingleScheduler(SingleScheduler.THREAD_FACTORY_DAEMON);
+    }
+
+    @After
+    public void after() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void workerFifo() throws Exception {
+        Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+        CountDownLatch cdl = new CountDownLatch(1);
+        int n = 10_000;
+
+        Worker worker = scheduler.createWorker();
+        try {
+            for (int i = 0; i < n; i++) {
+                int j = i;
+                worker.schedule(() -> queue.offer(j));
+            }
+            worker.schedule(cdl::countDown);
+
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(i, queue.poll().intValue());
+            }
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelAndShutdown() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch cdl = new CountDownLatch(1);
+
+        Worker w1 = scheduler.createWorker();
+        Worker w2 = scheduler.createWorker();
+        try {
+            w1.schedule(() -> {
+                try {
+                    block.await();
+                } catch (InterruptedException ex) {
+                    // ignored
+                }
+            });
+            Disposable d = w1.schedule(counter::getAndIncrement);
+            w1.schedule(counter::getAndIncrement);
+            w2.schedule(counter::getAndIncrement);
+
+            d.dispose();
+            w2.shutdown();
+
+            Assert.assertSame(Scheduler.REJECTED, w2.schedule(() -> { }));
+
+            w1.schedule(cdl::countDown);
+            block.countDown();
+
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(1, counter.get());
+        } finally {
+            block.countDown();
+            w1.shutdown();
+        }
+    }
+
+    @Test
+    public void workerRejectsAfterSchedulerShutdown() {
+        Worker worker = scheduler.createWorker();
+        try {
+            scheduler.shutdown();
+
+            Assert.assertSame(Scheduler.REJECTED, worker.schedule(() -> { }));
+            Assert.assertSame(Scheduler.REJECTED, worker.schedule(() -> { }));
+        } finally {
+            worker.shutdown();
+        }
+    }
+}
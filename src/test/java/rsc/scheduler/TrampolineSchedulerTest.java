@@ -0,0 +1,107 @@
+package rsc.scheduler;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+import rsc.flow.Disposable;
+import rsc.publisher.Px;
+import rsc.scheduler.Scheduler.Worker;
+import rsc.test.TestSubscriber;
+
+public class TrampolineSchedulerTest {
+
+    final Scheduler scheduler = TrampolineScheduler.instance();
+
+    @Test
+    public void runsImmediately() {
+        AtomicInteger counter = new AtomicInteger();
+
+        scheduler.schedule(counter::getAndIncrement);
+
+        Assert.assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void reentrantTasksQueued() {
+        List<Integer> list = new ArrayList<>();
+
+        scheduler.schedule(() -> {
+            scheduler.schedule(() -> {
+                scheduler.schedule(() -> list.add(4));
+                list.add(2);
+            });
+            scheduler.schedule(() -> list.add(3));
+            list.add(1);
+        });
+
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4), list);
+    }
+
+    @Test
+    public void deepRecursionIsStackSafe() {
+        int n = 1_000_000;
+        AtomicInteger counter = new AtomicInteger();
+
+        Runnable[] task = { null };
+        task[0] = () -> {
+            if (counter.incrementAndGet() < n) {
+                scheduler.schedule(task[0]);
+            }
+        };
+
+        scheduler.schedule(task[0]);
+
+        Assert.assertEquals(n, counter.get());
+    }
+
+    @Test
+    public void queuedTaskCancelled() {
+        AtomicInteger counter = new AtomicInteger();
+
+        scheduler.schedule(() -> {
+            Disposable d = scheduler.schedule(counter::getAndIncrement);
+            d.dispose();
+        });
+
+        Assert.assertEquals(0, counter.get());
+    }
+
+    @Test
+    public void workerShutdownDropsQueuedTasks() {
+        AtomicInteger counter = new AtomicInteger();
+        Worker w = scheduler.createWorker();
+
+        w.schedule(() -> {
+            w.schedule(counter::getAndIncrement);
+            w.shutdown();
+        });
+
+        Assert.assertEquals(0, counter.get());
+        Assert.assertSame(Scheduler.REJECTED, w.schedule(() -> { }));
+    }
+
+    @Test
+    public void crashDoesNotStopQueue() {
+        AtomicInteger counter = new AtomicInteger();
+
+        scheduler.schedule(() -> {
+            scheduler.schedule(() -> { throw new IllegalStateException(); });
+            scheduler.schedule(counter::getAndIncrement);
+        });
+
+        Assert.assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void subscribeOnRepeat() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(1, 2).subscribeOn(scheduler).repeat(10_000).subscribe(ts);
+
+        ts.assertValueCount(20_000)
+        .assertNoError()
+        .assertComplete();
+    }
+}
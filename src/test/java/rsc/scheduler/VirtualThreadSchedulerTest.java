@@ -0,0 +1,205 @@
+package rsc.scheduler;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+import rsc.flow.Disposable;
+import rsc.publisher.Px;
+import rsc.scheduler.TimedScheduler.TimedWorker;
+import rsc.test.TestSubscriber;
+
+public class VirtualThreadSchedulerTest {
+
+    VirtualThreadScheduler scheduler;
+
+    @Before
+    public void before() {
+        if (VirtualThreadScheduler.isSupported()) {
+            scheduler = new VirtualThreadScheduler();
+        } else {
+            scheduler = new VirtualThreadScheduler(r -> {
+                Thread t = new Thread(r, "VirtualThreadSchedulerTest");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    @After
+    public void after() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void supportedOrRejected() {
+        if (VirtualThreadScheduler.isSupported()) {
+            new VirtualThreadScheduler().shutdown();
+        } else {
+            try {
+                new VirtualThreadScheduler();
+                Assert.fail("Should have thrown");
+            } catch (UnsupportedOperationException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void workerFifo() throws Exception {
+        Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+
+        CountDownLatch cdl = new CountDownLatch(1);
+
+        int n = 10_000;
+
+        TimedWorker worker = scheduler.createWorker();
+        try {
+            for (int i = 0; i < n; i++) {
+                int j = i;
+                worker.schedule(() -> queue.offer(j));
+            }
+            worker.schedule(cdl::countDown);
+
+            if (!cdl.await(5, TimeUnit.SECONDS)) {
+                Assert.fail("Timeout " + queue.size());
+            }
+
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(i, queue.poll().intValue());
+            }
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void workerBlockingCallsDoNotStallOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch cdl = new CountDownLatch(1);
+
+        TimedWorker w1 = scheduler.createWorker();
+        TimedWorker w2 = scheduler.createWorker();
+        try {
+            w1.schedule(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    // ignored
+                }
+            });
+            w2.schedule(cdl::countDown);
+
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            w1.shutdown();
+            w2.shutdown();
+        }
+    }
+
+    @Test
+    public void delayedInOrder() throws Exception {
+        Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+        CountDownLatch cdl = new CountDownLatch(3);
+
+        TimedWorker worker = scheduler.createWorker();
+        try {
+            worker.schedule(() -> { queue.offer(3); cdl.countDown(); }, 60, TimeUnit.MILLISECONDS);
+            worker.schedule(() -> { queue.offer(1); cdl.countDown(); }, 5, TimeUnit.MILLISECONDS);
+            worker.schedule(() -> { queue.offer(2); cdl.countDown(); }, 25, TimeUnit.MILLISECONDS);
+
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+
+            Assert.assertEquals(Arrays.asList(1, 2, 3), new ArrayList<>(queue));
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    public void periodicCancel() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        CountDownLatch cdl = new CountDownLatch(5);
+
+        Disposable d = scheduler.schedulePeriodically(() -> {
+            counter.getAndIncrement();
+            cdl.countDown();
+        }, 0, 3, TimeUnit.MILLISECONDS);
+
+        try {
+            Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+        } finally {
+            d.dispose();
+        }
+
+        Thread.sleep(20);
+        int c = counter.get();
+        Thread.sleep(20);
+
+        Assert.assertEquals(c, counter.get());
+    }
+
+    @Test
+    public void workerShutdownCancelsTasks() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+
+        TimedWorker worker = scheduler.createWorker();
+
+        worker.schedule(counter::getAndIncrement, 20, TimeUnit.MILLISECONDS);
+        worker.schedulePeriodically(counter::getAndIncrement, 20, 20, TimeUnit.MILLISECONDS);
+
+        worker.shutdown();
+
+        Assert.assertSame(Scheduler.REJECTED, worker.schedule(() -> { }));
+
+        Thread.sleep(60);
+
+        Assert.assertEquals(0, counter.get());
+    }
+
+    @Test
+    public void rejectedAfterShutdown() {
+        scheduler.shutdown();
+
+        Assert.assertSame(Scheduler.REJECTED, scheduler.schedule(() -> { }));
+        Assert.assertSame(Scheduler.REJECTED, scheduler.schedule(() -> { }, 1, TimeUnit.SECONDS));
+        Assert.assertSame(Scheduler.REJECTED, scheduler.createWorker().schedule(() -> { }));
+    }
+
+    @Test
+    public void subscribeOn() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Px.range(1, 10).subscribeOn(scheduler).subscribe(ts);
+
+        ts.await(5, TimeUnit.SECONDS);
+
+        ts.assertValues(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void timerCreatedOnFirstDelay() throws Exception {
+        CountDownLatch cdl = new CountDownLatch(2);
+
+        scheduler.schedule(cdl::countDown);
+
+        Assert.assertNull(scheduler.timer);
+
+        scheduler.schedule(cdl::countDown, 1, TimeUnit.MILLISECONDS);
+
+        Assert.assertNotNull(scheduler.timer);
+        Assert.assertTrue(cdl.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void delayRejectedAfterShutdown() {
+        scheduler.shutdown();
+
+        Assert.assertSame(Scheduler.REJECTED, scheduler.schedule(() -> { }, 1, TimeUnit.MILLISECONDS));
+    }
+}
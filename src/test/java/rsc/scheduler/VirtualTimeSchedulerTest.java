@@ -0,0 +1,140 @@
+package rsc.scheduler;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.*;
+
+import rsc.flow.Disposable;
+import rsc.publisher.Px;
+import rsc.scheduler.TimedScheduler.TimedWorker;
+import rsc.test.TestSubscriber;
+
+public class VirtualTimeSchedulerTest {
+
+    VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+
+    @Test
+    public void dueTasksRunInTimeOrder() {
+        List<Integer> list = new ArrayList<>();
+
+        scheduler.schedule(() -> list.add(3), 3, TimeUnit.SECONDS);
+        scheduler.schedule(() -> list.add(1), 1, TimeUnit.SECONDS);
+        scheduler.schedule(() -> list.add(2), 2, TimeUnit.SECONDS);
+        scheduler.schedule(() -> list.add(22), 2, TimeUnit.SECONDS);
+
+        scheduler.advanceTimeBy(1500, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(Arrays.asList(1), list);
+        Assert.assertEquals(1500, scheduler.now(TimeUnit.MILLISECONDS));
+
+        scheduler.advanceTimeTo(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(Arrays.asList(1, 2, 22, 3), list);
+        Assert.assertEquals(5, scheduler.now(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void nowDuringTask() {
+        List<Long> list = new ArrayList<>();
+
+        scheduler.schedule(() -> list.add(scheduler.now(TimeUnit.SECONDS)), 2, TimeUnit.SECONDS);
+
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(Arrays.asList(2L), list);
+    }
+
+    @Test
+    public void nonDelayedNeedsTrigger() {
+        List<Integer> list = new ArrayList<>();
+
+        scheduler.schedule(() -> list.add(1));
+
+        Assert.assertTrue(list.isEmpty());
+
+        scheduler.triggerActions();
+
+        Assert.assertEquals(Arrays.asList(1), list);
+    }
+
+    @Test
+    public void cancel() {
+        List<Integer> list = new ArrayList<>();
+
+        Disposable d = scheduler.schedule(() -> list.add(1), 1, TimeUnit.SECONDS);
+        d.dispose();
+
+        Assert.assertEquals(0, scheduler.pendingTasks());
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        Assert.assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void periodic() {
+        List<Long> list = new ArrayList<>();
+
+        Disposable d = scheduler.schedulePeriodically(() -> list.add(scheduler.now(TimeUnit.SECONDS)), 1, 2, TimeUnit.SECONDS);
+
+        scheduler.advanceTimeBy(6, TimeUnit.SECONDS);
+
+        Assert.assertEquals(Arrays.asList(1L, 3L, 5L), list);
+
+        d.dispose();
+
+        scheduler.advanceTimeBy(6, TimeUnit.SECONDS);
+
+        Assert.assertEquals(Arrays.asList(1L, 3L, 5L), list);
+    }
+
+    @Test
+    public void workerShutdown() {
+        List<Integer> list = new ArrayList<>();
+
+        TimedWorker w = scheduler.createWorker();
+
+        w.schedule(() -> list.add(1), 1, TimeUnit.SECONDS);
+        w.shutdown();
+
+        Assert.assertSame(Scheduler.REJECTED, w.schedule(() -> list.add(2)));
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        Assert.assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void interval() {
+        TestSubscriber<Long> ts = new TestSubscriber<>();
+
+        Px.interval(1, TimeUnit.SECONDS, scheduler).take(5).subscribe(ts);
+
+        ts.assertNoValues();
+
+        scheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+
+        ts.assertValues(0L, 1L, 2L)
+        .assertNotComplete();
+
+        scheduler.advanceTimeBy(1, TimeUnit.HOURS);
+
+        ts.assertResult(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void timer() {
+        TestSubscriber<Long> ts = new TestSubscriber<>();
+
+        Px.timer(1, TimeUnit.MINUTES, scheduler).subscribe(ts);
+
+        scheduler.advanceTimeBy(59, TimeUnit.SECONDS);
+
+        ts.assertNoValues();
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        ts.assertResult(0L);
+    }
+}
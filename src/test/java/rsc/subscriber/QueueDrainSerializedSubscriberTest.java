@@ -0,0 +1,130 @@
+package rsc.subscriber;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import rsc.test.TestSubscriber;
+
+public class QueueDrainSerializedSubscriberTest {
+
+    @Test
+    public void normal() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>();
+
+        Subscriber<Integer> s = QueueDrainSerializedSubscriber.create(ts);
+        s.onSubscribe(SubscriptionHelper.empty());
+        s.onNext(1);
+        s.onNext(2);
+        s.onComplete();
+        s.onNext(3);
+        s.onError(new RuntimeException());
+
+        ts.assertValues(1, 2)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void reentrantValuesQueued() {
+        QueueDrainSerializedSubscriber<Integer>[] ref = new QueueDrainSerializedSubscriber[1];
+        TestSubscriber<Integer> ts = new TestSubscriber<Integer>() {
+            @Override
+            public void onNext(Integer t) {
+                super.onNext(t);
+                if (t == 1) {
+                    ref[0].onNext(2);
+                    ref[0].onComplete();
+                    Assert.assertEquals(1, values().size());
+                }
+            }
+        };
+        ref[0] = new QueueDrainSerializedSubscriber<>(ts);
+        ref[0].onSubscribe(SubscriptionHelper.empty());
+        ref[0].onNext(1);
+
+        ts.assertValues(1, 2)
+        .assertNoError()
+        .assertComplete();
+    }
+
+    @Test
+    public void concurrentProducers() throws Exception {
+        int threads = 4;
+        int n = 100_000;
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        int[] count = { 0 };
+
+        Subscriber<Integer> s = new QueueDrainSerializedSubscriber<>(new Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Integer t) {
+                int c = concurrent.incrementAndGet();
+                if (c > maxConcurrent.get()) {
+                    maxConcurrent.set(c);
+                }
+                count[0]++;
+                concurrent.decrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                t.printStackTrace();
+            }
+
+            @Override
+            public void onComplete() {
+
+            }
+        });
+        s.onSubscribe(SubscriptionHelper.empty());
+
+        ExecutorService exec = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            Future<?>[] futures = new Future[threads];
+            for (int i = 0; i < threads; i++) {
+                futures[i] = exec.submit(() -> {
+                    barrier.await();
+                    for (int j = 0; j < n; j++) {
+                        s.onNext(j);
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> f : futures) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            exec.shutdownNow();
+        }
+
+        s.onComplete();
+
+        Assert.assertEquals(1, maxConcurrent.get());
+        Assert.assertEquals(threads * n, count[0]);
+    }
+
+    @Test
+    public void cancelDropsQueued() {
+        TestSubscriber<Integer> ts = new TestSubscriber<>(0);
+
+        QueueDrainSerializedSubscriber<Integer> s = new QueueDrainSerializedSubscriber<>(ts);
+        s.onSubscribe(SubscriptionHelper.empty());
+        s.cancel();
+        s.onNext(1);
+
+        Assert.assertTrue(s.isCancelled());
+        Assert.assertEquals(0, s.getPending());
+        ts.assertNoValues();
+    }
+}
@@ -0,0 +1,108 @@
+package rsc.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptivePrefetchTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minPrefetchPositive() {
+        new AdaptivePrefetch(0, 16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxPrefetchAtLeastMin() {
+        new AdaptivePrefetch(16, 8);
+    }
+
+    @Test
+    public void startsAtMinimum() {
+        AdaptivePrefetch ap = new AdaptivePrefetch(8, 64);
+
+        Assert.assertEquals(8, ap.initial());
+        Assert.assertEquals(6, ap.limit());
+    }
+
+    @Test
+    public void bulkGrowsAdditivelyUpToMaximum() {
+        AdaptivePrefetch ap = new AdaptivePrefetch(8, 64);
+
+        Assert.assertEquals(14, ap.replenish(ap.limit()));
+        Assert.assertEquals(16, ap.window());
+        Assert.assertEquals(12, ap.limit());
+
+        Assert.assertEquals(20, ap.replenish(ap.limit()));
+        Assert.assertEquals(24, ap.window());
+
+        for (int i = 0; i < 10; i++) {
+            ap.replenish(ap.limit());
+        }
+
+        Assert.assertEquals(64, ap.window());
+        Assert.assertEquals(48, ap.limit());
+        Assert.assertEquals(48, ap.replenish(48));
+    }
+
+    @Test
+    public void trickleShrinksMultiplicativelyDownToMinimum() {
+        AdaptivePrefetch ap = new AdaptivePrefetch(8, 64);
+
+        while (ap.window() != 64) {
+            ap.replenish(ap.limit());
+        }
+
+        idle(ap, 48);
+        // 16 still outstanding, the halved window is 32
+        Assert.assertEquals(16, ap.replenish(48));
+        Assert.assertEquals(32, ap.window());
+        Assert.assertEquals(24, ap.limit());
+
+        idle(ap, 24);
+        // 8 still outstanding, the halved window is 16
+        Assert.assertEquals(8, ap.replenish(24));
+        Assert.assertEquals(16, ap.window());
+
+        for (int i = 0; i < 10; i++) {
+            int n = ap.limit();
+            idle(ap, n);
+            ap.replenish(n);
+        }
+
+        Assert.assertEquals(8, ap.window());
+    }
+
+    @Test
+    public void occasionalIdleKeepsWindow() {
+        AdaptivePrefetch ap = new AdaptivePrefetch(8, 64);
+
+        ap.replenish(ap.limit());
+        Assert.assertEquals(16, ap.window());
+
+        // 4 idle rounds for 12 items: between a quarter and a half
+        idle(ap, 4);
+        Assert.assertEquals(12, ap.replenish(12));
+        Assert.assertEquals(16, ap.window());
+    }
+
+    @Test
+    public void shrinkingBelowOutstandingRequestsNothing() {
+        AdaptivePrefetch ap = new AdaptivePrefetch(4, 64);
+
+        while (ap.window() != 64) {
+            ap.replenish(ap.limit());
+        }
+
+        // only 2 of the 64 outstanding consumed, each after an idle round
+        idle(ap, 2);
+        Assert.assertEquals(0, ap.replenish(2));
+        Assert.assertEquals(32, ap.window());
+        // 62 outstanding, replenish once 8 remain
+        Assert.assertEquals(54, ap.limit());
+    }
+
+    static void idle(AdaptivePrefetch ap, int n) {
+        for (int i = 0; i < n; i++) {
+            ap.idle();
+        }
+    }
+}
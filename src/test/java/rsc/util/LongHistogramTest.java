@@ -0,0 +1,52 @@
+package rsc.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongHistogramTest {
+
+    @Test
+    public void empty() {
+        LongHistogram.Snapshot s = new LongHistogram().snapshot();
+
+        Assert.assertEquals(0, s.count());
+        Assert.assertEquals(0, s.max());
+        Assert.assertEquals(0, s.percentile(99));
+        Assert.assertEquals(0d, s.mean(), 0d);
+    }
+
+    @Test
+    public void percentiles() {
+        LongHistogram h = new LongHistogram();
+
+        for (int i = 1; i <= 100; i++) {
+            h.record(i);
+        }
+        h.record(-1);
+
+        LongHistogram.Snapshot s = h.snapshot();
+
+        Assert.assertEquals(101, s.count());
+        Assert.assertEquals(100, s.max());
+        Assert.assertEquals(5050d / 101, s.mean(), 1e-9);
+
+        // 50 falls into [32, 63]
+        Assert.assertEquals(63, s.percentile(50));
+        // capped by the max
+        Assert.assertEquals(100, s.percentile(99));
+        Assert.assertEquals(0, s.percentile(0));
+    }
+
+    @Test
+    public void largeValues() {
+        LongHistogram h = new LongHistogram();
+        h.record(Long.MAX_VALUE);
+
+        Assert.assertEquals(Long.MAX_VALUE, h.snapshot().percentile(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPercentile() {
+        new LongHistogram().snapshot().percentile(101);
+    }
+}
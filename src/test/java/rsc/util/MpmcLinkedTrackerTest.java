@@ -0,0 +1,103 @@
+package rsc.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MpmcLinkedTrackerTest {
+    static final class Entry extends MpmcLinkedTracker.Node {
+        boolean unsubscribed;
+    }
+
+    static final class Tracker extends MpmcLinkedTracker<Entry> {
+        @Override
+        protected void unsubscribeEntry(Entry entry) {
+            entry.unsubscribed = true;
+        }
+    }
+
+    @Test
+    public void addRemove() {
+        Tracker tr = new Tracker();
+        List<Entry> list = new ArrayList<>();
+
+        for (int j = 0; j < 16; j++) {
+            for (int i = 0; i < 100; i++) {
+                Entry e = new Entry();
+                list.add(e);
+                Assert.assertTrue(tr.add(e));
+            }
+
+            Assert.assertEquals(100, tr.size());
+
+            for (Entry e : list) {
+                tr.remove(e);
+            }
+            list.clear();
+
+            Assert.assertEquals(0, tr.size());
+        }
+    }
+
+    @Test
+    public void purgeKeepsLiveEntries() {
+        Tracker tr = new Tracker();
+        List<Entry> list = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            Entry e = new Entry();
+            list.add(e);
+            tr.add(e);
+        }
+
+        for (int i = 0; i < 1000; i += 2) {
+            tr.remove(list.get(i));
+        }
+
+        Assert.assertEquals(500, tr.size());
+
+        Assert.assertTrue(tr.unsubscribe());
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals("" + i, i % 2 != 0, list.get(i).unsubscribed);
+        }
+    }
+
+    @Test
+    public void addAfterUnsubscribe() {
+        Tracker tr = new Tracker();
+
+        Assert.assertTrue(tr.unsubscribe());
+        Assert.assertFalse(tr.unsubscribe());
+
+        Assert.assertFalse(tr.add(new Entry()));
+        Assert.assertEquals(0, tr.size());
+    }
+
+    @Test
+    public void concurrentAddRemove() throws Exception {
+        Tracker tr = new Tracker();
+        int n = 10_000;
+        int threads = 4;
+        CountDownLatch cdl = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < n; i++) {
+                    Entry e = new Entry();
+                    tr.add(e);
+                    tr.remove(e);
+                }
+                cdl.countDown();
+            }).start();
+        }
+
+        Assert.assertTrue(cdl.await(10, TimeUnit.SECONDS));
+
+        Assert.assertEquals(0, tr.size());
+    }
+}
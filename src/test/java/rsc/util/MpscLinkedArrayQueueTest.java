@@ -0,0 +1,95 @@
+package rsc.util;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.*;
+
+public class MpscLinkedArrayQueueTest {
+
+    MpscLinkedArrayQueue<Integer> queue;
+    
+    @Before
+    public void before() {
+        queue = new MpscLinkedArrayQueue<>(16);
+    }
+    
+    @Test
+    public void offerTakeOneByOne() {
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(0, queue.size());
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(queue.offer(i));
+            Assert.assertFalse(queue.isEmpty());
+            Assert.assertEquals(1, queue.size());
+            
+            Assert.assertEquals((Integer)i, queue.peek());
+            Assert.assertEquals((Integer)i, queue.poll());
+            Assert.assertTrue(queue.isEmpty());
+            Assert.assertEquals(0, queue.size());
+        }
+    }
+    
+    @Test
+    public void grow() {
+        
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(queue.offer(i));
+            Assert.assertFalse(queue.isEmpty());
+            Assert.assertEquals(1 + i, queue.size());
+        }
+
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals((Integer)i, queue.peek());
+            Assert.assertEquals((Integer)i, queue.poll());
+        }
+
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(0, queue.size());
+        Assert.assertNull(queue.poll());
+    }
+    
+    @Test
+    public void multipleProducers() throws Exception {
+        int producers = 4;
+        int count = 10_000;
+        
+        CountDownLatch start = new CountDownLatch(1);
+        
+        for (int p = 0; p < producers; p++) {
+            int base = p * count;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    queue.offer(base + i);
+                }
+            });
+            t.setDaemon(true);
+            t.start();
+        }
+        
+        start.countDown();
+        
+        int[] last = new int[producers];
+        for (int p = 0; p < producers; p++) {
+            last[p] = p * count - 1;
+        }
+        
+        for (int i = 0; i < producers * count; i++) {
+            Integer v;
+            while ((v = queue.poll()) == null) {
+                Thread.yield();
+            }
+            
+            int p = v / count;
+            Assert.assertEquals(last[p] + 1, (int)v);
+            last[p] = v;
+        }
+        
+        Assert.assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package rsc.util;
+
+import org.junit.*;
+
+public class SpscArrayQueueTest {
+
+    SpscArrayQueue<Integer> queue;
+    
+    Integer[] items;
+    
+    @Before
+    public void before() {
+        queue = new SpscArrayQueue<>(16);
+        items = new Integer[16];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = i;
+        }
+    }
+    
+    @Test
+    public void batchOfferAllOrNothing() {
+        Assert.assertTrue(queue.offer(items, 0, 10));
+        Assert.assertFalse(queue.offer(items, 0, 7));
+        Assert.assertEquals(10, queue.size());
+        
+        Assert.assertTrue(queue.offer(items, 10, 6));
+        Assert.assertEquals(16, queue.size());
+        Assert.assertFalse(queue.offer(items, 0, 1));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void batchOfferTooLarge() {
+        queue.offer(new Integer[17], 0, 17);
+    }
+    
+    @Test
+    public void batchPoll() {
+        Integer[] into = new Integer[6];
+        
+        for (int j = 0; j < 10; j++) {
+            Assert.assertTrue(queue.offer(items, 0, 10));
+            
+            Assert.assertEquals(6, queue.poll(into));
+            for (int i = 0; i < 6; i++) {
+                Assert.assertEquals(items[i], into[i]);
+            }
+            Assert.assertEquals(4, queue.poll(into));
+            for (int i = 0; i < 4; i++) {
+                Assert.assertEquals(items[i + 6], into[i]);
+            }
+            Assert.assertEquals(0, queue.poll(into));
+            Assert.assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void batchDrain() {
+        Assert.assertTrue(queue.offer(items, 0, 16));
+        
+        int[] k = { 0 };
+        Assert.assertEquals(5, queue.drain(v -> Assert.assertEquals(items[k[0]++], v), 5));
+        Assert.assertEquals(11, queue.size());
+        Assert.assertEquals(11, queue.drain(v -> Assert.assertEquals(items[k[0]++], v), 16));
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.poll());
+    }
+
+    @Test
+    public void batchOfferNullInTheMiddle() {
+        Integer[] batch = { 1, 2, null, 4 };
+        try {
+            queue.offer(batch, 0, 4);
+            Assert.fail("Should have thrown");
+        } catch (NullPointerException ex) {
+            // expected
+        }
+        
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.poll());
+        
+        Assert.assertTrue(queue.offer(new Integer[] { 5, 6 }, 0, 2));
+        Assert.assertEquals((Integer)5, queue.poll());
+        Assert.assertEquals((Integer)6, queue.poll());
+        Assert.assertNull(queue.poll());
+    }
+}
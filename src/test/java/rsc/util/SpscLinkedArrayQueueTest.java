@@ -45,4 +45,63 @@ public class SpscLinkedArrayQueueTest {
         Assert.assertTrue(queue.isEmpty());
         Assert.assertEquals(0, queue.size());
     }
+    
+    @Test
+    public void batchOfferPoll() {
+        Integer[] items = new Integer[100];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = i;
+        }
+        
+        Assert.assertTrue(queue.offer(items, 0, 40));
+        Assert.assertTrue(queue.offer(items, 40, 60));
+        Assert.assertEquals(100, queue.size());
+        
+        Integer[] into = new Integer[30];
+        int k = 0;
+        int n;
+        while ((n = queue.poll(into)) != 0) {
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals((Integer)k++, into[i]);
+            }
+        }
+        Assert.assertEquals(100, k);
+        Assert.assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    public void batchDrain() {
+        for (int i = 0; i < 50; i++) {
+            queue.offer(i);
+        }
+        
+        int[] k = { 0 };
+        Assert.assertEquals(20, queue.drain(v -> Assert.assertEquals((Integer)k[0]++, v), 20));
+        Assert.assertEquals(30, queue.size());
+        Assert.assertEquals(30, queue.drain(v -> Assert.assertEquals((Integer)k[0]++, v), 100));
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void batchOfferNullInTheMiddle() {
+        Integer[] batch = new Integer[40];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = i;
+        }
+        batch[20] = null;
+        try {
+            queue.offer(batch, 0, 40);
+            Assert.fail("Should have thrown");
+        } catch (NullPointerException ex) {
+            // expected
+        }
+        
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.poll());
+        
+        Assert.assertTrue(queue.offer(new Integer[] { 5, 6 }, 0, 2));
+        Assert.assertEquals((Integer)5, queue.poll());
+        Assert.assertEquals((Integer)6, queue.poll());
+        Assert.assertNull(queue.poll());
+    }
 }
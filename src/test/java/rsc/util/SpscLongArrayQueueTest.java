@@ -0,0 +1,62 @@
+package rsc.util;
+
+import org.junit.*;
+
+public class SpscLongArrayQueueTest {
+
+    SpscLongArrayQueue queue;
+    
+    @Before
+    public void before() {
+        queue = new SpscLongArrayQueue(16);
+    }
+    
+    @Test
+    public void offerTakeOneByOne() {
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(0, queue.size());
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(queue.offerLong(i));
+            Assert.assertFalse(queue.isEmpty());
+            Assert.assertEquals(1, queue.size());
+            
+            Assert.assertEquals(i, queue.pollLong());
+            Assert.assertTrue(queue.isEmpty());
+            Assert.assertEquals(0, queue.size());
+        }
+    }
+    
+    @Test
+    public void full() {
+        for (int i = 0; i < 16; i++) {
+            Assert.assertTrue(queue.offerLong(i));
+        }
+        Assert.assertFalse(queue.offerLong(16));
+        
+        Assert.assertEquals(0, queue.pollLong());
+        Assert.assertTrue(queue.offerLong(16));
+
+        for (int i = 1; i < 17; i++) {
+            Assert.assertEquals(i, queue.pollLong());
+        }
+        Assert.assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    public void boxedApi() {
+        Assert.assertNull(queue.poll());
+        Assert.assertNull(queue.peek());
+        
+        Assert.assertTrue(queue.offer(1L));
+        Assert.assertTrue(queue.offer(2L));
+        
+        Assert.assertEquals((Long)1L, queue.peek());
+        Assert.assertEquals((Long)1L, queue.poll());
+        
+        queue.clear();
+        
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,73 @@
+package rsc.util;
+
+import java.nio.ByteBuffer;
+
+import org.junit.*;
+
+public class SpscRecordQueueTest {
+
+    public static final RecordCodec<Long> LONG_CODEC = new RecordCodec<Long>() {
+        @Override
+        public int recordSize() {
+            return 8;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Long value) {
+            buffer.putLong(offset, value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    @Test
+    public void offerTakeOneByOne() {
+        SpscRecordQueue<Long> queue = new SpscRecordQueue<>(16, LONG_CODEC);
+
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(16, queue.capacity());
+
+        for (long i = 0; i < 1000; i++) {
+            Assert.assertTrue(queue.offer(i));
+            Assert.assertEquals(1, queue.size());
+
+            Assert.assertEquals((Long)i, queue.peek());
+            Assert.assertEquals((Long)i, queue.poll());
+            Assert.assertTrue(queue.isEmpty());
+            Assert.assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void full() {
+        SpscRecordQueue<Long> queue = new SpscRecordQueue<>(16, LONG_CODEC);
+
+        for (long i = 0; i < 16; i++) {
+            Assert.assertTrue(queue.offer(i));
+        }
+        Assert.assertFalse(queue.offer(16L));
+
+        Assert.assertEquals((Long)0L, queue.poll());
+        Assert.assertTrue(queue.offer(16L));
+
+        for (long i = 1; i < 17; i++) {
+            Assert.assertEquals((Long)i, queue.poll());
+        }
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void givenBuffer() {
+        SpscRecordQueue<Long> queue = new SpscRecordQueue<>(ByteBuffer.allocate(100), LONG_CODEC);
+
+        Assert.assertEquals(8, queue.capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bufferTooSmall() {
+        new SpscRecordQueue<>(ByteBuffer.allocate(7), LONG_CODEC);
+    }
+}